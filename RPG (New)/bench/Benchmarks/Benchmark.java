@@ -0,0 +1,99 @@
+package Benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * A small microbenchmark harness in the spirit of JMH. Each Benchmark is warmed up for a number of timed iterations so the JIT can settle, then measured
+ * for a number of timed iterations, and the average time per operation is reported along with its standard deviation. Whatever run() returns is folded into
+ * a sink so that the JIT cannot eliminate the work being measured. Console output is swallowed while a benchmark runs so that debug printing in the code
+ * under test doesn't flood the report (the cost of formatting it is still measured).
+ */
+public abstract class Benchmark {
+
+	public static int warmupIterations = 5; // number of iterations run before measuring
+	public static int measurementIterations = 10; // number of iterations that are measured
+	public static long iterationNanos = 200000000L; // how long each iteration should last
+
+	private static int sink; // receives the results of every operation so they can't be optimized away
+
+	public final String name; // name of the benchmark (i.e. "TileMap.load[LOL.map]")
+
+	/**
+	 * @param name The name of the benchmark as it should appear in the report
+	 */
+	public Benchmark(String name) { this.name = name; }
+
+	/**
+	 * Called once before the benchmark is warmed up.
+	 */
+	public void setup() {}
+
+	/**
+	 * Performs a single operation of the code being measured and returns something depending on its result.
+	 */
+	public abstract Object run();
+
+	/**
+	 * Runs one timed iteration, calling run() in batches until at least iterationNanos has passed, and returns the average nanoseconds per operation.
+	 */
+	private double iteration() {
+		long ops = 0, batch = 1;
+		long start = System.nanoTime(), elapsed;
+		do {
+			for (long i = 0; i < batch; i++) {
+				Object o = run();
+				sink ^= (o == null) ? 0 : o.hashCode();
+			}
+			ops += batch;
+			elapsed = System.nanoTime() - start;
+			if (batch < 1 << 20) batch <<= 1;
+		} while (elapsed < iterationNanos);
+		return (double) elapsed / ops;
+	}
+
+	/**
+	 * Runs every benchmark in the list whose name matches the filter and prints a report of the results to the console.
+	 * 
+	 * @param benchmarks The benchmarks to be run
+	 * @param filter     A regular expression that benchmark names must contain a match for, or null to run all of them
+	 */
+	public static void runAll(ArrayList<Benchmark> benchmarks, String filter) {
+		PrintStream out = System.out;
+		PrintStream discard = new PrintStream(new OutputStream() {
+
+			public void write(int b) {}
+
+			public void write(byte[] b, int off, int len) {}
+		});
+
+		Pattern pattern = (filter == null) ? null : Pattern.compile(filter);
+		out.printf("%-64s %14s %12s %14s%n", "Benchmark", "ns/op", "error", "ops/s");
+		for (Benchmark b : benchmarks) {
+			if (pattern != null && !pattern.matcher(b.name).find()) continue;
+
+			System.setOut(discard);
+			double[] results = new double[measurementIterations];
+			try {
+				b.setup();
+				for (int i = 0; i < warmupIterations; i++)
+					b.iteration();
+				for (int i = 0; i < measurementIterations; i++)
+					results[i] = b.iteration();
+			} finally {
+				System.setOut(out);
+			}
+
+			double mean = 0, variance = 0;
+			for (double r : results)
+				mean += r / results.length;
+			for (double r : results)
+				variance += (r - mean) * (r - mean) / Math.max(1, results.length - 1);
+			out.printf("%-64s %14.1f %12.1f %14.1f%n", b.name, mean, Math.sqrt(variance), 1000000000.0 / mean);
+		}
+		if (sink == 42) out.println();
+	}
+
+}
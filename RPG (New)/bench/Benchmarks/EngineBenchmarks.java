@@ -0,0 +1,618 @@
+package Benchmarks;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import Engine.AssetManager.CharacterSprites;
+import Engine.Game;
+import Engine.Sprite;
+import Engine.SpriteAtlas;
+import Engine.Tools;
+import Engine.Tools.Matrix;
+import Engine.Tools.Vec2;
+import Play.LootTable;
+import Play.PlayState;
+import Play.Entities.Dynamic;
+import Play.Entities.Entity;
+import Play.Entities.EntityStore;
+import Play.Entities.NPC;
+import Play.Entities.RenderQueue;
+import Play.Entities.Items.ItemManager;
+import Play.Entities.Items.ItemManager.Items;
+import Play.Maps.BinaryMapFormat;
+import Play.Maps.FlowField;
+import Play.Maps.PagedMapFormat;
+import Play.Maps.PagedTileMap;
+import Play.Maps.PathFinder;
+import Play.Maps.Tile;
+import Play.Maps.TileMap;
+import Play.TheaterEngine.Commands.ShowDialogCommand;
+
+/**
+ * Microbenchmarks for the hot paths of the engine. Every benchmark runs against a headless Game and the real maps in res/maps, so the resources folder must
+ * be on the classpath. Run with an optional regular expression to only run matching benchmarks, i.e. "TileMap" or "Large Island".
+ */
+public class EngineBenchmarks {
+
+	// Every map that ships in res/maps
+	public static final String[] MAP_NAMES = { "BrookieShowAndTell.map" , "COOL_ISLAND.map" , "INSIDE_HOUSE.map" , "Island.map" , "LOL.map" ,
+			"Land Bridge.map" , "Link's Awakening MapSize.map" , "Square Ponds.map" , "Unnecessarily Large Island.map" , "flowers.map" , "marioSunLevel.map" ,
+			"suns.map" };
+
+	// The maps used by the benchmarks that only need a small and a large case
+	public static final String[] SMALL_AND_LARGE_MAPS = { "COOL_ISLAND.map" , "Unnecessarily Large Island.map" };
+
+	public static final int WIDTH = 720, HEIGHT = 576; // Size of the offscreen render target (the size of the game window)
+	public static final int CROWDED_MAP_NPCS = 2000; // The number of NPCs on the crowded map
+
+	private static Game game; // The headless game instance shared by all benchmarks
+
+	public static void main(String[] args) {
+		Benchmark.runAll(createAll(), args.length > 0 ? args[0] : null);
+		System.exit(0);
+	}
+
+	/**
+	 * Returns the headless game instance, creating and initializing it on first use.
+	 */
+	public static Game game() {
+		if (game == null) {
+			game = new Game(WIDTH, HEIGHT, "Benchmarks", true);
+			game.init();
+		}
+		return game;
+	}
+
+	/**
+	 * Returns a TileMap that has been loaded from the map in res/maps with the given file name.
+	 *
+	 * @param mapName The file name of the map, i.e. "LOL.map"
+	 */
+	public static TileMap loadMap(String mapName) {
+		TileMap map = new TileMap(game(), 1, 1);
+		map.load("/maps/" + mapName, Tools.ResourceLoader.LOAD_RESOURCE);
+		return map;
+	}
+
+	/**
+	 * Makes PlayState's world a crowded map: a large map with NPCs scattered over the open tiles around a goal, all following a flow field to it.
+	 */
+	public static void setUpCrowdedMap() {
+		TileMap map = loadMap("Unnecessarily Large Island.map");
+		PlayState.map = map;
+		PlayState.crowd.clear();
+		PlayState.entities.clear();
+
+		Random random = new Random(8);
+		int gx, gy;
+		do {
+			gx = random.nextInt(map.numWide());
+			gy = random.nextInt(map.numTall());
+		} while (map.isSolid(gx, gy));
+		FlowField field = new FlowField(map, FlowField.DEFAULT_RADIUS);
+		field.setGoal(gx, gy);
+		field.finish();
+
+		int radius = FlowField.DEFAULT_RADIUS;
+		while (PlayState.entities.size() < CROWDED_MAP_NPCS) {
+			int tx = gx + random.nextInt(2 * radius + 1) - radius, ty = gy + random.nextInt(2 * radius + 1) - radius;
+			if (!map.inBounds(tx, ty) || map.isSolid(tx, ty)) continue;
+			PlayState.entities.add(new NPC(game(), "Follower", CharacterSprites.BULBASAUR, new Vec2(tx, ty)).follow(field, 0.005));
+		}
+		PlayState.spatialGrid.updateAll(PlayState.entities);
+	}
+
+	/**
+	 * Sets up the crowded map, ticks its entities with the given number of threads planning, and returns a hash of the position, velocity and facing that
+	 * every entity ends up with.
+	 *
+	 * @param threads The number of threads to plan with
+	 * @param ticks   The number of ticks to run
+	 */
+	public static long crowdedMapHash(int threads, int ticks) {
+		EntityStore.setParallelism(threads);
+		setUpCrowdedMap();
+		for (int i = 0; i < ticks; i++)
+			PlayState.tickEntities(1000 / Game.targetTPS);
+
+		long hash = 17;
+		for (Dynamic e : PlayState.entities) {
+			hash = hash * 31 + Double.doubleToLongBits(e.pos.x);
+			hash = hash * 31 + Double.doubleToLongBits(e.pos.y);
+			hash = hash * 31 + Double.doubleToLongBits(e.v.x);
+			hash = hash * 31 + Double.doubleToLongBits(e.v.y);
+			hash = hash * 31 + ((NPC) e).facing.ordinal();
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns a list of every engine benchmark.
+	 */
+	public static ArrayList<Benchmark> createAll() {
+		ArrayList<Benchmark> list = new ArrayList<Benchmark>();
+
+		//////////////////// TileMap.load ////////////////////
+		for (String mapName : MAP_NAMES) {
+			list.add(new Benchmark("TileMap.load[" + mapName + "]") {
+
+				private TileMap map;
+
+				public void setup() { map = new TileMap(game(), 1, 1); }
+
+				public Object run() {
+					map.load("/maps/" + mapName, Tools.ResourceLoader.LOAD_RESOURCE);
+					return map.numWide();
+				}
+			});
+		}
+
+		//////////////////// TileMap.load (binary) ////////////////////
+		for (String mapName : SMALL_AND_LARGE_MAPS) {
+			list.add(new Benchmark("TileMap.load[" + mapName.replace(".map", BinaryMapFormat.EXTENSION) + "]") {
+
+				private TileMap map;
+				private File file;
+
+				public void setup() {
+					// Convert the map to a temporary binary file, since only the text maps ship with the game
+					map = loadMap(mapName);
+					try {
+						file = File.createTempFile("benchmark", BinaryMapFormat.EXTENSION);
+						file.deleteOnExit();
+						OutputStream out = new FileOutputStream(file);
+						BinaryMapFormat.write(out, map);
+						out.close();
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+
+				public Object run() {
+					map.load(file.getPath(), Tools.ResourceLoader.LOAD_FILE);
+					return map.numWide();
+				}
+			});
+		}
+
+		//////////////////// TileMap.render ////////////////////
+		for (String mapName : SMALL_AND_LARGE_MAPS) {
+			list.add(new Benchmark("TileMap.render[" + mapName + "]") {
+
+				private TileMap map;
+				private BufferedImage target;
+				private Graphics g;
+				private int ox, oy;
+
+				public void setup() {
+					map = loadMap(mapName);
+					target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+					g = target.createGraphics();
+					Tile.GAME_SIZE = Tile.NORM_GAME_SIZE;
+					ox = WIDTH / 2 - map.numWide() * Tile.GAME_SIZE / 2;
+					oy = HEIGHT / 2 - map.numTall() * Tile.GAME_SIZE / 2;
+				}
+
+				public Object run() {
+					map.render(g, ox, oy);
+					return target.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+		}
+
+		//////////////////// PagedTileMap.render ////////////////////
+		list.add(new Benchmark("PagedTileMap.render[10000x10000 overworld, walking]") {
+
+			private PagedTileMap map;
+			private BufferedImage target;
+			private Graphics g;
+			private ArrayList<Dynamic> noEntities = new ArrayList<Dynamic>();
+			private int ox, oy;
+
+			public void setup() {
+				// Generate the overworld once, since it takes a few seconds
+				if (map == null) {
+					try {
+						File file = File.createTempFile("benchmark", PagedMapFormat.EXTENSION);
+						file.deleteOnExit();
+						PagedMapFormat.generate(file, 10000, 10000);
+						map = new PagedTileMap(game(), null, file.getPath(), Tools.ResourceLoader.LOAD_FILE);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+				target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+				g = target.createGraphics();
+				Tile.GAME_SIZE = Tile.NORM_GAME_SIZE;
+			}
+
+			public Object run() {
+				// Walk diagonally across the map, wrapping around before reaching the far edge
+				ox = (ox - 6) % (9000 * Tile.GAME_SIZE);
+				oy = (oy - 3) % (9000 * Tile.GAME_SIZE);
+				int size = Tile.GAME_SIZE;
+				map.updateResidency(ox, oy, size, WIDTH, HEIGHT, noEntities);
+				map.render(g, ox, oy, size, -ox / size, -oy / size, (WIDTH - ox) / size + 1, (HEIGHT - oy) / size + 1);
+				return map.numResidentPages();
+			}
+		});
+
+		//////////////////// Sprite blit ////////////////////
+		// The first row of the tile sheet as ImageIO loads it, packed into a SpriteAtlas, and as indexed colour
+		for (final String format : new String[] { "ImageIO subimages" , "atlas" , "indexed" }) {
+			list.add(new Benchmark("Sprite blit[" + format + ", " + (WIDTH / 16) * (HEIGHT / 16) + " 16px tiles]") {
+
+				private BufferedImage[] images = new BufferedImage[16];
+				private BufferedImage target;
+				private Graphics g;
+
+				public void setup() {
+					BufferedImage sheet = Tools.ResourceLoader.loadImage("/spritesheets/tileSheet.png");
+					if (format.equals("indexed")) sheet = Sprite.toIndexed(sheet);
+					Sprite[] sprites = new Sprite[images.length];
+					SpriteAtlas atlas = new SpriteAtlas(256);
+					for (int i = 0; i < images.length; i++)
+						atlas.add(sprites[i] = new Sprite(sheet.getSubimage(i * 16, 0, 16, 16), 16));
+					if (format.equals("atlas")) atlas.pack();
+					for (int i = 0; i < images.length; i++)
+						images[i] = sprites[i].image();
+					target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+					g = target.createGraphics();
+				}
+
+				public Object run() {
+					for (int y = 0, i = 0; y + 16 <= HEIGHT; y += 16) {
+						for (int x = 0; x + 16 <= WIDTH; x += 16, i++)
+							g.drawImage(images[i & 15], x, y, null);
+					}
+					return target.getRGB(WIDTH / 2, HEIGHT / 2);
+				}
+			});
+		}
+
+		//////////////////// Dynamic.handleCollisions ////////////////////
+		for (String mapName : SMALL_AND_LARGE_MAPS) {
+			for (final int numNPCs : new int[] { 50 , 500 }) {
+				list.add(new Benchmark("Dynamic.handleCollisions[" + mapName + ", " + numNPCs + " NPCs]") {
+
+					private CollisionProbe probe;
+					private double startX, startY;
+					private int step;
+
+					public void setup() {
+						PlayState.map = loadMap(mapName);
+						PlayState.entities.clear();
+						Random random = new Random(1);
+						for (int i = 0; i < numNPCs; i++) {
+							PlayState.entities.add(new NPC(game(), "Crowd" + i, CharacterSprites.PIKACHU,
+									new Vec2(random.nextInt(PlayState.map.numWide()), random.nextInt(PlayState.map.numTall()))));
+						}
+						probe = new CollisionProbe();
+						startX = PlayState.map.numWide() / 2;
+						startY = PlayState.map.numTall() / 2;
+						PlayState.entities.add(probe);
+						PlayState.spatialGrid.updateAll(PlayState.entities);
+					}
+
+					public Object run() {
+						// Walk back and forth in every direction at normal walking speed
+						step = (step + 1) & 63;
+						double speed = 0.01 * 1000 / Game.targetTPS;
+						if (step == 0) probe.setPos(startX, startY);
+						probe.setVel((step & 16) == 0 ? speed : -speed, (step & 32) == 0 ? speed : -speed);
+						probe.collide();
+						PlayState.spatialGrid.update(probe);
+						return probe.pos.x;
+					}
+				});
+			}
+		}
+
+		//////////////////// PlayState.render entity sort ////////////////////
+		for (int numEntities : new int[] { 10 , 200 }) {
+			list.add(new Benchmark("PlayState.entitySorter[" + numEntities + " entities]") {
+
+				private ArrayList<Dynamic> shuffled = new ArrayList<Dynamic>();
+				private ArrayList<Dynamic> toSort = new ArrayList<Dynamic>();
+
+				public void setup() {
+					Random random = new Random(2);
+					for (int i = 0; i < numEntities; i++) {
+						shuffled.add(new NPC(game(), "Sorted" + i, CharacterSprites.BULBASAUR, new Vec2(random.nextDouble() * 50, random.nextDouble() * 50)));
+					}
+					Collections.shuffle(shuffled, random);
+				}
+
+				public Object run() {
+					toSort.clear();
+					toSort.addAll(shuffled);
+					toSort.sort(PlayState.entitySorter);
+					return toSort.get(0);
+				}
+			});
+		}
+
+		//////////////////// PlayState.publish entity ordering ////////////////////
+		for (final int numEntities : new int[] { 200 , 2000 }) {
+			for (final boolean queued : new boolean[] { false , true }) {
+				list.add(new Benchmark("PlayState.publish order[" + (queued ? "render queue" : "sort all") + ", " + numEntities + " entities]") {
+
+					private ArrayList<Dynamic> entities = new ArrayList<Dynamic>();
+					private ArrayList<Dynamic> visible = new ArrayList<Dynamic>();
+					private RenderQueue queue = new RenderQueue();
+					private Random random = new Random(3);
+
+					public void setup() {
+						// A 100x100 tile world with a 23x18 tile window onto it, as the game window is at normal zoom
+						for (int i = 0; i < numEntities; i++) {
+							entities.add(new NPC(game(), "Walker" + i, CharacterSprites.BULBASAUR, new Vec2(random.nextDouble() * 100, random.nextDouble() * 100)));
+						}
+					}
+
+					public Object run() {
+						// Walk a few entities a little each frame, like NPCs wandering around
+						for (int i = 0; i < 8; i++) {
+							Dynamic e = entities.get(random.nextInt(numEntities));
+							e.pos.y += random.nextDouble() * 0.4 - 0.2;
+						}
+
+						if (queued) {
+							queue.update(entities, 40, 40, 63, 58);
+							return queue.size();
+						}
+						entities.sort(PlayState.entitySorter);
+						visible.clear();
+						for (Dynamic e : entities) {
+							if (e.pos.x + e.size.x < 39 || e.pos.y + e.size.y < 39 || e.pos.x > 64 || e.pos.y > 59) continue;
+							visible.add(e);
+						}
+						return visible.size();
+					}
+				});
+			}
+		}
+
+		//////////////////// EntityStore.tick ////////////////////
+		int cores = Math.max(2, Runtime.getRuntime().availableProcessors()); // Always compare against at least two threads
+		for (final int[] run : new int[][] { { 1000 , cores } , { 10000 , 1 } , { 10000 , cores } }) {
+			final int numNPCs = run[0], threads = run[1];
+			list.add(new Benchmark("EntityStore.tick[" + numNPCs + " NPCs, " + threads + (threads == 1 ? " thread" : " threads") + "]") {
+
+				private EntityStore crowd = new EntityStore();
+				private TileMap map;
+				private Random random = new Random(4);
+
+				public void setup() {
+					EntityStore.setParallelism(threads);
+
+					// Spread the crowd over the open tiles of a large map, alongside the player
+					map = loadMap("Unnecessarily Large Island.map");
+					PlayState.map = map;
+					PlayState.entities.clear();
+					PlayState.entities.add(new NPC(game(), "Bystander", CharacterSprites.PLAYER, new Vec2(map.numWide() / 2, map.numTall() / 2)));
+					PlayState.spatialGrid.updateAll(PlayState.entities);
+					while (crowd.size() < numNPCs) {
+						int tx = random.nextInt(map.numWide()), ty = random.nextInt(map.numTall());
+						if (!map.isSolid(tx, ty)) crowd.add(CharacterSprites.BULBASAUR, tx, ty);
+					}
+				}
+
+				public Object run() {
+					// Have a few of them change direction each tick, like NPCs wandering around at walking speed
+					double speed = 0.01 * 1000 / Game.targetTPS;
+					for (int i = 0; i < numNPCs / 32; i++) {
+						int direction = random.nextInt(5);
+						crowd.setVel(crowd.handle(random.nextInt(numNPCs)), (direction == 1) ? speed : (direction == 2) ? -speed : 0,
+								(direction == 3) ? speed : (direction == 4) ? -speed : 0);
+					}
+					crowd.tick(1000 / Game.targetTPS, map);
+					return crowd.getX(crowd.handle(0));
+				}
+			});
+		}
+
+		//////////////////// PlayState.tickEntities ////////////////////
+		for (final int threads : new int[] { 1 , cores }) {
+			list.add(new Benchmark("PlayState.tickEntities[" + CROWDED_MAP_NPCS + " NPCs following a flow field, " + threads
+					+ (threads == 1 ? " thread" : " threads") + "]") {
+
+				public void setup() {
+					// Planning across threads has to leave every entity exactly where planning on one thread does
+					if (threads > 1) {
+						long expected = crowdedMapHash(1, 300), actual = crowdedMapHash(threads, 300);
+						if (actual != expected) throw new IllegalStateException("Planning entities on " + threads
+								+ " threads gave a different world than planning them on one thread!");
+					}
+					EntityStore.setParallelism(threads);
+					setUpCrowdedMap();
+				}
+
+				public Object run() {
+					PlayState.tickEntities(1000 / Game.targetTPS);
+					return PlayState.entities.get(0).pos.x;
+				}
+			});
+		}
+
+		//////////////////// PathFinder.find ////////////////////
+		for (String mapName : SMALL_AND_LARGE_MAPS) {
+			list.add(new Benchmark("PathFinder.find[" + mapName + "]") {
+
+				private TileMap map;
+				private int[] pairs = new int[4 * 64]; // Start and goal tiles up to 30 tiles apart, both open
+				private int next = 0;
+
+				public void setup() {
+					map = loadMap(mapName);
+					Random random = new Random(5);
+					for (int i = 0; i < pairs.length;) {
+						int sx = random.nextInt(map.numWide()), sy = random.nextInt(map.numTall());
+						int gx = Math.max(0, Math.min(map.numWide() - 1, sx + random.nextInt(61) - 30));
+						int gy = Math.max(0, Math.min(map.numTall() - 1, sy + random.nextInt(61) - 30));
+						if (map.isSolid(sx, sy) || map.isSolid(gx, gy)) continue;
+						pairs[i++] = sx;
+						pairs[i++] = sy;
+						pairs[i++] = gx;
+						pairs[i++] = gy;
+					}
+				}
+
+				public Object run() {
+					int i = next;
+					next = (next + 4) % pairs.length;
+					return PathFinder.find(map, pairs[i], pairs[i + 1], pairs[i + 2], pairs[i + 3]);
+				}
+			});
+		}
+
+		//////////////////// FlowField ////////////////////
+		for (String mapName : SMALL_AND_LARGE_MAPS) {
+			list.add(new Benchmark("FlowField.finish[" + mapName + "]") {
+
+				private TileMap map;
+				private FlowField field;
+				private int[] goals = new int[2 * 16]; // Open goal tiles, alternated so that each run finds a whole new field
+				private int next = 0;
+
+				public void setup() {
+					map = loadMap(mapName);
+					field = new FlowField(map, FlowField.DEFAULT_RADIUS);
+					Random random = new Random(6);
+					for (int i = 0; i < goals.length;) {
+						int gx = random.nextInt(map.numWide()), gy = random.nextInt(map.numTall());
+						if (map.isSolid(gx, gy)) continue;
+						goals[i++] = gx;
+						goals[i++] = gy;
+					}
+				}
+
+				public Object run() {
+					int i = next;
+					next = (next + 2) % goals.length;
+					field.setGoal(goals[i], goals[i + 1]);
+					field.finish();
+					return field;
+				}
+			});
+		}
+
+		list.add(new Benchmark("FlowField.steer[1000 NPCs]") {
+
+			private FlowField field;
+			private Vec2 v = new Vec2(0, 0);
+			private double[] positions = new double[2 * 1000]; // Hitbox centers scattered around the goal
+
+			public void setup() {
+				TileMap map = loadMap("Unnecessarily Large Island.map");
+				Random random = new Random(7);
+				int gx, gy;
+				do {
+					gx = random.nextInt(map.numWide());
+					gy = random.nextInt(map.numTall());
+				} while (map.isSolid(gx, gy));
+				field = new FlowField(map, FlowField.DEFAULT_RADIUS);
+				field.setGoal(gx, gy);
+				field.finish();
+				for (int i = 0; i < positions.length; i += 2) {
+					positions[i] = gx + (random.nextDouble() - 0.5) * 2 * FlowField.DEFAULT_RADIUS;
+					positions[i + 1] = gy + (random.nextDouble() - 0.5) * 2 * FlowField.DEFAULT_RADIUS;
+				}
+			}
+
+			public Object run() {
+				int moving = 0;
+				for (int i = 0; i < positions.length; i += 2)
+					if (field.steer(positions[i], positions[i + 1], v)) moving++;
+				return moving;
+			}
+		});
+
+		//////////////////// LootTable.get ////////////////////
+		for (int numRows : new int[] { 4 , 100 }) {
+			list.add(new Benchmark("LootTable.get[" + numRows + " rows]") {
+
+				private LootTable<Integer> table = new LootTable<Integer>();
+
+				public void setup() {
+					for (int i = 0; i < numRows; i++)
+						table.add(i, 1 + i % 7);
+				}
+
+				public Object run() { return table.get(); }
+			});
+		}
+
+		//////////////////// ItemManager.giveItem/takeItem ////////////////////
+		list.add(new Benchmark("ItemManager.giveItem+takeItem[5000 apples]") {
+
+			public Object run() {
+				int given = ItemManager.giveItem(Items.APPLE, 5000);
+				return given + ItemManager.takeItem(Items.APPLE, given);
+			}
+		});
+
+		//////////////////// Tools.Matrix.inverse ////////////////////
+		for (int n : new int[] { 3 , 6 }) {
+			list.add(new Benchmark("Tools.Matrix.inverse[" + n + "x" + n + "]") {
+
+				private Matrix m;
+
+				public void setup() {
+					Random random = new Random(3);
+					double[][] data = new double[n][n];
+					for (int y = 0; y < n; y++) {
+						for (int x = 0; x < n; x++)
+							data[y][x] = random.nextDouble() + ((x == y) ? n : 0);
+					}
+					m = new Matrix(n, n).setValues(data);
+				}
+
+				public Object run() { return m.inverse(); }
+			});
+		}
+
+		//////////////////// ShowDialogCommand.getLines ////////////////////
+		list.add(new Benchmark("ShowDialogCommand.getLines") {
+
+			private ShowDialogCommand command;
+			private FontMetrics fm;
+			private String dialog = "You dropped 500 oranges! I don't know why you would do that, but they're gross now so leave them be! You don't want to "
+					+ "become dIsEAsEd, dO yOu? WOW! You had a 1/25 chance to see this message! That's like totally the coolest thing ever dude!";
+
+			public void setup() {
+				command = new ShowDialogCommand(game(), dialog);
+				fm = game().getFontMetrics(new Font("Times New Roman", Font.BOLD, 24));
+			}
+
+			public Object run() { return command.getLines(dialog, fm); }
+		});
+
+		return list;
+	}
+
+	/**
+	 * A solid Dynamic that exposes its collision handling so it can be measured on its own, without any animation or input handling.
+	 */
+	private static class CollisionProbe extends Dynamic {
+
+		public CollisionProbe() {
+			super(game(), "CollisionProbe");
+			setCollisionType(true, true);
+			setSize(0.9, 0.9);
+		}
+
+		public void collide() { handleCollisions(); }
+
+		public void onInteract(Entity e) {}
+	}
+
+}
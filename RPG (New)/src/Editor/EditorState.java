@@ -18,12 +18,16 @@ import javax.swing.JTextField;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import Engine.AssetManager;
+import Engine.Clock;
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Engine.Sprite;
 import Engine.State;
 import Engine.Tools;
 import Engine.Tools.Vec2;
 import Engine.Tools.fRect;
+import Play.Maps.BinaryMapFormat;
 import Play.Maps.Tile;
 
 public class EditorState extends State {
@@ -219,13 +223,13 @@ public class EditorState extends State {
 				jfc.setCurrentDirectory(new File(
 						"C:/Users/colst/git/RPG_New/RPG (New)/res/maps/"));
 				jfc.setFileSelectionMode(JFileChooser.FILES_ONLY);
-				jfc.setFileFilter(new FileNameExtensionFilter("map files (*.map)", "map"));
+				jfc.setFileFilter(new FileNameExtensionFilter("map files (*.map, *" + BinaryMapFormat.EXTENSION + ")", "map", BinaryMapFormat.EXTENSION.substring(1)));
 				int option = jfc.showSaveDialog(null);
 				if (option == JFileChooser.APPROVE_OPTION && jfc.getSelectedFile() != null) {
 					File file = jfc.getSelectedFile();
 					if (file.exists()) map.save(file.getPath());
 					else {
-						if (!file.getPath().endsWith(".map")) file = new File(file.getPath() + ".map");
+						if (!file.getPath().endsWith(".map") && !file.getPath().endsWith(BinaryMapFormat.EXTENSION)) file = new File(file.getPath() + ".map");
 						map.save(file.getPath());
 					}
 				}
@@ -235,7 +239,7 @@ public class EditorState extends State {
 				jfc.setCurrentDirectory(new File(
 						"C:/Users/colst/git/RPG_New/RPG (New)/res/maps/"));
 				jfc.setFileSelectionMode(JFileChooser.FILES_ONLY);
-				jfc.setFileFilter(new FileNameExtensionFilter("map files (*.map)", "map"));
+				jfc.setFileFilter(new FileNameExtensionFilter("map files (*.map, *" + BinaryMapFormat.EXTENSION + ")", "map", BinaryMapFormat.EXTENSION.substring(1)));
 				option = jfc.showOpenDialog(null);
 				if (option == JFileChooser.APPROVE_OPTION && jfc.getSelectedFile() != null && jfc.getSelectedFile().exists()) {
 					map.load(jfc.getSelectedFile().getPath(), Tools.ResourceLoader.LOAD_FILE);
@@ -558,7 +562,7 @@ public class EditorState extends State {
 		tileArea.fill(g, Color.LIGHT_GRAY);
 		for (int i = 0; i < tileRects.size(); i++) {
 			Rectangle r = tileRects.get(i).cast();
-			Tile.getTile(i).render(g, 0, 0, r.x, r.y, tSizeSelectionArea);
+			Tile.getTile(i).render(g, 0, 0, r.x, r.y, tSizeSelectionArea, Clock.now());
 			fRect rf = new fRect(r.x, r.y, r.width, r.height);
 			if (i == selectedTileIndex) {
 				rf.fill(g, new Color(255, 255, 255, 90));
@@ -578,7 +582,7 @@ public class EditorState extends State {
 							// draw tiles in selection over everything else if the tile is within the map area
 							if (tempMapData.tiles[z][y][x] != -1 && x + (int) dragged.x >= 0 && x + (int) dragged.x < map.numWide() && y + (int) dragged.y >= 0
 									&& y + (int) dragged.y < map.numTall()) {
-								Tile.getTile(tempMapData.tiles[z][y][x]).render(g, x, y, (int) startPos.x, (int) startPos.y, tSize);
+								Tile.getTile(tempMapData.tiles[z][y][x]).render(g, x, y, (int) startPos.x, (int) startPos.y, tSize, Clock.now());
 
 								// Draw grid and solids
 								if (z == tempMapData.tiles.length - 1) {
@@ -617,7 +621,7 @@ public class EditorState extends State {
 		for (Button b : buttons) {
 			if (b.id.equals(id)) return b;
 		}
-		System.out.printf("No button found with id '%s'!%n", id);
+		Diagnostics.warn(Category.EDITOR, "No button found with id '" + id + "'!");
 		return null;
 	}
 
@@ -792,9 +796,9 @@ public class EditorState extends State {
 		}
 	}
 
-	public Vec2 worldToScreen(Vec2 v) { return new Vec2(v.x * tSize + ox, v.y * tSize + oy); }
+	public Vec2 worldToScreen(Vec2 v, Vec2 result) { return result.set(v.x * tSize + ox, v.y * tSize + oy); }
 
-	public Vec2 screenToWorld(Vec2 v) { return new Vec2((v.x - ox) / tSize, (v.y - oy) / tSize); }
+	public Vec2 screenToWorld(Vec2 v, Vec2 result) { return result.set((v.x - ox) / tSize, (v.y - oy) / tSize); }
 
 	public fRect worldToScreen(fRect r) {
 		Vec2 topCorner = worldToScreen(new Vec2(r.x, r.y));
@@ -5,16 +5,20 @@ import java.awt.Graphics;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 
 import javax.swing.JOptionPane;
 
 import Editor.EditorState.MapData;
+import Engine.Clock;
 import Engine.Game;
 import Engine.Tools;
 import Engine.Tools.fRect;
+import Play.Maps.BinaryMapFormat;
 import Play.Maps.MapManager.Maps;
 import Play.Maps.Tile;
+import Play.Maps.TileGrid;
 import Play.Maps.TileMap;
 
 public class EditorTileMap extends TileMap {
@@ -33,19 +37,7 @@ public class EditorTileMap extends TileMap {
 	 */
 	public EditorTileMap(Game game, int width, int height) {
 		super(game, width, height);
-		this.numWide = width;
-		this.numTall = height;
-		this.numLayers = 1;
-
-		tileData = new int[numLayers][height][width];
-		for (int z = 0; z < numLayers; z++) {
-			for (int y = 0; y < height; y++) {
-				for (int x = 0; x < width; x++) {
-					tileData[z][y][x] = -1;
-				}
-			}
-		}
-		solidData = new boolean[height][width];
+		grid.fill(0, 0, width * height, TileGrid.EMPTY);
 		this.game = game;
 	}
 
@@ -72,25 +64,14 @@ public class EditorTileMap extends TileMap {
 				if (ty >= 0 && ty < numTall && System.currentTimeMillis() - EditorState.sizeChangingTimer >= EditorState.sizeChangingDelay) {
 					EditorState.sizeChangingTimer = System.currentTimeMillis();
 					tx = (int) Game.clamp(tx, 0, numWide);
-					int[][][] tempData = new int[numLayers][numTall][numWide + 1];
-					boolean[][] tempSolidData = new boolean[numTall][numWide + 1];
+					TileGrid newGrid = new TileGrid(numWide + 1, numTall, numLayers);
+					newGrid.copyFrom(grid, 0, 0, 0, 0, tx, numTall);
+					newGrid.copyFrom(grid, tx, 0, tx + 1, 0, numWide - tx, numTall);
 					for (int z = 0; z < numLayers; z++) {
-						for (int y = 0; y < numTall; y++) {
-							int count = 0;
-							for (int x = 0; x < numWide + 1; x++) {
-								if (x == tx) {
-									tempData[z][y][x] = EditorState.selectedTileIndex;
-									count++;
-								} else {
-									tempData[z][y][x] = tileData[z][y][x - count];
-									tempSolidData[y][x] = solidData[y][x - count];
-								}
-							}
-						}
+						for (int y = 0; y < numTall; y++)
+							newGrid.setTile(z, newGrid.index(tx, y), EditorState.selectedTileIndex);
 					}
-					tileData = tempData;
-					solidData = tempSolidData;
-					numWide++;
+					setGrid(newGrid);
 				}
 				EditorState.addMapState();
 				break;
@@ -98,21 +79,10 @@ public class EditorTileMap extends TileMap {
 				if (numWide > 1 && tx >= 0 && tx < numWide && ty >= 0 && ty < numTall
 						&& System.currentTimeMillis() - EditorState.sizeChangingTimer >= EditorState.sizeChangingDelay) {
 					EditorState.sizeChangingTimer = System.currentTimeMillis();
-					int[][][] tempData = new int[numLayers][numTall][numWide - 1];
-					boolean[][] tempSolidData = new boolean[numTall][numWide - 1];
-					for (int z = 0; z < numLayers; z++) {
-						for (int y = 0; y < numTall; y++) {
-							int count = 0;
-							for (int x = 0; x < numWide - 1; x++) {
-								if (x == tx) count++;
-								tempData[z][y][x] = tileData[z][y][x + count];
-								tempSolidData[y][x] = solidData[y][x + count];
-							}
-						}
-					}
-					tileData = tempData;
-					solidData = tempSolidData;
-					numWide--;
+					TileGrid newGrid = new TileGrid(numWide - 1, numTall, numLayers);
+					newGrid.copyFrom(grid, 0, 0, 0, 0, tx, numTall);
+					newGrid.copyFrom(grid, tx + 1, 0, tx, 0, numWide - tx - 1, numTall);
+					setGrid(newGrid);
 				}
 				EditorState.addMapState();
 				break;
@@ -120,25 +90,12 @@ public class EditorTileMap extends TileMap {
 				if (tx >= 0 && tx < numWide && System.currentTimeMillis() - EditorState.sizeChangingTimer >= EditorState.sizeChangingDelay) {
 					EditorState.sizeChangingTimer = System.currentTimeMillis();
 					ty = (int) Game.clamp(ty, 0, numTall);
-					int[][][] tempData = new int[numLayers][numTall + 1][numWide];
-					boolean[][] tempSolidData = new boolean[numTall + 1][numWide];
-					for (int z = 0; z < numLayers; z++) {
-						for (int x = 0; x < numWide; x++) {
-							int count = 0;
-							for (int y = 0; y < numTall + 1; y++) {
-								if (y == ty) {
-									tempData[z][y][x] = EditorState.selectedTileIndex;
-									count++;
-								} else {
-									tempData[z][y][x] = tileData[z][y - count][x];
-									tempSolidData[y][x] = solidData[y - count][x];
-								}
-							}
-						}
-					}
-					tileData = tempData;
-					solidData = tempSolidData;
-					numTall++;
+					TileGrid newGrid = new TileGrid(numWide, numTall + 1, numLayers);
+					newGrid.copyFrom(grid, 0, 0, 0, 0, numWide, ty);
+					newGrid.copyFrom(grid, 0, ty, 0, ty + 1, numWide, numTall - ty);
+					for (int z = 0; z < numLayers; z++)
+						newGrid.fill(z, newGrid.index(0, ty), newGrid.index(0, ty + 1), EditorState.selectedTileIndex);
+					setGrid(newGrid);
 				}
 				EditorState.addMapState();
 				break;
@@ -146,28 +103,17 @@ public class EditorTileMap extends TileMap {
 				if (numTall > 1 && tx >= 0 && tx < numWide && ty >= 0 && ty < numTall
 						&& System.currentTimeMillis() - EditorState.sizeChangingTimer >= EditorState.sizeChangingDelay) {
 					EditorState.sizeChangingTimer = System.currentTimeMillis();
-					int[][][] tempData = new int[numLayers][numTall - 1][numWide];
-					boolean[][] tempSolidData = new boolean[numTall - 1][numWide];
-					for (int z = 0; z < numLayers; z++) {
-						for (int x = 0; x < numWide; x++) {
-							int count = 0;
-							for (int y = 0; y < numTall - 1; y++) {
-								if (y == ty) count++;
-								tempData[z][y][x] = tileData[z][y + count][x];
-								tempSolidData[y][x] = solidData[y + count][x];
-							}
-						}
-					}
-					tileData = tempData;
-					solidData = tempSolidData;
-					numTall--;
+					TileGrid newGrid = new TileGrid(numWide, numTall - 1, numLayers);
+					newGrid.copyFrom(grid, 0, 0, 0, 0, numWide, ty);
+					newGrid.copyFrom(grid, 0, ty + 1, 0, ty, numWide, numTall - ty - 1);
+					setGrid(newGrid);
 				}
 				EditorState.addMapState();
 				break;
 			case SetSolid: //////////////////// Add Colliders and Stuff ////////////////////
 				if (tx >= 0 && ty >= 0 && tx < numWide && ty < numTall && (tx != EditorState.lastTXChanged || ty != EditorState.lastTYChanged
 						|| System.currentTimeMillis() - EditorState.solidAddingTimer >= EditorState.solidAddingDelay)) {
-					solidData[ty][tx] = !solidData[ty][tx];
+					grid.setSolid(grid.index(tx, ty), !grid.isSolid(tx, ty));
 					EditorState.lastTXChanged = tx;
 					EditorState.lastTYChanged = ty;
 					EditorState.solidAddingTimer = System.currentTimeMillis();
@@ -221,7 +167,7 @@ public class EditorTileMap extends TileMap {
 
 					EditorState.selectedTileIndex = mapData.tiles[z][y - (int) r.y][x - (int) r.x];
 					setTile(x, y, z);
-					if (z == 0) this.solidData[y][x] = mapData.solids[y - (int) r.y][x - (int) r.x];
+					if (z == 0) grid.setSolid(grid.index(x, y), mapData.solids[y - (int) r.y][x - (int) r.x]);
 				}
 			}
 		}
@@ -236,26 +182,11 @@ public class EditorTileMap extends TileMap {
 	 * @param dir -1 if remove top layer, 1 if add new layer
 	 */
 	public void changeLayers(int dir) {
-		if (dir == -1 && numLayers > 1) {
-			int[][][] tempData = new int[numLayers - 1][numTall][numWide];
-			for (int z = 0; z < numLayers - 1; z++)
-				tempData[z] = tileData[z];
-			tileData = tempData;
-			numLayers--;
-		} else if (dir == 1 && numLayers < EditorState.numLayersAllowed) {
-			int[][][] tempData = new int[numLayers + 1][numTall][numWide];
-			for (int z = 0; z < numLayers + 1; z++) {
-				if (z != numLayers) tempData[z] = tileData[z];
-				else {
-					for (int y = 0; y < numTall; y++) {
-						for (int x = 0; x < numWide; x++) {
-							tempData[z][y][x] = -1;
-						}
-					}
-				}
-			}
-			tileData = tempData;
-			numLayers++;
+		if ((dir == -1 && numLayers > 1) || (dir == 1 && numLayers < EditorState.numLayersAllowed)) {
+			TileGrid newGrid = new TileGrid(numWide, numTall, numLayers + dir);
+			if (dir == 1) newGrid.fill(numLayers, 0, numWide * numTall, TileGrid.EMPTY);
+			newGrid.copyFrom(grid, 0, 0, 0, 0, numWide, numTall);
+			setGrid(newGrid);
 		}
 	}
 
@@ -284,7 +215,7 @@ public class EditorTileMap extends TileMap {
 		for (int z = 0; z < numLayers; z++) {
 			for (int y = (int) r.y; y < (int) (r.y + r.height); y++) {
 				for (int x = (int) r.x; x < (int) (r.x + r.width); x++) {
-					tempData[z][y - (int) r.y][x - (int) r.x] = tileData[z][y][x];
+					tempData[z][y - (int) r.y][x - (int) r.x] = grid.getTile(x, y, z);
 				}
 			}
 		}
@@ -293,7 +224,7 @@ public class EditorTileMap extends TileMap {
 		boolean[][] tempSolidData = new boolean[(int) r.height][(int) r.width];
 		for (int y = (int) r.y; y < (int) (r.y + r.height); y++) {
 			for (int x = (int) r.x; x < (int) (r.x + r.width); x++) {
-				tempSolidData[y - (int) r.y][x - (int) r.x] = solidData[y][x];
+				tempSolidData[y - (int) r.y][x - (int) r.x] = grid.isSolid(x, y);
 			}
 		}
 
@@ -307,29 +238,40 @@ public class EditorTileMap extends TileMap {
 	 * @param mapData the state of the map to go back to
 	 */
 	public void revert(MapData mapData) {
-		numLayers = mapData.tiles.length;
-		numTall = mapData.tiles[0].length;
-		numWide = mapData.tiles[0][0].length;
+		int numLayers = mapData.tiles.length;
+		int numTall = mapData.tiles[0].length;
+		int numWide = mapData.tiles[0][0].length;
 
 		// Copy data from mapData (REAL COPY: you spent 3 hours debugging just to find you actually hadn't been making copies!!)
-		tileData = new int[numLayers][numTall][numWide];
-		solidData = new boolean[numTall][numWide];
+		TileGrid newGrid = new TileGrid(numWide, numTall, numLayers);
 		for (int z = 0; z < numLayers; z++) {
 			for (int y = 0; y < numTall; y++) {
 				for (int x = 0; x < numWide; x++) {
-					tileData[z][y][x] = mapData.tiles[z][y][x];
-					if (z == 0) solidData[y][x] = mapData.solids[y][x];
+					newGrid.setTile(z, newGrid.index(x, y), mapData.tiles[z][y][x]);
+					if (z == 0) newGrid.setSolid(newGrid.index(x, y), mapData.solids[y][x]);
 				}
 			}
 		}
+		setGrid(newGrid);
 	}
 
 	/**
-	 * Saves this map to a file with path dest.
+	 * Saves this map to a file with path dest, as a binary map if dest ends with BinaryMapFormat.EXTENSION and as a text map otherwise.
 	 */
 	public void save(String dest) {
 		File file = new File(dest);
 		if (file.exists() && JOptionPane.showConfirmDialog(null, "Do you want to overwrite this file?") == JOptionPane.YES_OPTION || !file.exists()) {
+			if (dest.endsWith(BinaryMapFormat.EXTENSION)) {
+				try {
+					FileOutputStream out = new FileOutputStream(file);
+					BinaryMapFormat.write(out, this);
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				return;
+			}
+
 			try {
 				PrintWriter pw = new PrintWriter(new FileOutputStream(file));
 				pw.printf("%d %d %d%nBREAK%n", numWide, numTall, numLayers);
@@ -337,7 +279,7 @@ public class EditorTileMap extends TileMap {
 				for (int z = 0; z < numLayers; z++) {
 					for (int y = 0; y < numTall; y++) {
 						for (int x = 0; x < numWide; x++) {
-							pw.print("" + tileData[z][y][x] + ((x == numWide - 1) ? "\n" : " "));
+							pw.print("" + grid.getTile(x, y, z) + ((x == numWide - 1) ? "\n" : " "));
 						}
 					}
 					pw.println("BREAK");
@@ -345,7 +287,7 @@ public class EditorTileMap extends TileMap {
 
 				for (int y = 0; y < numTall; y++) {
 					for (int x = 0; x < numWide; x++) {
-						pw.print("" + (solidData[y][x] ? 1 : 0) + ((x == numWide - 1) ? "\n" : " "));
+						pw.print("" + (grid.isSolid(x, y) ? 1 : 0) + ((x == numWide - 1) ? "\n" : " "));
 					}
 				}
 				pw.println("BREAK");
@@ -373,15 +315,16 @@ public class EditorTileMap extends TileMap {
 					// Only draw if on the screen
 					if ((x + 1) * EditorState.tSize + px < 0 || x * EditorState.tSize + px > game.getWidth()) continue;
 					if ((y + 1) * EditorState.tSize + py < 0 || y * EditorState.tSize + py > game.getHeight()) continue;
-					if (tileData[z][y][x] != -1 && EditorState.layerBools[z]) Tile.getTile(tileData[z][y][x]).render(g, x, y, px, py, EditorState.tSize);
+					int id = grid.getTile(x, y, z);
+					if (id != TileGrid.EMPTY && EditorState.layerBools[z]) Tile.getTile(id).render(g, x, y, px, py, EditorState.tSize, Clock.now());
 
 					// If top layer, draw either the grid or a red outline and black fadeover if the tile is solid
 					if (z == numLayers - 1) {
-						if (EditorState.drawingGrid && !solidData[y][x]) {
+						if (EditorState.drawingGrid && !grid.isSolid(x, y)) {
 							g.setColor(Color.white);
 							g.drawRect(px + x * EditorState.tSize, py + y * EditorState.tSize, EditorState.tSize - 1, EditorState.tSize - 1);
 						}
-						if (solidData[y][x]) {
+						if (grid.isSolid(x, y)) {
 							g.setColor(new Color(0, 0, 0, 80));
 							g.fillRect(px + x * EditorState.tSize, py + y * EditorState.tSize, EditorState.tSize - 1, EditorState.tSize - 1);
 							g.setColor(Color.red);
@@ -398,7 +341,7 @@ public class EditorTileMap extends TileMap {
 	 */
 	public void setTile(int x, int y, int z) {
 		if (z >= numLayers || y >= numTall || x >= numWide || x < 0 || y < 0 || z < 0) return;
-		tileData[z][y][x] = EditorState.selectedTileIndex;
+		grid.setTile(z, grid.index(x, y), EditorState.selectedTileIndex);
 	}
 
 }
@@ -2,10 +2,8 @@ package Engine;
 
 public class Animation {
 
-	private long lastTime; // the last time the animation was updated
 	private int msDelay; // the delay between each frame
 	private Sprite[] frames; // an array of images for the animation
-	private int currentFrame; // index of currentFrame
 
 	/**
 	 * @param msDelay     The delay in milliseconds between each frame
@@ -18,30 +16,19 @@ public class Animation {
 		for (int i = 0; i < frames.length; i++) {
 			this.frames[i] = spritesheet.crop(frames[i][0], frames[i][1], 1, 1);
 		}
-		start();
 	}
 
 	/**
-	 * Resets/starts the animation.
+	 * Returns the frame shown the given number of milliseconds after the animation started, looping forever. Animations hold no state of their own, so
+	 * whatever plays one keeps the Clock time it started at and asks for Clock.since() that time.
+	 *
+	 * @param time Milliseconds since the animation started
 	 */
-	public void start() {
-		lastTime = System.currentTimeMillis();
-		currentFrame = 0;
+	public Sprite frameAt(double time) {
+		int frame = (int) (time / msDelay) % frames.length;
+		return frames[(frame < 0) ? frame + frames.length : frame];
 	}
 
-	public void tick() {
-		// Only change the frame if enough time has passed.
-		if (System.currentTimeMillis() - lastTime >= msDelay) {
-			lastTime = System.currentTimeMillis();
-			currentFrame = (currentFrame + 1) % frames.length;
-		}
-	}
-
-	/**
-	 * Returns the current frame.
-	 */
-	public Sprite currentFrame() { return frames[currentFrame]; }
-
 	/**
 	 * Returns the first frame of the animation (perhaps the idle animation).
 	 */
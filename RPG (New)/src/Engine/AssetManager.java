@@ -1,20 +1,71 @@
 package Engine;
 
+import java.awt.image.BufferedImage;
 import java.util.HashMap;
 
 import Play.Entities.Items.ItemManager.Items;
 
+import Engine.Diagnostics.Category;
+
 public class AssetManager {
 
+	public static boolean indexedSheets = false; // Whether sheets with at most 256 colours are kept as indexed colour instead of going into the atlas
+
+	private static SpriteAtlas atlas; // The shared image that every sprite not kept as indexed colour is drawn from
 	private static Sprite[] tileImages; // List of tile images obtained from tileSheet
 
 	public static enum CharacterSprites { PLAYER, BULBASAUR, PIKACHU, SQUIRTLE }
 	private static HashMap<CharacterSprites, Sprite> characterSprites; // Hashmap of character images
 	private static HashMap<Items, Sprite> itemSprites; // Hashmap of character images
 
+	/**
+	 * Loads every sprite sheet one after another, then packs them into the atlas.
+	 */
 	public static void loadAssets() {
-		// Load tile images
-		Sprite tileSheet = new Sprite("/spritesheets/tileSheet.png", 16);
+		loadTileSprites();
+		loadCharacterSprites();
+		loadItemSprites();
+		packAtlas();
+	}
+
+	/**
+	 * Loads a sprite sheet with 16 pixel tiles, converting it to indexed colour if indexedSheets is set and it has few enough colours.
+	 */
+	private static Sprite loadSheet(String path) {
+		Sprite sheet = new Sprite(path, 16);
+		BufferedImage indexed = indexedSheets ? Sprite.toIndexed(sheet.image()) : null;
+		return (indexed != null) ? new Sprite(indexed, 16) : sheet;
+	}
+
+	/**
+	 * Packs every loaded sprite that isn't indexed colour into the atlas. Has to be called after all of the sheets are loaded and before any sprites are
+	 * cropped out of the loaded ones, i.e. by Tile and the creatures' animations.
+	 */
+	public static void packAtlas() {
+		atlas = new SpriteAtlas(256);
+		for (Sprite s : tileImages)
+			addToAtlas(s);
+		for (Sprite s : characterSprites.values())
+			addToAtlas(s);
+		for (Sprite s : itemSprites.values())
+			addToAtlas(s);
+		atlas.pack();
+	}
+
+	private static void addToAtlas(Sprite s) {
+		if (s != null && s.image().getType() != BufferedImage.TYPE_BYTE_INDEXED) atlas.add(s);
+	}
+
+	/**
+	 * Returns the atlas that the sprites are drawn from, or null if it hasn't been packed yet.
+	 */
+	public static SpriteAtlas getAtlas() { return atlas; }
+
+	/**
+	 * Loads the tile images, which have to be loaded before Tile is first used.
+	 */
+	public static void loadTileSprites() {
+		Sprite tileSheet = loadSheet("/spritesheets/tileSheet.png");
 		tileImages = new Sprite[256];
 		tileImages[0] = tileSheet.crop(0, 0, 1, 1); // grass
 		tileImages[1] = tileSheet.crop(1, 0, 1, 1); // sand
@@ -35,21 +86,28 @@ public class AssetManager {
 		tileImages[16] = tileSheet.crop(14, 2, 1, 1); // lower-right blue house roof
 		tileImages[17] = tileSheet.crop(15, 0, 1, 1); // wooden floorboards
 		tileImages[18] = tileSheet.crop(15, 1, 1, 1); // stone brick (for floor?)
+	}
 
-		// Load character images
-		Sprite characterSheet = new Sprite("/spritesheets/characterSheet.png", 16);
+	/**
+	 * Loads the character images, which have to be loaded before any creatures are made.
+	 */
+	public static void loadCharacterSprites() {
+		Sprite characterSheet = loadSheet("/spritesheets/characterSheet.png");
 		characterSprites = new HashMap<CharacterSprites, Sprite>();
 		characterSprites.put(CharacterSprites.PLAYER, characterSheet.crop(0, 0, 4, 3));
 		characterSprites.put(CharacterSprites.BULBASAUR, characterSheet.crop(4, 0, 4, 3));
 		characterSprites.put(CharacterSprites.PIKACHU, characterSheet.crop(8, 0, 4, 3));
 		characterSprites.put(CharacterSprites.SQUIRTLE, characterSheet.crop(12, 0, 4, 3));
+	}
 
-		// Load item icons
-		Sprite itemSheet = new Sprite("/spritesheets/itemSheet.png", 16);
+	/**
+	 * Loads the item icons.
+	 */
+	public static void loadItemSprites() {
+		Sprite itemSheet = loadSheet("/spritesheets/itemSheet.png");
 		itemSprites = new HashMap<Items, Sprite>();
 		itemSprites.put(Items.APPLE, itemSheet.crop(0, 0, 1, 1));
 		itemSprites.put(Items.ORANGE, itemSheet.crop(1, 0, 1, 1));
-
 	}
 
 	/**
@@ -77,7 +135,7 @@ public class AssetManager {
 	 */
 	public static Sprite getCharacterSpriteSheet(CharacterSprites key) {
 		if (!characterSprites.containsKey(key)) {
-			System.out.println("Hashmap CharacterSprites does not have sheet with key: " + key + ".");
+			Diagnostics.warn(Category.ASSETS, "Hashmap CharacterSprites does not have sheet with key: " + key + ".");
 			return null;
 		}
 		return characterSprites.get(key);
@@ -91,7 +149,7 @@ public class AssetManager {
 	 */
 	public static Sprite getItemSprite(Items itemID) {
 		if (!itemSprites.containsKey(itemID)) {
-			System.out.println("Hashmap ItemSprites does not have an item icon for key: " + itemID + ".");
+			Diagnostics.warn(Category.ASSETS, "Hashmap ItemSprites does not have an item icon for key: " + itemID + ".");
 			return null;
 		}
 		return itemSprites.get(itemID);
@@ -0,0 +1,32 @@
+package Engine;
+
+/**
+ * The game's clock, which counts the milliseconds the game has simulated rather than the time that has passed on the wall. It is advanced once at the
+ * start of every tick by that tick's deltaTime, so anything timed by it, i.e. every Animation, runs at the same speed as the rest of the game: it stops
+ * when ticks stop, slows down with a smaller deltaTime, and races through a headless simulation. Two runs with the same ticks see the same times, and
+ * frames of animations are picked from it without anything needing to be updated each tick.
+ *
+ * Only the game thread advances the clock, but it can be read from any thread.
+ */
+public class Clock {
+
+	private static volatile double time = 0; // Milliseconds of game time since the game started, as of the end of the tick being run
+
+	/**
+	 * Advances the clock by the length of a tick. Called by Game at the start of every tick.
+	 *
+	 * @param deltaTime The length of the tick in milliseconds
+	 */
+	public static void advance(double deltaTime) { time += deltaTime; }
+
+	/**
+	 * Returns the milliseconds of game time since the game started. During a tick, this is the time at the end of it.
+	 */
+	public static double now() { return time; }
+
+	/**
+	 * Returns the milliseconds of game time since the given time from now().
+	 */
+	public static double since(double start) { return time - start; }
+
+}
@@ -0,0 +1,201 @@
+package Engine;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Warnings and debugging messages from every part of the game, each with a Level and the Category of the subsystem it came from. Messages below their
+ * category's level are dropped before anything is built or locked, so a disabled message costs one array lookup. Enabled messages are put in a fixed size
+ * ring buffer and written out by a background thread, so the thread that logged them never waits on console I/O. If the writer falls so far behind that
+ * the buffer fills up, new messages are dropped and counted rather than blocking.
+ *
+ * Levels can be set with the system property rpg.log, i.e. "-Drpg.log=DEBUG,COLLISION=TRACE" to log everything at DEBUG and above, and collision tracing
+ * on top of that. By default everything at INFO and above is written to System.out.
+ *
+ * Usage: Diagnostics.warn(Category.ITEMS, "Inventory full!"); or, in hot paths where building the message costs something,
+ * if (Diagnostics.isEnabled(Category.COLLISION, Level.TRACE)) Diagnostics.log(Category.COLLISION, Level.TRACE, "Checked " + x + ", " + y);
+ */
+public class Diagnostics {
+
+	public static enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+	public static enum Category { ENGINE, ASSETS, MAPS, COLLISION, ENTITIES, ITEMS, LOOT, QUESTS, THEATER, PLAY, EDITOR }
+
+	private static final int capacity = 1024; // The number of messages the ring buffer holds
+	private static final long startTime = System.nanoTime(); // What message times are measured from
+
+	private static final Level[] levels = new Level[Category.values().length]; // The lowest level logged for each category, indexed by ordinal
+
+	// The ring buffer, which is only touched while holding lock
+	private static final Object lock = new Object();
+	private static final Level[] messageLevels = new Level[capacity];
+	private static final Category[] messageCategories = new Category[capacity];
+	private static final long[] messageTimes = new long[capacity];
+	private static final String[] messages = new String[capacity];
+	private static long logged = 0, written = 0; // The number of messages put in the buffer and taken out by the writer so far
+	private static int dropped = 0; // The number of messages dropped since the writer last reported it
+	private static Thread writer; // The thread that writes messages out, or null if nothing has been logged yet
+	private static PrintStream out = System.out; // Where messages are written
+
+	// Comes after every other static field, so that a bad setting can be logged like any other message
+	static {
+		setLevel(Level.INFO);
+		String property = System.getProperty("rpg.log");
+		if (property != null) {
+			for (String setting : property.split(",")) {
+				try {
+					int equals = setting.indexOf('=');
+					if (equals < 0) setLevel(Level.valueOf(setting.trim().toUpperCase(Locale.ROOT)));
+					else setLevel(Category.valueOf(setting.substring(0, equals).trim().toUpperCase(Locale.ROOT)),
+							Level.valueOf(setting.substring(equals + 1).trim().toUpperCase(Locale.ROOT)));
+				} catch (IllegalArgumentException e) {
+					warn(Category.ENGINE, "Ignoring unknown log setting: " + setting);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the lowest level that is logged for every category.
+	 */
+	public static void setLevel(Level level) {
+		for (int i = 0; i < levels.length; i++)
+			levels[i] = level;
+	}
+
+	/**
+	 * Sets the lowest level that is logged for the given category.
+	 */
+	public static void setLevel(Category category, Level level) { levels[category.ordinal()] = level; }
+
+	/**
+	 * Returns true if messages of the given level in the given category are logged.
+	 */
+	public static boolean isEnabled(Category category, Level level) { return level.compareTo(levels[category.ordinal()]) >= 0; }
+
+	/**
+	 * Sets where messages are written, which is System.out by default.
+	 */
+	public static void setOutput(PrintStream stream) {
+		synchronized (lock) {
+			out = stream;
+		}
+	}
+
+	/**
+	 * Logs a message if its level is enabled for its category.
+	 *
+	 * @param category The subsystem the message is about
+	 * @param level    How important the message is
+	 * @param message  The message
+	 */
+	public static void log(Category category, Level level, String message) {
+		if (!isEnabled(category, level)) return;
+		long time = System.nanoTime() - startTime;
+		synchronized (lock) {
+			if (logged - written == capacity) {
+				dropped++;
+				return;
+			}
+			int i = (int) (logged % capacity);
+			messageLevels[i] = level;
+			messageCategories[i] = category;
+			messageTimes[i] = time;
+			messages[i] = message;
+			if (logged++ == written) lock.notifyAll();
+			if (writer == null) startWriter();
+		}
+	}
+
+	public static void trace(Category category, String message) { log(category, Level.TRACE, message); }
+
+	public static void debug(Category category, String message) { log(category, Level.DEBUG, message); }
+
+	public static void info(Category category, String message) { log(category, Level.INFO, message); }
+
+	public static void warn(Category category, String message) { log(category, Level.WARN, message); }
+
+	public static void error(Category category, String message) { log(category, Level.ERROR, message); }
+
+	/**
+	 * Waits up to the given number of milliseconds for every message logged so far to be written out.
+	 */
+	public static void flush(long timeoutMillis) {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (lock) {
+			long target = logged;
+			try {
+				for (long left; written < target && (left = deadline - System.currentTimeMillis()) > 0;)
+					lock.wait(left);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Starts the writer thread, and a shutdown hook that gives it a moment to write out whatever is left when the game exits. Called while holding lock.
+	 */
+	private static void startWriter() {
+		writer = new Thread(new Runnable() {
+
+			public void run() {
+				Level[] batchLevels = new Level[capacity];
+				Category[] batchCategories = new Category[capacity];
+				long[] batchTimes = new long[capacity];
+				String[] batch = new String[capacity];
+				StringBuilder s = new StringBuilder();
+				while (true) {
+					// Take every message out of the buffer at once
+					int n, lost;
+					PrintStream stream;
+					synchronized (lock) {
+						try {
+							while (logged == written && dropped == 0)
+								lock.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+						n = (int) (logged - written);
+						for (int j = 0; j < n; j++) {
+							int i = (int) ((written + j) % capacity);
+							batchLevels[j] = messageLevels[i];
+							batchCategories[j] = messageCategories[i];
+							batchTimes[j] = messageTimes[i];
+							batch[j] = messages[i];
+							messages[i] = null;
+						}
+						lost = dropped;
+						dropped = 0;
+						stream = out;
+					}
+
+					// Format and write them without holding the lock
+					s.setLength(0);
+					for (int j = 0; j < n; j++) {
+						s.append(String.format(Locale.ROOT, "%10.3f %-5s %s: ", batchTimes[j] / 1e9, batchLevels[j], batchCategories[j])).append(batch[j]);
+						s.append(System.lineSeparator());
+						batch[j] = null;
+					}
+					if (lost > 0) s.append(lost).append(" diagnostic messages were dropped because too many were logged at once").append(System.lineSeparator());
+					stream.print(s);
+					stream.flush();
+
+					synchronized (lock) {
+						written += n;
+						lock.notifyAll();
+					}
+				}
+			}
+
+		}, "Diagnostics Writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			public void run() { flush(500); }
+
+		}, "Diagnostics Flush"));
+	}
+
+}
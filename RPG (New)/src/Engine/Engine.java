@@ -3,10 +3,14 @@ package Engine;
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.HeadlessException;
 import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
@@ -17,9 +21,11 @@ import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JFrame;
 
+import Engine.Diagnostics.Category;
 import Engine.Tools.fRect;
 
 public abstract class Engine extends Canvas implements Runnable {
@@ -27,7 +33,8 @@ public abstract class Engine extends Canvas implements Runnable {
 	private static final long serialVersionUID = 1L;
 
 	private static JFrame frame; // frame object
-	private static Thread thread; // main thread
+	private static Thread thread; // main thread, which runs the game loop and publishes snapshots
+	private static Thread renderThread; // thread that draws published snapshots at the display's refresh rate
 	private static Keys keys; // key input object
 	private static Mouse mouse; // mouse input object
 
@@ -40,9 +47,17 @@ public abstract class Engine extends Canvas implements Runnable {
 	@SuppressWarnings("unused")
 	private static int tps = 0; // number of tps
 
-	public static final double targetTPS = 60.0; // target TPS and FPS
+	public static final double targetTPS = 60.0; // target TPS
+	private static final int maxTicksPerFrame = 5; // the most ticks that can be run to catch up before a frame must be rendered
+	private static final long spinThreshold = 1000000; // how many nanoseconds before a deadline the loop stops parking and starts spinning
 
-	private boolean isRunning = false; // whether or not the current thread is running
+	private static final double nsPerTick = 1000000000 / targetTPS; // length of a tick in nanoseconds
+	private static volatile boolean realTime = false; // whether ticks are paced by the wall clock (false while simulating)
+
+	private final Object renderLock = new Object(); // held while drawing to the BufferStrategy, since both threads draw to it around a state change
+
+	private volatile boolean isRunning = false; // whether or not the threads are running
+	private final boolean headless; // whether or not this engine runs without a window (for simulations and benchmarks)
 
 	/**
 	 * Engine Constructor, taking in the width, height, and title of the window and initializing the mouse and key objects
@@ -51,12 +66,29 @@ public abstract class Engine extends Canvas implements Runnable {
 	 * @param height
 	 * @param title
 	 */
-	public Engine(int width, int height, String title) {
+	public Engine(int width, int height, String title) { this(width, height, title, false); }
+
+	/**
+	 * Engine Constructor that can optionally skip creating a window. A headless engine is never started; it is driven by simulate() instead.
+	 * 
+	 * @param width
+	 * @param height
+	 * @param title
+	 * @param headless True if no JFrame, Canvas peer, or BufferStrategy should be created
+	 */
+	public Engine(int width, int height, String title, boolean headless) {
 		this.title = title;
-		frame = new JFrame(title);
+		this.headless = headless;
 		this.setSize(new Dimension(width, height));
 		this.setMinimumSize(new Dimension(width, height));
 		this.setMaximumSize(new Dimension(width, height));
+
+		keys = new Keys();
+		mouse = new Mouse();
+
+		if (headless) return;
+
+		frame = new JFrame(title);
 		frame.add(this);
 		frame.setResizable(false);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -65,15 +97,16 @@ public abstract class Engine extends Canvas implements Runnable {
 
 		frame.setLocationRelativeTo(null);
 
-		keys = new Keys();
-		mouse = new Mouse();
-
 		addKeyListener(keys);
 		addMouseListener(mouse);
 		addMouseMotionListener(mouse);
 		addMouseWheelListener(mouse);
 
 		thread = new Thread(this, "Game Thread");
+		renderThread = new Thread(new Runnable() {
+			public void run() { renderLoop(); }
+		}, "Render Thread");
+		renderThread.setDaemon(true);
 	}
 
 	/**
@@ -85,97 +118,219 @@ public abstract class Engine extends Canvas implements Runnable {
 		frame.setVisible(true);
 
 		requestFocus();
+		realTime = true;
 		thread.start();
+		renderThread.start();
 	}
 
 	/**
 	 * Called to join the game thread and exit the program.
 	 */
 	protected synchronized void stop() {
-		frame.dispose();
-		frame.setVisible(false);
+		if (frame != null) {
+			frame.dispose();
+			frame.setVisible(false);
+		}
 		System.exit(0);
 	}
 
 	/**
-	 * This function is called when the thread is started and establishes the game loop of the program. It calls the tick and render functions of the child Game
-	 * object to the frequency of the targetTPS.
+	 * Runs the game without a window for a fixed number of ticks, each advancing the simulation by exactly msPerTick milliseconds regardless of wall-clock
+	 * time. Every tick is followed by a publish, and if target is not null, by a render into it on this same thread. Calls game.init() first, so this should
+	 * only be called once per engine.
+	 * 
+	 * @param numTicks  The number of ticks to simulate
+	 * @param msPerTick The simulated time in milliseconds that passes each tick
+	 * @param target    An offscreen image to render into after every tick, or null to skip rendering entirely
+	 * @return The number of ticks and frames run along with the wall time they took
+	 */
+	public SimulationStats simulate(int numTicks, double msPerTick, BufferedImage target) {
+		game.init();
+
+		int frames = 0;
+		long startTime = System.nanoTime();
+		for (int i = 0; i < numTicks; i++) {
+			tick(msPerTick);
+			game.cPublish();
+			if (target != null) {
+				Graphics g = target.createGraphics();
+				render(g, target.getWidth(), target.getHeight());
+				g.dispose();
+				frames++;
+			}
+		}
+		return new SimulationStats(numTicks, frames, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * This function is called when the thread is started and establishes the game loop of the program. Time is accumulated and spent in fixed steps of
+	 * 1000 / targetTPS milliseconds, running as many ticks as needed to catch up (but never more than maxTicksPerFrame in a row, so a long hitch slows the
+	 * game down rather than freezing it). After the ticks, the game publishes a snapshot of its state. If the current state renders from snapshots, the
+	 * render thread draws them and this thread just sleeps until the next tick; otherwise a frame is rendered here once per loop at the display's refresh
+	 * rate.
 	 */
 	public void run() {
 
-		long lastTime = System.nanoTime();
-		double nsPerTick = 1000000000 / targetTPS;
-		double delta = 0;
+		double nsPerFrame = 1000000000 / getDisplayRefreshRate();
+		double accumulator = 0;
 
-		long tickTimer = System.nanoTime();
+		long lastTime = System.nanoTime();
+		long nextFrameTime = lastTime;
 		long secondTimer = System.currentTimeMillis();
 
 		while (isRunning) {
 			long now = System.nanoTime();
-			delta += (now - lastTime) / nsPerTick;
+			accumulator += now - lastTime;
 			lastTime = now;
-			if (delta >= 1) {
-				delta--;
-				tick((double) (now - tickTimer) / 1000000);
-				tickTimer = now;
-				render();
+
+			// Run every tick that is due, up to the cap, then throw away any time that still couldn't be caught up on
+			int ticksRun = 0;
+			while (accumulator >= nsPerTick && ticksRun < maxTicksPerFrame) {
+				tick(1000 / targetTPS);
+				accumulator -= nsPerTick;
+				ticksRun++;
 			}
+			if (accumulator >= nsPerTick) accumulator %= nsPerTick;
+
+			// Hand the render thread a copy of the newest state, or render here if the current state can't be drawn from a copy
+			if (ticksRun > 0) game.cPublish();
+			boolean inlineRendering = !game.cRendersFromSnapshots();
+			if (inlineRendering) render();
 
-			now = System.currentTimeMillis();
+			long nowMillis = System.currentTimeMillis();
 
 			// If it's been sixty seconds since the program last run, reset timer so fps and tps are constantly trying to catch up
-			if (now - secondTimer >= 60000) secondTimer = now;
+			if (nowMillis - secondTimer >= 60000) secondTimer = nowMillis;
 
-			if (now - secondTimer >= 1000) {
+			if (nowMillis - secondTimer >= 1000) {
 				secondTimer += 1000;
 				frame.setTitle(title + " | TPS: " + tps + ", FPS: " + fps);
 				fps = 0;
 				tps = 0;
 			}
 
+			// Wait until the next tick is due, or the next frame if this thread is rendering. Don't let frames pile up if rendering fell behind.
+			long nextTickTime = lastTime + (long) (nsPerTick - accumulator);
+			if (inlineRendering) {
+				nextFrameTime += nsPerFrame;
+				now = System.nanoTime();
+				if (nextFrameTime < now - nsPerFrame) nextFrameTime = now;
+				sleepUntil(Math.min(nextFrameTime, nextTickTime));
+			} else sleepUntil(nextTickTime);
+		}
+		stop();
+	}
+
+	/**
+	 * The loop of the render thread. Draws the latest published snapshot once per display refresh whenever the current state renders from snapshots, and
+	 * otherwise just keeps time while the game thread renders.
+	 */
+	private void renderLoop() {
+		double nsPerFrame = 1000000000 / getDisplayRefreshRate();
+		long nextFrameTime = System.nanoTime();
+
+		while (isRunning) {
+			// Log anything thrown while drawing rather than letting it end the thread, which would freeze the window while the game runs on
 			try {
-				Thread.sleep((long) (1000 / (5 * targetTPS)));
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+				if (game.cRendersFromSnapshots()) render();
+			} catch (RuntimeException e) {
+				Diagnostics.error(Category.ENGINE, "Couldn't render a frame: " + e);
 			}
+
+			nextFrameTime += nsPerFrame;
+			long now = System.nanoTime();
+			if (nextFrameTime < now - nsPerFrame) nextFrameTime = now;
+			sleepUntil(nextFrameTime);
 		}
-		stop();
 	}
 
 	/**
-	 * Updates at the frequency of the targetTPS, called with the time elapsed since the last update. Also calls the child Game object's tick method.
+	 * Waits until System.nanoTime() reaches the given deadline. Most of the wait is spent parked, but the last spinThreshold nanoseconds are spent spinning
+	 * (yielding to any other runnable thread) since parking can overshoot by a millisecond or more depending on the OS timer resolution.
 	 * 
-	 * @param elapsedTime the amount of milliseconds passed since the last tick() call
+	 * @param deadline The System.nanoTime() value to wait until
+	 */
+	private static void sleepUntil(long deadline) {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > spinThreshold)
+			LockSupport.parkNanos(remaining - spinThreshold);
+		while (System.nanoTime() < deadline)
+			Thread.yield();
+	}
+
+	/**
+	 * Returns the refresh rate of the screen the window is on, or the targetTPS if it can't be determined.
+	 */
+	private double getDisplayRefreshRate() {
+		int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+		try {
+			GraphicsDevice device = (getGraphicsConfiguration() != null) ? getGraphicsConfiguration().getDevice()
+					: GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+			refreshRate = device.getDisplayMode().getRefreshRate();
+		} catch (HeadlessException e) {}
+		return (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) ? targetTPS : refreshRate;
+	}
+
+	/**
+	 * Updates at the frequency of the targetTPS, called with the fixed time step of each tick. Also calls the child Game object's tick method.
+	 * 
+	 * @param elapsedTime the amount of milliseconds that each tick simulates
 	 */
 	private void tick(double elapsedTime) {
+		long start = System.nanoTime();
 		tps++;
 		game.cTick(elapsedTime);
 		keys.tick();
 		mouse.tick();
+		Metrics.TICK.stop(start);
 	}
 
 	/**
-	 * Renders the window as quickly as possible. By default sets background to black and then calls the child Game object's render method.
+	 * Renders a frame to the window. By default sets background to black and then calls the child Game object's render method.
 	 */
 	private void render() {
-		fps++;
+		synchronized (renderLock) {
+			fps++;
+
+			BufferStrategy bs = this.getBufferStrategy();
+			if (bs == null) {
+				this.createBufferStrategy(2);
+				fps--;
+				return;
+			}
 
-		BufferStrategy bs = this.getBufferStrategy();
-		if (bs == null) {
-			this.createBufferStrategy(2);
-			fps--;
-			return;
+			Graphics g = bs.getDrawGraphics();
+			render(g, getWidth(), getHeight());
+			g.dispose();
+			bs.show();
 		}
+	}
 
-		Graphics g = bs.getDrawGraphics();
-		//////////////////////////////////
+	/**
+	 * Clears the given area to black and then calls the child Game object's render method with the given Graphics object.
+	 * 
+	 * @param g      The Graphics object to draw with (from the BufferStrategy or an offscreen image)
+	 * @param width  The width of the area to clear
+	 * @param height The height of the area to clear
+	 */
+	private void render(Graphics g, int width, int height) {
+		long start = System.nanoTime();
 		g.setColor(Color.black);
-		g.fillRect(0, 0, getWidth(), getHeight());
+		g.fillRect(0, 0, width, height);
 		game.cRender(g);
-		//////////////////////////////////
-		g.dispose();
-		bs.show();
+		Metrics.RENDER.stop(start);
+	}
 
+	/**
+	 * Returns how far a frame drawn now is between the two ticks captured by a snapshot published at the given time, from 0 (the tick before it) to 1 (the
+	 * tick it was published after). Anything that moves between ticks should be drawn at previous + (latest - previous) * interpolation(publishTime) so
+	 * motion is smooth at any frame rate. Always 1 while simulating, since then every frame is drawn right after its tick.
+	 * 
+	 * @param publishTime The System.nanoTime() at which the snapshot being drawn was published
+	 */
+	public static double interpolation(long publishTime) {
+		if (!realTime) return 1;
+		return Math.max(0, Math.min(1, (System.nanoTime() - publishTime) / nsPerTick));
 	}
 
 	/**
@@ -189,10 +344,22 @@ public abstract class Engine extends Canvas implements Runnable {
 	public abstract void cTick(double elapsedTime);
 
 	/**
-	 * Requires the child Game object to have a render() method, which is called as much as possible.
+	 * Requires the child Game object to have a render() method, which is called at the display's refresh rate.
 	 */
 	public abstract void cRender(Graphics g);
 
+	/**
+	 * Requires the child Game object to have a publish() method, which is called on the game thread after each batch of ticks to hand a snapshot of its
+	 * state to the render thread.
+	 */
+	public abstract void cPublish();
+
+	/**
+	 * Requires the child Game object to report whether its current state is drawn from published snapshots on the render thread (true) or must be drawn
+	 * on the game thread between ticks (false).
+	 */
+	public abstract boolean cRendersFromSnapshots();
+
 	/**
 	 * Resizes the canvas with a certain width and height, resetting the frame's location while it is invisible.
 	 * 
@@ -200,6 +367,10 @@ public abstract class Engine extends Canvas implements Runnable {
 	 * @param height
 	 */
 	public void resizeCanvas(int width, int height) {
+		if (headless) {
+			this.setSize(width, height);
+			return;
+		}
 		frame.setVisible(false);
 		this.setSize(width, height);
 		frame.pack();
@@ -296,10 +467,15 @@ public abstract class Engine extends Canvas implements Runnable {
 	public void setChild(Engine engine) { game = engine; }
 
 	/**
-	 * Returns the window object.
+	 * Returns the window object, or null if this engine is headless.
 	 */
 	public JFrame getFrame() { return frame; }
 
+	/**
+	 * Returns true if this engine was created without a window.
+	 */
+	public boolean isHeadless() { return headless; }
+
 	/**
 	 * Returns a Tools.fRect comprising the entire window.
 	 */
@@ -473,6 +649,39 @@ public abstract class Engine extends Canvas implements Runnable {
 
 	//////////////////////////////////////////////////////////////////////////
 
+	public static class SimulationStats {
+
+		public final int ticks; // the number of ticks that were simulated
+		public final int frames; // the number of frames that were rendered offscreen
+		public final long elapsedNanos; // the wall time that the simulation took
+
+		/**
+		 * @param ticks        The number of ticks that were simulated
+		 * @param frames       The number of frames that were rendered offscreen
+		 * @param elapsedNanos The wall time in nanoseconds that the simulation took
+		 */
+		public SimulationStats(int ticks, int frames, long elapsedNanos) {
+			this.ticks = ticks;
+			this.frames = frames;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns how many ticks were simulated per second of wall time.
+		 */
+		public double ticksPerSecond() { return ticks / (elapsedNanos / 1000000000.0); }
+
+		/**
+		 * Returns a String representation of these stats in the format of ticks, frames, elapsed time, and ticks per second.
+		 */
+		public String toString() {
+			return String.format("%d ticks, %d frames in %.1f ms (%.1f ticks/s)", ticks, frames, elapsedNanos / 1000000.0, ticksPerSecond());
+		}
+
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+
 	private class Keys implements KeyListener {
 
 		private boolean[] keyStates = new boolean[256]; // list of current key states
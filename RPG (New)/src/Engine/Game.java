@@ -2,6 +2,10 @@ package Engine;
 
 import java.awt.Graphics;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
 
 import Editor.EditorState;
 import Play.PlayState;
@@ -28,26 +32,104 @@ public class Game extends Engine {
 		this.setChild(this);
 	}
 
+	public Game(int width, int height, String title, boolean headless) {
+		super(width, height, title, headless);
+		this.setChild(this);
+	}
+
+	/**
+	 * Starts the game in a window, or runs a headless simulation if the first argument is --headless. A headless run can be given the number of ticks to
+	 * simulate and --render to draw every tick into an offscreen image, i.e. "--headless 3600 --render". Either way, "--metrics file.csv" dumps the phase
+	 * timers to the given file every second.
+	 */
 	public static void main(String[] args) {
+		int metricsIndex = Arrays.asList(args).indexOf("--metrics");
+		if (metricsIndex >= 0 && metricsIndex + 1 < args.length) Metrics.startCsvDump(new File(args[metricsIndex + 1]), 1000);
+
+		if (args.length > 0 && args[0].equals("--headless")) {
+			int numTicks = (args.length > 1 && args[1].matches("\\d+")) ? Integer.parseInt(args[1]) : 3600;
+			boolean doRender = Arrays.asList(args).contains("--render");
+
+			Game game = new Game(gameWidth, gameHeight, "Test", true);
+			BufferedImage target = doRender ? new BufferedImage(gameWidth, gameHeight, BufferedImage.TYPE_INT_RGB) : null;
+			System.out.println(game.simulate(numTicks, 1000 / targetTPS, target));
+			for (Metrics.Timer t : Metrics.allTimers())
+				if (t.getCount() > 0) System.out.println(t);
+			return;
+		}
+
 		Game game = new Game(640, 640, "Test");
 		game.start();
 	}
 
+	/**
+	 * Loads everything the game needs as a graph of tasks that run in parallel where they can, then prints how long each stage took.
+	 */
 	public void init() {
-		AssetManager.loadAssets();
-		QuestManager.loadQuests(this);
-		MapManager.loadMaps(this);
-		CutsceneManager.loadCutscenes(this);
+		final Game game = this;
+		StartupGraph startup = new StartupGraph();
+		StartupGraph.Task tileSprites = startup.add("Tile sprites", new Runnable() {
+
+			public void run() { AssetManager.loadTileSprites(); }
+
+		});
+		StartupGraph.Task characterSprites = startup.add("Character sprites", new Runnable() {
+
+			public void run() { AssetManager.loadCharacterSprites(); }
+
+		});
+		StartupGraph.Task itemSprites = startup.add("Item sprites", new Runnable() {
+
+			public void run() { AssetManager.loadItemSprites(); }
+
+		});
+		StartupGraph.Task atlas = startup.add("Sprite atlas", new Runnable() {
+
+			public void run() { AssetManager.packAtlas(); }
+
+		}, tileSprites, characterSprites, itemSprites);
+		startup.add("Tiles", new Runnable() {
+
+			public void run() { Tile.loadTiles(); }
+
+		}, atlas);
+		startup.add("Quests", new Runnable() {
+
+			public void run() { QuestManager.loadQuests(game); }
+
+		}, atlas);
+		startup.add("Maps", new Runnable() {
+
+			public void run() {
+				MapManager.loadMaps(game);
+				MapManager.preload(MapManager.START_MAP);
+			}
+
+		});
+		startup.add("Cutscenes", new Runnable() {
+
+			public void run() { CutsceneManager.loadCutscenes(game); }
+
+		});
+		startup.run();
+
+		long start = System.nanoTime();
 		changeState(States.PLAY);
+		System.out.print(startup.report());
+		System.out.println(String.format(Locale.ROOT, "  %-20s %.2f ms", "Play state", (System.nanoTime() - start) / 1e6));
 	}
 
 	public void cTick(double deltaTime) {
-		Tile.tickTiles();
+		Clock.advance(deltaTime);
 		currentState.tick(deltaTime);
 	}
 
 	public void cRender(Graphics g) { currentState.render(g); }
 
+	public void cPublish() { currentState.publish(); }
+
+	public boolean cRendersFromSnapshots() { return currentState.rendersFromSnapshots(); }
+
 	public void changeState(States s) {
 		switch (s) {
 			case PLAY:
@@ -0,0 +1,208 @@
+package Engine;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import Engine.Diagnostics.Category;
+
+/**
+ * Times each phase of a tick or frame separately. Every Timer keeps the most recent samples in a ring buffer so its percentiles always describe the last
+ * few seconds of play. Timers are registered as MBeans under "RPG:type=FrameTimer,name=..." so they can be watched live in JConsole or VisualVM, and can
+ * be dumped to a CSV file periodically with startCsvDump().
+ *
+ * Usage: long start = System.nanoTime(); ...; Metrics.TILE_RENDER.stop(start);
+ */
+public class Metrics {
+
+	private static final int windowSize = 600; // number of samples each timer keeps (10 seconds of ticks at 60 TPS)
+
+	private static final LinkedHashMap<String, Timer> timers = new LinkedHashMap<String, Timer>(); // every timer by name, in order of creation
+	private static ScheduledExecutorService csvDumper; // background thread that writes the CSV file, or null if it isn't running
+
+	// Game thread phases
+	public static final Timer TICK = timer("Engine.tick");
+	public static final Timer THEATER_TICK = timer("TheaterEngine.tick");
+	public static final Timer ENTITY_TICK = timer("Entity.tick");
+	public static final Timer CROWD_TICK = timer("EntityStore.tick");
+	public static final Timer CAMERA_TICK = timer("Camera.tick");
+	public static final Timer ENTITY_SORT = timer("PlayState.entitySort");
+	public static final Timer PUBLISH = timer("PlayState.publish");
+
+	// Render thread phases
+	public static final Timer RENDER = timer("Engine.render");
+	public static final Timer TILE_RENDER = timer("TileMap.render");
+	public static final Timer ENTITY_RENDER = timer("Entity.render");
+	public static final Timer THEATER_RENDER = timer("TheaterEngine.render");
+
+	/**
+	 * Returns the timer with the given name, creating it and registering it with JMX if it doesn't exist yet.
+	 *
+	 * @param name The name of the phase being timed, i.e. "TileMap.render"
+	 */
+	public static Timer timer(String name) {
+		synchronized (timers) {
+			Timer t = timers.get(name);
+			if (t == null) {
+				t = new Timer(name);
+				timers.put(name, t);
+				try {
+					ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(t, TimerMBean.class),
+							new ObjectName("RPG:type=FrameTimer,name=" + ObjectName.quote(name)));
+				} catch (JMException e) {
+					Diagnostics.warn(Category.ENGINE, "Could not register " + name + " with JMX: " + e.getMessage());
+				}
+			}
+			return t;
+		}
+	}
+
+	/**
+	 * Starts appending a row per timer to the given CSV file every periodMillis milliseconds, on a background thread. Does nothing if already started.
+	 *
+	 * @param file         The file to write to, which is overwritten
+	 * @param periodMillis How often to write the timers out
+	 */
+	public static synchronized void startCsvDump(File file, long periodMillis) {
+		if (csvDumper != null) return;
+
+		final PrintWriter out;
+		try {
+			out = new PrintWriter(new FileWriter(file));
+		} catch (IOException e) {
+			Diagnostics.warn(Category.ENGINE, "Could not open " + file + " for metrics: " + e.getMessage());
+			return;
+		}
+		out.println("timeMillis,timer,count,p50Millis,p99Millis,maxMillis");
+		out.flush();
+
+		final long startTime = System.currentTimeMillis();
+		csvDumper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Metrics CSV Dump");
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+		csvDumper.scheduleAtFixedRate(new Runnable() {
+
+			public void run() {
+				long time = System.currentTimeMillis() - startTime;
+				for (Timer t : allTimers())
+					out.println(String.format(Locale.ROOT, "%d,%s,%d,%.4f,%.4f,%.4f", time, t.name, t.getCount(), t.getP50Millis(), t.getP99Millis(),
+							t.getMaxMillis()));
+				out.flush();
+			}
+
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns a copy of the list of every timer.
+	 */
+	public static ArrayList<Timer> allTimers() {
+		synchronized (timers) {
+			return new ArrayList<Timer>(timers.values());
+		}
+	}
+
+	/**
+	 * What JMX shows for each timer. Times are in milliseconds over the most recent samples.
+	 */
+	public interface TimerMBean {
+
+		public long getCount();
+
+		public double getP50Millis();
+
+		public double getP99Millis();
+
+		public double getMaxMillis();
+
+		public void reset();
+
+	}
+
+	/**
+	 * Keeps the durations of the most recent windowSize runs of a single phase.
+	 */
+	public static class Timer implements TimerMBean {
+
+		public final String name; // name of the phase
+
+		private final long[] samples = new long[windowSize]; // ring buffer of durations in nanoseconds
+		private int next = 0; // index that the next sample is written to
+		private int numSamples = 0; // number of valid samples in the buffer
+		private long count = 0; // total number of samples ever recorded
+
+		private Timer(String name) { this.name = name; }
+
+		/**
+		 * Records the time since the given start time as one run of this phase.
+		 *
+		 * @param startTime The System.nanoTime() at which the phase started
+		 */
+		public void stop(long startTime) { record(System.nanoTime() - startTime); }
+
+		/**
+		 * Records one run of this phase that took the given number of nanoseconds.
+		 */
+		public synchronized void record(long nanos) {
+			samples[next] = nanos;
+			next = (next + 1) % windowSize;
+			if (numSamples < windowSize) numSamples++;
+			count++;
+		}
+
+		public synchronized long getCount() { return count; }
+
+		public double getP50Millis() { return percentile(0.5); }
+
+		public double getP99Millis() { return percentile(0.99); }
+
+		public double getMaxMillis() { return percentile(1); }
+
+		public synchronized void reset() {
+			next = 0;
+			numSamples = 0;
+			count = 0;
+		}
+
+		/**
+		 * Returns the given percentile of the recent samples in milliseconds, or 0 if there aren't any.
+		 *
+		 * @param p The percentile between 0 and 1, i.e. 0.99 for p99
+		 */
+		public double percentile(double p) {
+			long[] sorted;
+			synchronized (this) {
+				if (numSamples == 0) return 0;
+				sorted = Arrays.copyOf(samples, numSamples);
+			}
+			Arrays.sort(sorted);
+			return sorted[(int) Math.ceil(p * sorted.length) - ((p == 0) ? 0 : 1)] / 1000000.0;
+		}
+
+		public String toString() {
+			return String.format(Locale.ROOT, "%s: p50 %.3f ms, p99 %.3f ms, max %.3f ms", name, getP50Millis(), getP99Millis(), getMaxMillis());
+		}
+
+	}
+
+}
@@ -1,12 +1,32 @@
 package Engine;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
+/**
+ * An image made up of a grid of equally sized tiles. Images loaded from files are converted on load from whatever format ImageIO returned them in to one
+ * that Java2D has fast blitting loops for (see toCompatible()), and AssetManager then packs its sprites into a shared SpriteAtlas.
+ */
 public class Sprite {
 
+	private static final long maxScaledPixels = 8 * 1024 * 1024; // The most pixels that all of the scaled copies of sprites can hold together
+	private static final LinkedHashMap<Long, BufferedImage> scaledImages = new LinkedHashMap<Long, BufferedImage>(256, 0.75f, true); // Scaled copies in LRU order
+	private static long scaledPixels = 0; // The number of pixels in all of the scaled copies
+	private static int nextID = 0; // The id that the next sprite created will get
+	private static final DirectColorModel bitmaskModel = new DirectColorModel(25, 0xFF0000, 0xFF00, 0xFF, 0x1000000); // ARGB with a one bit alpha
+
+	private final int id = nextSpriteID(); // Unique id of this sprite used to look up its scaled copies
 	private BufferedImage image; // The image this sprite represents
 	private int pWidth, pHeight; // Size of each tile on the image
 	private byte tWidth, tHeight; // Size of the image in tiles
+	private volatile BufferedImage lastScaled; // The scaled copy scaled() last returned, checked before scaledImages since most sprites are drawn at one size
 
 	/**
 	 * @param path    The path of the image to be loaded
@@ -16,7 +36,7 @@ public class Sprite {
 	public Sprite(String path, int pWidth, int pHeight) {
 		this.pWidth = pWidth;
 		this.pHeight = pHeight;
-		image = Tools.ResourceLoader.loadImage(path);
+		image = toCompatible(Tools.ResourceLoader.loadImage(path));
 		tWidth = (byte) (image.getWidth() / pWidth);
 		tHeight = (byte) (image.getHeight() / pHeight);
 	}
@@ -28,7 +48,7 @@ public class Sprite {
 	public Sprite(String path, int pSize) {
 		this.pWidth = pSize;
 		this.pHeight = pSize;
-		image = Tools.ResourceLoader.loadImage(path);
+		image = toCompatible(Tools.ResourceLoader.loadImage(path));
 		tWidth = (byte) (image.getWidth() / pSize);
 		tHeight = (byte) (image.getHeight() / pSize);
 	}
@@ -73,6 +93,16 @@ public class Sprite {
 		else return new Sprite(image.getSubimage(tx * pWidth, ty * pHeight, tWidth * pWidth, tHeight * pHeight), pWidth, pHeight);
 	}
 
+	/**
+	 * Replaces this sprite's image with one of the same size, i.e. its copy in an atlas. Scaled copies of the old image are kept, since they look the same.
+	 */
+	void setImage(BufferedImage image) { this.image = image; }
+
+	/**
+	 * Returns the unique id of this sprite.
+	 */
+	public int getID() { return id; }
+
 	/**
 	 * Returns true if the width and height of this tile are equal to 1 (only one tile in image).
 	 */
@@ -83,4 +113,120 @@ public class Sprite {
 	 */
 	public BufferedImage image() { return image; }
 
+	/**
+	 * Returns a copy of this sprite's image scaled to the given size, so that it can be drawn without being scaled every frame. Copies are made the first
+	 * time each size is asked for and are shared by every caller; the least recently used ones are thrown away once they hold more than maxScaledPixels
+	 * pixels together, so zooming through many sizes doesn't keep all of them around. Each sprite also remembers the last copy it returned, so drawing it
+	 * at the same size again and again takes neither the lock nor a new key; that copy stays alive until the sprite is scaled to another size, even once
+	 * it has been thrown away.
+	 * 
+	 * @param width  The width of the scaled image in pixels
+	 * @param height The height of the scaled image in pixels
+	 */
+	public BufferedImage scaled(int width, int height) {
+		if ((width == image.getWidth() && height == image.getHeight()) || width <= 0 || height <= 0) return image;
+		BufferedImage last = lastScaled;
+		if (last != null && last.getWidth() == width && last.getHeight() == height) return last;
+
+		Long key = ((long) id << 32) | ((long) width << 16) | height;
+		synchronized (scaledImages) {
+			BufferedImage scaled = scaledImages.get(key);
+			if (scaled != null) return lastScaled = scaled;
+
+			// Scale with nearest neighbor like drawImage does so scaled sprites look the same as before
+			scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D g = scaled.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(image, 0, 0, width, height, null);
+			g.dispose();
+			scaled = toCompatible(scaled);
+			scaledImages.put(key, scaled);
+			scaledPixels += width * height;
+
+			// Evict the least recently used copies, but never the one just made
+			Iterator<BufferedImage> it = scaledImages.values().iterator();
+			while (scaledPixels > maxScaledPixels && scaledImages.size() > 1) {
+				BufferedImage eldest = it.next();
+				scaledPixels -= eldest.getWidth() * eldest.getHeight();
+				it.remove();
+			}
+			return lastScaled = scaled;
+		}
+	}
+
+	/**
+	 * Returns a copy of the image in the format that Java2D draws fastest for how see-through it is: RGB if it is completely opaque, ARGB with a one bit
+	 * alpha if every pixel is either opaque or invisible, and premultiplied ARGB otherwise. The first two are copied rather than blended when drawn, and all
+	 * three have native loops for drawing onto the usual RGB targets. Returns null for null.
+	 */
+	public static BufferedImage toCompatible(BufferedImage image) {
+		if (image == null) return null;
+		BufferedImage copy = createCompatibleImage(image.getWidth(), image.getHeight(), transparencyOf(image));
+		Graphics2D g = copy.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+
+	/**
+	 * Returns a blank image in the format toCompatible() uses for the given Transparency.
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+		if (transparency == Transparency.OPAQUE) return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		if (transparency == Transparency.TRANSLUCENT) return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		return new BufferedImage(bitmaskModel, bitmaskModel.createCompatibleWritableRaster(width, height), false, null);
+	}
+
+	/**
+	 * Returns Transparency.OPAQUE if every pixel of the image is opaque, BITMASK if every pixel is either opaque or invisible, and TRANSLUCENT otherwise.
+	 */
+	public static int transparencyOf(BufferedImage image) {
+		int width = image.getWidth(), height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		int transparency = Transparency.OPAQUE;
+		for (int i = 0; i < pixels.length; i++) {
+			int alpha = pixels[i] >>> 24;
+			if (alpha == 0) transparency = Transparency.BITMASK;
+			else if (alpha != 0xFF) return Transparency.TRANSLUCENT;
+		}
+		return transparency;
+	}
+
+	/**
+	 * Returns a copy of the image with one byte per pixel indexing into a palette of its colours, or null if it has more than 256 of them. This takes a
+	 * quarter of the memory of ARGB, but Java2D has to look every pixel up in the palette when drawing it.
+	 */
+	public static BufferedImage toIndexed(BufferedImage image) {
+		int width = image.getWidth(), height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+		// Give every colour an index, treating all fully transparent pixels as the same colour
+		LinkedHashMap<Integer, Integer> palette = new LinkedHashMap<Integer, Integer>();
+		byte[] indices = new byte[pixels.length];
+		for (int i = 0; i < pixels.length; i++) {
+			int argb = ((pixels[i] >>> 24) == 0) ? 0 : pixels[i];
+			Integer index = palette.get(argb);
+			if (index == null) {
+				if (palette.size() == 256) return null;
+				palette.put(argb, index = palette.size());
+			}
+			indices[i] = (byte) (int) index;
+		}
+
+		int[] colours = new int[palette.size()];
+		int n = 0;
+		for (int argb : palette.keySet())
+			colours[n++] = argb;
+		BufferedImage indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+				new IndexColorModel(8, colours.length, colours, 0, true, -1, DataBuffer.TYPE_BYTE));
+		indexed.getRaster().setDataElements(0, 0, width, height, indices);
+		return indexed;
+	}
+
+	/**
+	 * Returns a new unique sprite id.
+	 */
+	private static synchronized int nextSpriteID() { return nextID++; }
+
 }
@@ -0,0 +1,109 @@
+package Engine;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Packs many sprites into a few shared images. Once packed, each sprite's image is a view into the atlas, and the table from sprite id to rectangle says
+ * where each one is.
+ *
+ * Sprites are grouped into one page per Transparency, each in the format Sprite.toCompatible() would pick for it, so that opaque sprites like grass are
+ * still copied rather than blended when drawn even though they share an atlas with see-through ones. Each page is packed onto shelves from tallest to
+ * shortest sprite, which wastes little space when most of them are the same height like tiles and characters.
+ *
+ * Usage: SpriteAtlas atlas = new SpriteAtlas(256); atlas.add(sprite); ...; atlas.pack();
+ */
+public class SpriteAtlas {
+
+	private static final int[] TRANSPARENCIES = { Transparency.OPAQUE , Transparency.BITMASK , Transparency.TRANSLUCENT }; // The kinds of page
+
+	private final int width; // The width of each page in pixels
+	private final ArrayList<Sprite> sprites = new ArrayList<Sprite>(); // The sprites to be packed
+	private final HashMap<Integer, Rectangle> rects = new HashMap<Integer, Rectangle>(); // Where each sprite is on its page, by sprite id
+	private final HashMap<Integer, BufferedImage> pageOf = new HashMap<Integer, BufferedImage>(); // The page each sprite is on, by sprite id
+	private final ArrayList<BufferedImage> pages = new ArrayList<BufferedImage>(); // Every page that has sprites on it
+
+	/**
+	 * @param width The width of each page in pixels, which must be at least as wide as the widest sprite
+	 */
+	public SpriteAtlas(int width) { this.width = width; }
+
+	/**
+	 * Adds a sprite to be packed, unless it is null or has already been added.
+	 */
+	public void add(Sprite sprite) {
+		if (sprite != null && !sprites.contains(sprite)) sprites.add(sprite);
+	}
+
+	/**
+	 * Copies every sprite that has been added onto the page for its transparency and points each sprite at its copy.
+	 */
+	public void pack() {
+		// Sort the sprites onto pages by transparency, tallest first
+		HashMap<Integer, ArrayList<Sprite>> byTransparency = new HashMap<Integer, ArrayList<Sprite>>();
+		for (int t : TRANSPARENCIES)
+			byTransparency.put(t, new ArrayList<Sprite>());
+		for (Sprite s : sprites)
+			byTransparency.get(Sprite.transparencyOf(s.image())).add(s);
+
+		for (int t : TRANSPARENCIES) {
+			ArrayList<Sprite> order = byTransparency.get(t);
+			if (order.isEmpty()) continue;
+			Collections.sort(order, new Comparator<Sprite>() {
+
+				public int compare(Sprite a, Sprite b) { return b.image().getHeight() - a.image().getHeight(); }
+
+			});
+
+			// Lay the sprites out left to right on shelves as tall as the first sprite on them
+			int x = 0, y = 0, shelfHeight = 0;
+			for (Sprite s : order) {
+				int w = s.image().getWidth(), h = s.image().getHeight();
+				if (w > width) throw new IllegalArgumentException("Sprite " + s.getID() + " is wider than the atlas!");
+				if (x + w > width) {
+					x = 0;
+					y += shelfHeight;
+					shelfHeight = 0;
+				}
+				rects.put(s.getID(), new Rectangle(x, y, w, h));
+				x += w;
+				shelfHeight = Math.max(shelfHeight, h);
+			}
+
+			BufferedImage page = Sprite.createCompatibleImage(width, y + shelfHeight, t);
+			Graphics2D g = page.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			for (Sprite s : order) {
+				Rectangle r = rects.get(s.getID());
+				g.drawImage(s.image(), r.x, r.y, null);
+				s.setImage(page.getSubimage(r.x, r.y, r.width, r.height));
+				pageOf.put(s.getID(), page);
+			}
+			g.dispose();
+			pages.add(page);
+		}
+	}
+
+	/**
+	 * Returns where the sprite with the given id is on its page, or null if it isn't in the atlas.
+	 */
+	public Rectangle getRect(int spriteID) { return rects.get(spriteID); }
+
+	/**
+	 * Returns the page that the sprite with the given id is on, or null if it isn't in the atlas.
+	 */
+	public BufferedImage getPage(int spriteID) { return pageOf.get(spriteID); }
+
+	/**
+	 * Returns every page of the atlas, which is empty until pack() has been called.
+	 */
+	public ArrayList<BufferedImage> getPages() { return pages; }
+
+}
@@ -0,0 +1,150 @@
+package Engine;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the stages of loading the game as a graph of tasks, each of which starts as soon as the tasks it depends on have finished. Stages that don't depend
+ * on each other, like decoding different sprite sheets, run on separate threads at the same time. Every stage is timed, and report() lists when each one
+ * started and how long it took so that slow cold starts can be tracked down.
+ *
+ * Tasks must be added after the tasks they depend on, so the order they are added in is always a valid order to run them in one at a time. Machines with a
+ * single core do just that on the calling thread, since extra threads would only take turns.
+ *
+ * Usage: StartupGraph s = new StartupGraph(); Task a = s.add("A", ...); s.add("B", ..., a); s.run(); System.out.print(s.report());
+ */
+public class StartupGraph {
+
+	public static boolean parallel = true; // Whether independent tasks may run on separate threads
+
+	private final ArrayList<Task> tasks = new ArrayList<Task>(); // Every task in the order it was added
+	private long startTime, endTime; // When run() started and finished in nanoseconds
+
+	/**
+	 * One stage of startup.
+	 */
+	public static class Task {
+
+		public final String name; // The name of the stage shown in the report
+		private final Runnable work; // The code that does the stage
+		private final Task[] after; // The tasks that have to finish before this one starts
+
+		private CompletableFuture<Void> future; // Completes when this task finishes while the graph is running
+		private volatile long start, end; // When this task started and finished in nanoseconds
+		private volatile String thread; // The name of the thread this task ran on
+
+		private Task(String name, Runnable work, Task[] after) {
+			this.name = name;
+			this.work = work;
+			this.after = after;
+		}
+
+		/**
+		 * Does the stage, noting when and where it ran.
+		 */
+		private void run() {
+			thread = Thread.currentThread().getName();
+			start = System.nanoTime();
+			work.run();
+			end = System.nanoTime();
+		}
+
+		/**
+		 * Returns the number of milliseconds this task took.
+		 */
+		public double getMillis() { return (end - start) / 1e6; }
+
+	}
+
+	/**
+	 * Adds a task to the graph.
+	 *
+	 * @param name  The name of the stage shown in the report
+	 * @param work  The code that does the stage
+	 * @param after The tasks that have to finish before this one starts, which must already have been added
+	 * @return The new task, to be passed to add() by tasks that depend on it
+	 */
+	public Task add(String name, Runnable work, Task... after) {
+		for (Task t : after) {
+			if (!tasks.contains(t)) throw new IllegalArgumentException("Task " + name + " depends on " + t.name + ", which isn't in the graph yet!");
+		}
+		Task task = new Task(name, work, after);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Runs every task and returns once they have all finished. If a task throws, the tasks that depend on it don't run and the exception is rethrown here.
+	 */
+	public void run() {
+		startTime = System.nanoTime();
+		int numThreads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+		if (!parallel || numThreads <= 1) {
+			for (Task t : tasks)
+				t.run();
+			endTime = System.nanoTime();
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+
+			private int count = 0; // The number of threads made so far
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Startup " + (++count));
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+		try {
+			for (final Task t : tasks) {
+				CompletableFuture<?>[] before = new CompletableFuture<?>[t.after.length];
+				for (int i = 0; i < before.length; i++)
+					before[i] = t.after[i].future;
+				t.future = CompletableFuture.allOf(before).thenRunAsync(new Runnable() {
+
+					public void run() { t.run(); }
+
+				}, pool);
+			}
+			for (Task t : tasks)
+				t.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while starting the game!");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+			endTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Returns the number of milliseconds run() took from start to finish.
+	 */
+	public double getMillis() { return (endTime - startTime) / 1e6; }
+
+	/**
+	 * Returns a table of when each task started relative to the start of run(), how long it took and which thread it ran on, followed by the total wall
+	 * time and the sum of all the tasks' times.
+	 */
+	public String report() {
+		StringBuilder s = new StringBuilder("Startup:\n");
+		double sum = 0;
+		for (Task t : tasks) {
+			s.append(String.format(Locale.ROOT, "  %-20s start %8.2f ms  took %8.2f ms  on %s%n", t.name, (t.start - startTime) / 1e6, t.getMillis(), t.thread));
+			sum += t.getMillis();
+		}
+		s.append(String.format(Locale.ROOT, "  %-20s %.2f ms wall, %.2f ms of work%n", "total", getMillis(), sum));
+		return s.toString();
+	}
+
+}
@@ -15,15 +15,36 @@ public abstract class State {
 
 	public abstract void render(Graphics g);
 
+	/**
+	 * Copies whatever render() needs into a snapshot for the render thread. Called on the game thread after each batch of ticks. Does nothing by default.
+	 */
+	public void publish() {}
+
+	/**
+	 * Returns true if render() only draws from the snapshots made by publish(), so it can safely be called on the render thread while the next tick runs.
+	 * False by default, in which case render() is called on the game thread in between ticks.
+	 */
+	public boolean rendersFromSnapshots() { return false; }
+
 	/**
 	 * Converts a vector from world coordinates to screen coordinates, and returns the converted vector.
 	 */
-	public abstract Tools.Vec2 worldToScreen(Tools.Vec2 v);
+	public Tools.Vec2 worldToScreen(Tools.Vec2 v) { return worldToScreen(v, new Tools.Vec2(0, 0)); }
+
+	/**
+	 * Converts a vector from world coordinates to screen coordinates into result, which may be v itself, and returns result.
+	 */
+	public abstract Tools.Vec2 worldToScreen(Tools.Vec2 v, Tools.Vec2 result);
 
 	/**
 	 * Converts a vector from screen coordinates to world coordinates, and returns the converted vector.
 	 */
-	public abstract Tools.Vec2 screenToWorld(Tools.Vec2 v);
+	public Tools.Vec2 screenToWorld(Tools.Vec2 v) { return screenToWorld(v, new Tools.Vec2(0, 0)); }
+
+	/**
+	 * Converts a vector from screen coordinates to world coordinates into result, which may be v itself, and returns result.
+	 */
+	public abstract Tools.Vec2 screenToWorld(Tools.Vec2 v, Tools.Vec2 result);
 
 	/**
 	 * Converts an fRect from world coordinates to screen coordinates, and returns the converted fRect.
@@ -5,11 +5,20 @@ import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import javax.imageio.ImageIO;
 import javax.sound.sampled.AudioFormat;
@@ -18,11 +27,13 @@ import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.sound.sampled.DataLine;
 
+import Engine.Diagnostics.Category;
+
 /**
- * This class contains several utility classes, including Vec2s and Vec3s to store pairs and triplets of numbers, as well as a Matrix class that can handle
- * matrix operations, an "fRect" that is essentially a rectangle but that contains doubles and can draw itself, and a ResourceLoader class that can load images,
- * text files, and audio clips so far. It also includes an Interface called "Function" that basically acts as a function that can be passed in to a constructor
- * or function.
+ * This class contains several utility classes, including Vec2s, ConstVec2s and Vec3s to store pairs and triplets of numbers, as well as a Matrix class
+ * that can handle matrix operations, an "fRect" that is essentially a rectangle but that contains doubles and can draw itself, and a ResourceLoader class
+ * that can load images, text files, and audio clips so far. It also includes an Interface called "Function" that basically acts as a function that can be
+ * passed in to a constructor or function.
  */
 public class Tools {
 
@@ -31,30 +42,72 @@ public class Tools {
 		void run();
 	}
 
-	public static class Vec2 extends Matrix {
+	/**
+	 * The read-only side of a pair of doubles, which both Vec2 and ConstVec2 are, so that methods that only read a vector can be given either.
+	 */
+	public static interface ReadVec2 {
+
+		double x();
+
+		double y();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * A pair of doubles that is just two fields, rather than a Matrix, so that creating one is a single small allocation. add(), subtract(), scale() and
+	 * norm() return a new Vec2 and leave this one alone, while set() and the methods ending in "Local" change this Vec2 in place and return it, so that
+	 * code run every tick can reuse the same Vec2 instead of making new ones. Use ConstVec2 for values that must never change, like shared constants.
+	 */
+	public static class Vec2 implements ReadVec2 {
 
 		public double x, y;
 
 		public Vec2(double x, double y) {
-			super(2, 1);
-			setValues(new double[][] { { x } , { y } });
 			this.x = x;
 			this.y = y;
 		}
 
-		public Vec2 add(Vec2 v) { return new Vec2(x + v.x, y + v.y); }
+		public Vec2(ReadVec2 v) { this(v.x(), v.y()); }
+
+		public double x() { return x; }
+
+		public double y() { return y; }
+
+		public Vec2 add(ReadVec2 v) { return new Vec2(x + v.x(), y + v.y()); }
 
-		public Vec2 subtract(Vec2 v) { return new Vec2(x - v.x, y - v.y); }
+		public Vec2 subtract(ReadVec2 v) { return new Vec2(x - v.x(), y - v.y()); }
 
 		public Vec2 scale(double c) { return new Vec2(x * c, y * c); }
 
 		public Vec2 norm() { return new Vec2(x / getMagnitude(), y / getMagnitude()); }
 
+		public Vec2 set(double x, double y) {
+			this.x = x;
+			this.y = y;
+			return this;
+		}
+
+		public Vec2 set(ReadVec2 v) { return set(v.x(), v.y()); }
+
+		public Vec2 addLocal(ReadVec2 v) { return set(x + v.x(), y + v.y()); }
+
+		public Vec2 subtractLocal(ReadVec2 v) { return set(x - v.x(), y - v.y()); }
+
+		public Vec2 scaleLocal(double c) { return set(x * c, y * c); }
+
+		public Vec2 normLocal() { return scaleLocal(1 / getMagnitude()); }
+
 		public double getMagnitude() { return Math.sqrt(x * x + y * y); }
 
-		public double distanceTo(Vec2 v) { return Math.sqrt((x - v.x) * (x - v.x) + (y - v.y) * (y - v.y)); }
+		public double distanceTo(ReadVec2 v) { return Math.sqrt((x - v.x()) * (x - v.x()) + (y - v.y()) * (y - v.y())); }
 
-		public double dot(Vec2 v) { return x * v.x + y * v.y; }
+		public double dot(ReadVec2 v) { return x * v.x() + y * v.y(); }
+
+		/**
+		 * Returns this vector as a 2x1 column Matrix, for the Matrix operations that Vec2 doesn't have itself.
+		 */
+		public Matrix toMatrix() { return new Matrix(2, 1).setValues(new double[][] { { x } , { y } }); }
 
 		public String toString() { return String.format("(%.3f, %.3f)", x, y); }
 
@@ -64,6 +117,38 @@ public class Tools {
 
 	////////////////////////////////////////////////////////////////////////////////////////////
 
+	/**
+	 * A pair of doubles that can't be changed once made. Safe to share between entities, i.e. as a default size, where a Vec2 could be changed in place by
+	 * whoever holds it.
+	 */
+	public static final class ConstVec2 implements ReadVec2 {
+
+		public final double x, y;
+
+		public ConstVec2(double x, double y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public ConstVec2(ReadVec2 v) { this(v.x(), v.y()); }
+
+		public double x() { return x; }
+
+		public double y() { return y; }
+
+		/**
+		 * Returns a new Vec2 with the same values, which can be changed without changing this one.
+		 */
+		public Vec2 toVec2() { return new Vec2(x, y); }
+
+		public double getMagnitude() { return Math.sqrt(x * x + y * y); }
+
+		public String toString() { return String.format("(%.3f, %.3f)", x, y); }
+
+	} // class ConstVec2
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+
 	public static class Vec3 extends Matrix {
 
 		public double x, y, z;
@@ -184,18 +269,16 @@ public class Tools {
 		 * 
 		 * @param r
 		 */
-		public boolean intersects(fRect r) {
-			double tw = this.width;
-			double th = this.height;
-			double rw = r.width;
-			double rh = r.height;
+		public boolean intersects(fRect r) { return intersects(x, y, width, height, r.x, r.y, r.width, r.height); }
+
+		/**
+		 * Returns true if the rectangle (tx, ty, tw, th) intersects the rectangle (rx, ry, rw, rh), without needing an fRect for either. Rectangles with no
+		 * area never intersect anything.
+		 */
+		public static boolean intersects(double tx, double ty, double tw, double th, double rx, double ry, double rw, double rh) {
 			if (rw <= 0 || rh <= 0 || tw <= 0 || th <= 0) {
 				return false;
 			}
-			double tx = this.x;
-			double ty = this.y;
-			double rx = r.x;
-			double ry = r.y;
 			rw += rx;
 			rh += ry;
 			tw += tx;
@@ -379,13 +462,14 @@ public class Tools {
 		}
 
 		/**
-		 * Returns a Vector representation of the matrix if the matrix is only one column.
+		 * Returns a Vector representation of the matrix if the matrix is only one column. Throws an IllegalArgumentException for two-row columns, since Vec2
+		 * is no longer a Matrix: use toVec2() for those.
 		 */
 		public Matrix toVector() {
 			if (data[0].length == 1) {
 				switch (data.length) {
 					case 2:
-						return new Vec2(data[0][0], data[1][0]);
+						throw new IllegalArgumentException("Two-row columns aren't Matrix vectors anymore, so use toVec2() to get a Vec2 instead!");
 					case 3:
 						return new Vec3(data[0][0], data[1][0], data[2][0]);
 					default:
@@ -396,6 +480,15 @@ public class Tools {
 			}
 		}
 
+		/**
+		 * Returns a Vec2 representation of the matrix if the matrix is a column of two.
+		 */
+		public Vec2 toVec2() {
+			if (data.length != 2 || data[0].length != 1)
+				throw new IllegalArgumentException("Only matrices with two rows and one column can be transformed into a Vec2!");
+			return new Vec2(data[0][0], data[1][0]);
+		}
+
 	} // class Matrix
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -416,7 +509,7 @@ public class Tools {
 				image = ImageIO.read(ResourceLoader.class.getResource(path));
 				return image;
 			} catch (Exception e) {
-				System.out.println("Image with path " + path + " not found!");
+				Diagnostics.warn(Category.ASSETS, "Image with path " + path + " not found!");
 				return null;
 			}
 		}
@@ -448,11 +541,70 @@ public class Tools {
 				br.close();
 				return stringBuilder.toString().trim();
 			} catch (IOException e) {
-				System.out.println("Text file with path " + path + " not found!");
+				Diagnostics.warn(Category.ASSETS, "Text file with path " + path + " not found!");
 				return "";
 			}
 		}
 
+		/**
+		 * Opens a channel to read the file at the specified path from, or returns null if it couldn't be opened. Files, and resources that are plain files
+		 * on disk, are opened as FileChannels so that they can be memory-mapped; resources inside a jar are opened as a stream.
+		 * 
+		 * @param path
+		 * @param mode LOAD_FILE if as file, LOAD_RESOURCE if as resource.
+		 */
+		public static ReadableByteChannel openChannel(String path, int mode) {
+			try {
+				File file;
+				if (mode == LOAD_FILE) {
+					file = new File(path);
+				} else if (mode == LOAD_RESOURCE) {
+					URL url = ResourceLoader.class.getResource(path);
+					if (url == null) throw new IOException();
+					if (!url.getProtocol().equals("file")) return Channels.newChannel(url.openStream());
+					file = Paths.get(url.toURI()).toFile();
+				} else {
+					throw new IllegalArgumentException("Invalid mode passed in!");
+				}
+				return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			} catch (IOException | URISyntaxException e) {
+				Diagnostics.warn(Category.ASSETS, "File with path " + path + " not found!");
+				return null;
+			}
+		}
+
+		/**
+		 * Returns the contents of a binary file from the specified path, or null if it couldn't be read. Files are memory-mapped rather than read, and so are
+		 * resources that are plain files on disk; resources inside a jar are read into memory instead.
+		 * 
+		 * @param path
+		 * @param mode LOAD_FILE if as file, LOAD_RESOURCE if as resource.
+		 */
+		public static ByteBuffer loadBinaryFile(String path, int mode) {
+			ReadableByteChannel channel = openChannel(path, mode);
+			if (channel == null) return null;
+			try {
+				// The mapping stays valid after the channel is closed
+				if (channel instanceof FileChannel) return ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, ((FileChannel) channel).size());
+
+				// Anything else can't be mapped, so read the whole thing
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				ByteBuffer buffer = ByteBuffer.allocate(8192);
+				while (channel.read(buffer) != -1) {
+					bytes.write(buffer.array(), 0, buffer.position());
+					buffer.clear();
+				}
+				return ByteBuffer.wrap(bytes.toByteArray());
+			} catch (IOException e) {
+				Diagnostics.warn(Category.ASSETS, "Binary file with path " + path + " could not be read!");
+				return null;
+			} finally {
+				try {
+					channel.close();
+				} catch (IOException e) {}
+			}
+		}
+
 		/**
 		 * Returns an audio Clip loaded from the specified path.
 		 * 
@@ -0,0 +1,54 @@
+package Engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands objects from one producer thread to one consumer thread without locking. The producer always writes into the back buffer and publishes it, and
+ * the consumer always reads the newest published buffer. Since there are three buffers, the producer never has to wait for the consumer to finish reading
+ * and never writes into the buffer being read; snapshots that the consumer was too slow to see are simply skipped.
+ *
+ * @param <T> The type of object being handed over, which should be reused rather than reallocated every publish
+ */
+public class TripleBuffer<T> {
+
+	private static final int FRESH = 4; // bit set in middle when it holds a buffer that the consumer hasn't taken yet
+	private static final int INDEX = 3; // mask for the buffer index in middle
+
+	private final Object[] buffers = new Object[3]; // the three buffers
+	private int back = 0; // index of the buffer only the producer touches
+	private final AtomicInteger middle = new AtomicInteger(1); // index of the buffer being handed over, plus the FRESH bit
+	private int front = 2; // index of the buffer only the consumer touches
+
+	/**
+	 * @param a The initial back buffer
+	 * @param b The initial middle buffer
+	 * @param c The initial front buffer, which is what the consumer sees until the first publish
+	 */
+	public TripleBuffer(T a, T b, T c) {
+		buffers[0] = a;
+		buffers[1] = b;
+		buffers[2] = c;
+	}
+
+	/**
+	 * Returns the buffer that the producer should write the next snapshot into. Only call this from the producer thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public T back() { return (T) buffers[back]; }
+
+	/**
+	 * Makes the back buffer the newest snapshot and gives the producer a new back buffer to write into. Only call this from the producer thread.
+	 */
+	public void publish() { back = middle.getAndSet(back | FRESH) & INDEX; }
+
+	/**
+	 * Returns the newest published snapshot, which stays untouched by the producer until the next call to acquire(). Only call this from the consumer
+	 * thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		if ((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & INDEX;
+		return (T) buffers[front];
+	}
+
+}
@@ -11,9 +11,11 @@ public class Camera {
 	private Game game; // An instance of the game object
 	public Entity e; // The entity to be followed
 	public int ox, oy; // The x and y camera offsets
+	private int lastOX, lastOY; // The camera offsets at the start of the latest tick, which rendering interpolates from
 
 	public boolean smoothMovement; // Whether or not the camera should move smoothly
 	private static final int cameraInertia = 10; // inertia of camera movement speed
+	private final Vec2 center = new Vec2(0, 0); // Reused each tick to hold the center of the entity being followed
 
 	/**
 	 * @param game The instance of the game object
@@ -42,10 +44,28 @@ public class Camera {
 		this.smoothMovement = smoothMovement;
 	}
 
+	/**
+	 * Records the current offsets as the ones to interpolate from until the next tick. Called at the start of every tick.
+	 */
+	public void rememberOffsets() {
+		lastOX = ox;
+		lastOY = oy;
+	}
+
+	/**
+	 * Copies the current offsets and the offsets at the start of the tick into the given snapshot.
+	 */
+	public void snapshot(WorldSnapshot s) {
+		s.ox = ox;
+		s.oy = oy;
+		s.lastOX = lastOX;
+		s.lastOY = lastOY;
+	}
+
 	public void tick(double deltaTime) {
 		if (e != null) {
 			// Only update if there's an entity to follow and then find ideal offsets
-			Vec2 screenPos = e.getCenter().scale(Tile.GAME_SIZE);
+			Vec2 screenPos = e.getCenter(center).scaleLocal(Tile.GAME_SIZE);
 			double idealOX = game.getWidth() / 2 - screenPos.x;
 			double idealOY = game.getHeight() / 2 - screenPos.y;
 
@@ -56,7 +76,7 @@ public class Camera {
 				// Use mathematical algorithm to convey smooth panning motion only if desired
 				if (Math.abs(diffX) >= 0.5) ox += (int) (diffX * Math.exp(1 / diffX) / cameraInertia);
 				if (Math.abs(diffY) >= 0.5) oy += (int) (diffY * Math.exp(1 / diffY) / cameraInertia);
-				if (new Vec2(diffX, diffY).getMagnitude() <= 4) {
+				if (diffX * diffX + diffY * diffY <= 16) {
 					ox = (int) idealOX;
 					oy = (int) idealOY;
 				}
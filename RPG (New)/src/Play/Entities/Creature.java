@@ -1,23 +1,26 @@
 package Play.Entities;
 
-import java.awt.Color;
-import java.awt.Graphics;
 import java.util.HashMap;
 
 import Engine.Animation;
 import Engine.AssetManager;
 import Engine.AssetManager.CharacterSprites;
+import Engine.Clock;
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Engine.Sprite;
 import Engine.Tools.Vec2;
-import Play.Maps.Tile;
+import Play.WorldSnapshot.EntityState;
 
 public abstract class Creature extends Dynamic {
 
 	protected HashMap<String, Animation> animations = new HashMap<>(); // A hashmap containing the different player animations
 	protected Animation currentAnimation; // The current animation to be shown
+	protected double animationStart; // The Clock time when the current animation was switched to
 
 	public enum Facing { Up, Down, Left, Right };
+	private static final Facing[] FACINGS = Facing.values(); // Every Facing, kept since values() makes a new array each call
 	public Facing facing;
 
 	/**
@@ -27,7 +30,7 @@ public abstract class Creature extends Dynamic {
 	 */
 	public Creature(Game game, String name, CharacterSprites spriteName, Vec2 pos) {
 		super(game, name);
-		this.pos = new Vec2(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
+		setPos(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
 		setCollisionType(true, true);
 		moving = false;
 		facing = Facing.Down;
@@ -38,36 +41,31 @@ public abstract class Creature extends Dynamic {
 	}
 
 	/**
-	 * Handles moving flag, default animation changes, and collisions.
+	 * Handles moving flag and default animation changes from the velocity that was set before it, whether by a subclass's plan() or by a command.
 	 */
-	public void tick(double deltaTime) {
-		// Handle animations
+	public void plan(double deltaTime) {
 		moving = Math.abs(v.x) > 0 || Math.abs(v.y) > 0;
 		if (v.y > 0) changeAnimation("Down");
 		else if (v.y < 0) changeAnimation("Up");
 		else if (v.x > 0) changeAnimation("Right");
 		else if (v.x < 0) changeAnimation("Left");
-
-		// Handle collisions
-		handleCollisions();
-
-		// Update animation
-		currentAnimation.tick();
 	}
 
 	/**
-	 * Draws the correct animation image to the screen.
+	 * Handles collisions.
+	 */
+	public void tick(double deltaTime) { handleCollisions(); }
+
+	/**
+	 * Records the correct animation image to be drawn, and the hitbox if hitboxes are being shown.
 	 */
-	public void render(Graphics g, int ox, int oy) {
-		if (isOnScreen()) {
-			Vec2 screenPos = worldToScreen(pos);
-			// Draw correct image based on moving flag
-			if (moving) Game.drawImage(g, currentAnimation.currentFrame().image(), screenPos.x, screenPos.y, size.x * Tile.GAME_SIZE, size.y * Tile.GAME_SIZE);
-			else Game.drawImage(g, currentAnimation.firstFrame().image(), screenPos.x, screenPos.y, size.x * Tile.GAME_SIZE, size.y * Tile.GAME_SIZE);
+	public void snapshot(EntityState s) {
+		super.snapshot(s);
 
-			if (Entity.showHitboxes) worldToScreen(hitbox()).draw(g, Color.white);
+		// Draw correct image based on moving flag
+		s.sprite = (moving) ? currentAnimation.frameAt(Clock.since(animationStart)) : currentAnimation.firstFrame();
 
-		}
+		if (Entity.showHitboxes) s.outline(hitbox());
 	}
 
 	/**
@@ -92,7 +90,7 @@ public abstract class Creature extends Dynamic {
 
 		if (!animations.containsKey(key)) {
 			// Print out error if the key is not in the Map, and don't change anything.
-			System.out.println("Animations Hashmap does not contain an Animation with key: " + key + ".");
+			Diagnostics.warn(Category.ENTITIES, "Animations Hashmap does not contain an Animation with key: " + key + ".");
 			return this;
 		}
 
@@ -100,11 +98,11 @@ public abstract class Creature extends Dynamic {
 		Animation requestedAnimation = animations.get(key);
 		if (currentAnimation != requestedAnimation) {
 			currentAnimation = animations.get(key);
-			currentAnimation.start();
+			animationStart = Clock.now();
 		}
 
 		// Set facing direction if relevant
-		for (Facing f : Facing.values()) {
+		for (Facing f : FACINGS) {
 			if (key.equals(f.toString())) facing = f;
 		}
 
@@ -1,28 +1,45 @@
 package Play.Entities;
 
-import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+import Engine.Diagnostics.Level;
 import Engine.Game;
 import Engine.Tools.Vec2;
 import Engine.Tools.fRect;
+import Play.Maps.TileMap;
 import Play.PlayState;
 
 public abstract class Dynamic extends Entity {
 
-	public Vec2 v; // velocity vector
+	public final Vec2 v = new Vec2(0, 0); // velocity vector
 	public boolean solidVsDynamic; // whether this entity is solid against dynamic entities or not
 	public boolean solidVsStatic; // whether this entity is solid against static world tiles or not
 	protected boolean moving; // Whether or not the dynamic is currently moving.
 
 	protected fRect interactableRegion; // relative image coordinates of interact zone for onInteract() purposes
 
+	public static double maxStep = 1; // The furthest a Dynamic moves in one collision sub-step, in tiles
+	static final double EPSILON = 0.000001; // How far hitboxes can overlap or miss by and still count as only touching, as they are rounded to this
+	private static final ArrayList<Dynamic> nearby = new ArrayList<Dynamic>(); // Reused list of the entities found by handleCollisions()
+
+	public static int parallelThreshold = 1024; // The fewest entities for which planAll() splits the plans across the pool
+	private static final int PLAN_CHUNK = 256; // The number of entities planned by each task of planAll()
+
+	SpatialGrid grid; // The spatial grid this entity is in, or null if it isn't in one
+	int gridX0, gridY0, gridX1, gridY1; // The range of cells this entity was last put in by its grid
+	int gridStamp, queryStamp; // Marks left by the grid when it last saw this entity in updateAll() and in a query
+	int renderFrame, queuedFrame; // Marks left by the RenderQueue when it last found this entity visible and when it last put it in the queue
+
 	/**
 	 * @param game An instance of the game object
 	 * @param type The type of entity (i.e. "Player" or "NPC")
 	 */
 	public Dynamic(Game game, String name) {
 		super(game, name);
-		v = new Vec2(0, 0);
 		setCollisionType(false, false);
 		interactableRegion = new fRect(0, 0, 1, 1);
 	}
@@ -30,90 +47,202 @@ public abstract class Dynamic extends Entity {
 	public abstract void onInteract(Entity e);
 
 	/**
-	 * Resolves collisions between this Dynamic and the surrounding map, as well as other Dynamic Entities within the game.
+	 * Works out what this Dynamic means to do this tick before anything moves, i.e. its velocity, steering and animation, leaving the moving and anything
+	 * else with side effects to tick(). Plans can run on any thread at the same time as each other, so this may read the world but must only write this
+	 * Dynamic's own fields, and must not query PlayState.spatialGrid, which marks what it finds.
+	 *
+	 * @param deltaTime The length of the tick in milliseconds
 	 */
-	protected void handleCollisions() {
+	public void plan(double deltaTime) {}
 
-		// Handle collisions in the x direction, static then dynamic
-		if (v.x != 0) {
-			pos.x += v.x;
-
-			if (solidVsStatic) {
-				boolean[][] mapSolidData = PlayState.map.getSolidData();
-
-				for (int y = (int) (pos.y - 1.5 * size.y), yMax = (int) (pos.y + 2.5 * size.y); y <= yMax; y++) {
-					System.out.print("y = " + y + " | x = ");
-					for (int x = (int) (pos.x - v.x - 1.5 * size.x), xMax = (int) (pos.x - v.x + 2.5 * size.x); x <= xMax; x++) {
-						System.out.print(x + ", ");
-						if (y < 0 || y >= mapSolidData.length || x < 0 || x >= mapSolidData[y].length) continue;
-						if (!mapSolidData[y][x]) continue;
-						fRect r = new fRect(x, y, 1, 1);
-						fRect hitbox = hitbox();
-						double hitboxLeftDistance = hitbox.x - pos.x;
-						double hitboxRightDistance = hitbox.x + hitbox.width - pos.x;
-						if (hitbox.intersects(r)) {
-							if (v.x > 0 && pos.x + hitboxRightDistance > r.x) pos.x = r.x - hitboxRightDistance;
-							else if (v.x < 0 && pos.x + hitboxLeftDistance < r.x + 1) pos.x = r.x + 1 - hitboxLeftDistance;
-						}
-					}
-					System.out.print("\n");
-				}
-			}
+	/**
+	 * Runs the first phase of a tick for every entity in the list, calling plan() on each. With at least parallelThreshold entities the plans are split
+	 * across the same pool as the crowd's first phase (see EntityStore.setParallelism()), and otherwise they are made in order on the calling thread.
+	 * Either way, each plan only depends on the entity it is for and on what nothing writes during the phase, so the result is the same bit for bit.
+	 *
+	 * @param entities  The entities to plan for
+	 * @param deltaTime The length of the tick in milliseconds
+	 */
+	public static void planAll(ArrayList<Dynamic> entities, double deltaTime) {
+		ForkJoinPool pool = EntityStore.pool;
+		if (pool != null && entities.size() >= parallelThreshold) pool.invoke(new Planner(entities, 0, entities.size(), deltaTime));
+		else {
+			for (int i = 0, n = entities.size(); i < n; i++)
+				entities.get(i).plan(deltaTime);
+		}
+	}
 
-			if (solidVsDynamic) {
-				for (Dynamic e : PlayState.entities) {
-					if (e == this || !e.solidVsDynamic) continue;
-					fRect hitbox = hitbox();
-					double hitboxLeftDistance = hitbox.x - pos.x;
-					double hitboxRightDistance = hitbox.x + hitbox.width - pos.x;
-
-					fRect other;
-					if (hitbox.intersects(other = e.hitbox())) {
-						if (v.x > 0 && pos.x + hitboxRightDistance > other.x) pos.x = other.x - hitboxRightDistance;
-						else if (v.x < 0 && pos.x + hitboxLeftDistance < other.x + other.width) pos.x = other.x + other.width - hitboxLeftDistance;
-					}
-				}
-			}
+	/**
+	 * Plans a range of entities in planAll(), splitting it in half until it is small enough to plan on one thread.
+	 */
+	private static class Planner extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ArrayList<Dynamic> entities; // The entities being planned for
+		private final int from, to; // The range of indices to plan
+		private final double deltaTime; // The length of the tick in milliseconds
+
+		private Planner(ArrayList<Dynamic> entities, int from, int to, double deltaTime) {
+			this.entities = entities;
+			this.from = from;
+			this.to = to;
+			this.deltaTime = deltaTime;
 		}
 
-		// Handle collisions in the y direction, static then dynamic
-		if (v.y != 0) {
-			pos.y += v.y;
-			if (solidVsStatic) {
-
-				boolean[][] mapSolidData = PlayState.map.getSolidData();
-
-				for (int y = (int) (pos.y - v.y - 1.5 * size.y), yMax = (int) (pos.y - v.y + 2.5 * size.y); y <= yMax; y++) {
-					for (int x = (int) (pos.x - 1.5 * size.x), xMax = (int) (pos.x - v.x + 2.5 * size.x); x <= xMax; x++) {
-						if (y < 0 || y >= mapSolidData.length || x < 0 || x >= mapSolidData[y].length) continue;
-						if (!mapSolidData[y][x]) continue;
-						fRect r = new fRect(x, y, 1, 1);
-						fRect hitbox = hitbox();
-						double hitboxTopDistance = hitbox.y - pos.y;
-						double hitboxBottomDistance = hitbox.y + hitbox.height - pos.y;
-						if (hitbox.intersects(r)) {
-							if (v.y > 0 && pos.y + hitboxBottomDistance > r.y) pos.y = r.y - hitboxBottomDistance;
-							else if (v.y < 0 && pos.y + hitboxTopDistance < r.y + 1) pos.y = r.y + 1 - hitboxTopDistance;
-						}
-					}
-				}
+		protected void compute() {
+			if (to - from <= PLAN_CHUNK) {
+				for (int i = from; i < to; i++)
+					entities.get(i).plan(deltaTime);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Planner(entities, from, mid, deltaTime), new Planner(entities, mid, to, deltaTime));
 			}
+		}
+
+	}
+
+	/**
+	 * Moves this Dynamic by its velocity, stopping it against the solid tiles of the map and other solid Dynamics and crowd members in its way.
+	 *
+	 * Rather than moving the whole way and then looking for what it ended up inside of, the hitbox is swept along its path, x then y, so nothing is missed
+	 * however far it moves in one tick. Along each axis only the columns or rows of tiles that the leading edge of the hitbox crosses are checked, one after
+	 * another from nearest to furthest, so the cost grows with the distance moved rather than with a fixed window around the entity. Moves longer than
+	 * maxStep are split into equal sub-steps that each move x then y, so that a long diagonal move slides around corners the way many short ones would.
+	 * Something the hitbox already overlaps doesn't block it, so entities that end up inside walls or each other can walk back out.
+	 */
+	protected void handleCollisions() {
+		if (v.x == 0 && v.y == 0) return;
+
+		// Find the other entities anywhere along the whole move, once, and check only those in each step
+		boolean checkDynamics = solidVsDynamic && PlayState.spatialGrid != null;
+		if (checkDynamics) {
+			double x = hitboxX() + Math.min(v.x, 0), y = hitboxY() + Math.min(v.y, 0);
+			PlayState.spatialGrid.query(x, y, hitboxWidth() + Math.abs(v.x), hitboxHeight() + Math.abs(v.y), nearby);
+		}
+
+		int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(v.x), Math.abs(v.y)) / maxStep));
+		double dx = v.x / steps, dy = v.y / steps;
+		for (int i = 0; i < steps; i++) {
+			if (dx != 0) pos.x += sweep(dx, true, checkDynamics);
+			if (dy != 0) pos.y += sweep(dy, false, checkDynamics);
+		}
+	}
+
+	/**
+	 * Returns how far the hitbox can move along one axis, up to the given distance, before it hits something solid.
+	 *
+	 * @param d             The distance to move, which is negative for left or up
+	 * @param alongX        True to move along the x axis, false for the y axis
+	 * @param checkDynamics True if the entities found by handleCollisions(), and the crowd, should block the move
+	 */
+	private double sweep(double d, boolean alongX, boolean checkDynamics) {
+		// Work in terms of the axis being moved along (a) and the one across it (b)
+		double a0 = alongX ? hitboxX() : hitboxY(), a1 = a0 + (alongX ? hitboxWidth() : hitboxHeight());
+		double b0 = alongX ? hitboxY() : hitboxX(), b1 = b0 + (alongX ? hitboxHeight() : hitboxWidth());
+		if (a1 <= a0 || b1 <= b0) return d; // A hitbox with no area never collides, as with fRect.intersects()
+
+		if (solidVsStatic) d = sweepTiles(PlayState.map, a0, a1, b0, b1, d, alongX, name);
 
-			if (solidVsDynamic) {
-				for (Dynamic e : PlayState.entities) {
-					if (e == this || !e.solidVsDynamic) continue;
-					fRect hitbox = hitbox();
-					double hitboxTopDistance = hitbox.y - pos.y;
-					double hitboxBottomDistance = hitbox.y + hitbox.height - pos.y;
-
-					fRect other;
-					if (hitbox.intersects(other = e.hitbox())) {
-						if (v.y > 0 && pos.y + hitboxBottomDistance > other.y) pos.y = other.y - hitboxBottomDistance;
-						else if (v.y < 0 && pos.y + hitboxTopDistance < other.y + other.height) pos.y = other.y + other.height - hitboxTopDistance;
-					}
-				}
+		if (checkDynamics) {
+			for (int i = 0, n = nearby.size(); i < n; i++) {
+				Dynamic e = nearby.get(i);
+				if (e == this || !e.solidVsDynamic) continue;
+				double e0 = alongX ? e.hitboxX() : e.hitboxY(), e1 = e0 + (alongX ? e.hitboxWidth() : e.hitboxHeight());
+				double f0 = alongX ? e.hitboxY() : e.hitboxX(), f1 = f0 + (alongX ? e.hitboxHeight() : e.hitboxWidth());
+				d = sweepPast(a0, a1, b0, b1, d, e0, e1, f0, f1);
 			}
+			if (PlayState.crowd.size() > 0) d = PlayState.crowd.sweep(a0, a1, b0, b1, d, alongX);
 		}
+		return d;
+	}
+
+	/**
+	 * Returns how far a box can move along one axis, up to the given distance, before it runs into a solid tile of the map, walking only the lines of tiles
+	 * that its leading edge crosses. Tiles outside of the map aren't solid. The box is given in terms of the axis being moved along (a) and the one across
+	 * it (b), so the same code handles both.
+	 *
+	 * @param map    The map to check against
+	 * @param a0     The near edge of the box along the axis being moved along, i.e. its left edge when moving along x
+	 * @param a1     The far edge along the axis being moved along
+	 * @param b0     The near edge across the axis being moved along
+	 * @param b1     The far edge across the axis being moved along
+	 * @param d      The distance to move, which is negative for left or up
+	 * @param alongX True to move along the x axis, false for the y axis
+	 * @param name   The name of what is moving, for tracing
+	 */
+	static double sweepTiles(TileMap map, double a0, double a1, double b0, double b1, double d, boolean alongX, String name) {
+		int bMin = (int) Math.floor(b0 + EPSILON), bMax = (int) Math.ceil(b1 - EPSILON) - 1; // The rows (or columns) the box is in
+		int first = (d > 0) ? (int) Math.ceil(a1 - EPSILON) : (int) Math.floor(a0 + EPSILON) - 1; // The first tile line the leading edge enters
+		int last = (d > 0) ? (int) Math.ceil(a1 + d - EPSILON) - 1 : (int) Math.floor(a0 + d + EPSILON); // The last one
+		int step = (d > 0) ? 1 : -1;
+		if (Diagnostics.isEnabled(Category.COLLISION, Level.TRACE)) {
+			String lines = alongX ? "columns " : "rows ";
+			Diagnostics.trace(Category.COLLISION, name + " swept " + lines + first + " to " + last + " across " + bMin + " to " + bMax);
+		}
+		for (int a = first; (a - last) * step <= 0; a += step) {
+			if (isSolidLine(map, a, bMin, bMax, alongX)) return (d > 0) ? Math.max(0, a - a1) : Math.min(0, a + 1 - a0);
+		}
+		return d;
+	}
+
+	/**
+	 * Returns how far a box can move along one axis, up to the given distance, before it runs into another box (e0, e1, f0, f1) given the same way. Boxes
+	 * with no area, or that are only touching or already overlapping, don't block it.
+	 *
+	 * @param a0 The near edge of the moving box along the axis being moved along
+	 * @param a1 The far edge of the moving box along the axis being moved along
+	 * @param b0 The near edge of the moving box across the axis being moved along
+	 * @param b1 The far edge of the moving box across the axis being moved along
+	 * @param d  The distance to move, which is negative for left or up
+	 */
+	static double sweepPast(double a0, double a1, double b0, double b1, double d, double e0, double e1, double f0, double f1) {
+		if (e1 <= e0 || f1 <= f0 || f1 <= b0 + EPSILON || f0 >= b1 - EPSILON) return d; // Not in the way
+		if (d > 0 && e0 >= a1 - EPSILON && e0 < a1 + d) return Math.max(0, e0 - a1);
+		if (d < 0 && e1 <= a0 + EPSILON && e1 > a0 + d) return Math.min(0, e1 - a0);
+		return d;
+	}
+
+	/**
+	 * Returns true if any tile in the given line of the map is solid. Tiles outside of the map aren't solid.
+	 *
+	 * @param map    The map to check
+	 * @param a      The column to check if alongX, or the row if not
+	 * @param bMin   The first row (or column) of the line
+	 * @param bMax   The last row (or column) of the line
+	 * @param alongX True if the line is a column, false if it is a row
+	 */
+	private static boolean isSolidLine(TileMap map, int a, int bMin, int bMax, boolean alongX) {
+		for (int b = bMin; b <= bMax; b++) {
+			int x = alongX ? a : b, y = alongX ? b : a;
+			if (map.inBounds(x, y) && map.isSolid(x, y)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the left edge of the smallest box holding this Dynamic's position and size, hitbox and interactable region, which is what SpatialGrid files
+	 * it under.
+	 */
+	public double boundsMinX() { return pos.x + size.x * Math.min(0, Math.min(relativeHitbox.x, interactableRegion.x)); }
+
+	/**
+	 * Returns the top edge of the box described in boundsMinX().
+	 */
+	public double boundsMinY() { return pos.y + size.y * Math.min(0, Math.min(relativeHitbox.y, interactableRegion.y)); }
+
+	/**
+	 * Returns the right edge of the box described in boundsMinX().
+	 */
+	public double boundsMaxX() {
+		return pos.x + size.x * Math.max(1, Math.max(relativeHitbox.x + relativeHitbox.width, interactableRegion.x + interactableRegion.width));
+	}
+
+	/**
+	 * Returns the bottom edge of the box described in boundsMinX().
+	 */
+	public double boundsMaxY() {
+		return pos.y + size.y * Math.max(1, Math.max(relativeHitbox.y + relativeHitbox.height, interactableRegion.y + interactableRegion.height));
 	}
 
 	/**
@@ -140,13 +269,10 @@ public abstract class Dynamic extends Entity {
 	 * Sets the Dynamic's velocity, then returns the Dynamic.
 	 */
 	public Dynamic setVel(double vx, double vy) {
-		this.v = new Vec2(vx, vy);
+		v.set(vx, vy);
 		return this;
 	}
 
 	@Override
 	public void tick(double deltaTime) {}
-
-	@Override
-	public void render(Graphics g, int ox, int oy) {}
 }
@@ -1,11 +1,10 @@
 package Play.Entities;
 
-import java.awt.Graphics;
-
 import Engine.Game;
 import Engine.State;
 import Engine.Tools.Vec2;
 import Engine.Tools.fRect;
+import Play.WorldSnapshot.EntityState;
 
 public abstract class Entity {
 
@@ -13,10 +12,17 @@ public abstract class Entity {
 
 	protected final Game game; // instance of the game
 
-	public Vec2 pos; // position on the screen (in world units)
-	public Vec2 size; // size on the screen (in world units | 1 tile = 1 unit)
+	public final Vec2 pos = new Vec2(0, 0); // position on the screen (in world units)
+	protected final Vec2 lastPos = new Vec2(0, 0); // position at the start of the latest tick, which rendering interpolates from
+	public final Vec2 size = new Vec2(1, 1); // size on the screen (in world units | 1 tile = 1 unit)
+	private final Vec2 screenPos = new Vec2(0, 0), screenCornerPos = new Vec2(0, 0); // Reused by isOnScreen()
 	protected fRect relativeHitbox; // relative hitbox based on screenSize
 
+	// The hitbox in world coordinates rounded to the nearest millionth, and the position, size and relative hitbox it was worked out from
+	private double hitboxX, hitboxY, hitboxWidth, hitboxHeight;
+	private double hitboxPosX = Double.NaN, hitboxPosY, hitboxSizeX, hitboxSizeY;
+	private fRect hitboxRelative;
+
 	public final String name; // name of entity (i.e. "Player")
 
 	/**
@@ -26,14 +32,18 @@ public abstract class Entity {
 	public Entity(Game game, String name) {
 		this.game = game;
 		this.name = name;
-		setPos(0, 0);
-		setSize(1, 1);
 		relativeHitbox = new fRect(0, 0, 1, 1);
 	}
 
 	public abstract void tick(double deltaTime);
 
-	public abstract void render(Graphics g, int ox, int oy);
+	/**
+	 * Writes how this Entity should be drawn into the given snapshot state. Called on the game thread after each batch of ticks; the render thread only
+	 * ever draws the state, never the Entity itself. By default only records the transform, so nothing is drawn.
+	 * 
+	 * @param s The state to be filled in
+	 */
+	public void snapshot(EntityState s) { s.set(pos, lastPos, size); }
 
 	/**
 	 * Returns the game's current State.
@@ -43,39 +53,112 @@ public abstract class Entity {
 	/**
 	 * Returns a Vec2 representing the center of the entity in world space
 	 */
-	public Vec2 getCenter() { return new Vec2(pos.x + 0.5 * size.x, pos.y + 0.5 * size.y); }
+	public Vec2 getCenter() { return getCenter(new Vec2(0, 0)); }
+
+	/**
+	 * Sets result to the center of the entity in world space and returns it, so that code run every tick can reuse the same Vec2.
+	 */
+	public Vec2 getCenter(Vec2 result) { return result.set(pos.x + 0.5 * size.x, pos.y + 0.5 * size.y); }
+
+	/**
+	 * Records the current position as the one to interpolate from until the next tick. Called at the start of every tick.
+	 */
+	public void rememberPos() { lastPos.set(pos); }
 
 	/**
 	 * Returns true if this Entity is on the screen, and false if not.
 	 */
 	public boolean isOnScreen() {
-		Vec2 screenPos = worldToScreen(pos);
-		Vec2 screenCornerPos = worldToScreen(pos.add(size));
+		worldToScreen(pos, screenPos);
+		worldToScreen(screenCornerPos.set(pos).addLocal(size), screenCornerPos);
 		return !(screenPos.x > game.getWidth() || screenPos.y > game.getHeight() || screenCornerPos.x < 0 || screenCornerPos.y < 0);
 	}
 
 	/**
-	 * Returns an fRect containing the Entity's hitbox in world coordinates rounded to the nearest millionth.
+	 * Returns an fRect containing the Entity's hitbox in world coordinates rounded to the nearest millionth. Collision code should use hitboxIntersects()
+	 * or hitboxX() and friends instead, which don't make a new fRect.
+	 */
+	public fRect hitbox() { return new fRect(hitboxX(), hitboxY(), hitboxWidth(), hitboxHeight()); }
+
+	/**
+	 * Works the world space hitbox out again if the position, size or relative hitbox has changed since it was last worked out. pos and size are changed
+	 * in place from all over, so rather than being told about every change, the cache remembers what it was worked out from and compares.
+	 */
+	private void updateHitbox() {
+		if (pos.x == hitboxPosX && pos.y == hitboxPosY && size.x == hitboxSizeX && size.y == hitboxSizeY && relativeHitbox == hitboxRelative) return;
+		hitboxPosX = pos.x;
+		hitboxPosY = pos.y;
+		hitboxSizeX = size.x;
+		hitboxSizeY = size.y;
+		hitboxRelative = relativeHitbox;
+		hitboxX = Game.round(pos.x + size.x * relativeHitbox.x, 0.000001);
+		hitboxY = Game.round(pos.y + size.y * relativeHitbox.y, 0.000001);
+		hitboxWidth = Game.round(size.x * relativeHitbox.width, 0.000001);
+		hitboxHeight = Game.round(size.y * relativeHitbox.height, 0.000001);
+	}
+
+	/**
+	 * Returns the left edge of the hitbox in world coordinates.
 	 */
-	public fRect hitbox() {
-		return Game.round(
-				new fRect(pos.x + size.x * relativeHitbox.x, pos.y + size.y * relativeHitbox.y, size.x * relativeHitbox.width, size.y * relativeHitbox.height),
-				0.000001);
+	public double hitboxX() {
+		updateHitbox();
+		return hitboxX;
+	}
+
+	/**
+	 * Returns the top edge of the hitbox in world coordinates.
+	 */
+	public double hitboxY() {
+		updateHitbox();
+		return hitboxY;
+	}
+
+	/**
+	 * Returns the width of the hitbox in world units.
+	 */
+	public double hitboxWidth() {
+		updateHitbox();
+		return hitboxWidth;
+	}
+
+	/**
+	 * Returns the height of the hitbox in world units.
+	 */
+	public double hitboxHeight() {
+		updateHitbox();
+		return hitboxHeight;
+	}
+
+	/**
+	 * Returns true if the hitbox intersects the given rectangle in world coordinates, by the same rules as fRect.intersects().
+	 */
+	public boolean hitboxIntersects(double x, double y, double width, double height) {
+		updateHitbox();
+		return fRect.intersects(hitboxX, hitboxY, hitboxWidth, hitboxHeight, x, y, width, height);
+	}
+
+	/**
+	 * Returns true if the hitbox intersects the hitbox of the given entity.
+	 */
+	public boolean hitboxIntersects(Entity e) {
+		e.updateHitbox();
+		return hitboxIntersects(e.hitboxX, e.hitboxY, e.hitboxWidth, e.hitboxHeight);
 	}
 
 	/**
 	 * Sets the size of the entity to the width and height provided, then returns the entity.
 	 */
 	public Entity setSize(double width, double height) {
-		size = new Vec2(width, height);
+		size.set(width, height);
 		return this;
 	}
 
 	/**
-	 * Sets the position of the entity to the x and y provided, then returns the entity.
+	 * Sets the position of the entity to the x and y provided, then returns the entity. The entity jumps there rather than being interpolated there.
 	 */
 	public Entity setPos(double x, double y) {
-		pos = new Vec2(x, y);
+		pos.set(x, y);
+		lastPos.set(x, y);
 		return this;
 	}
 
@@ -89,11 +172,21 @@ public abstract class Entity {
 	 */
 	public Vec2 worldToScreen(Vec2 v) { return getState().worldToScreen(v); }
 
+	/**
+	 * Converts a vector from world coordinates to screen coordinates into result, which may be v itself, and returns result.
+	 */
+	public Vec2 worldToScreen(Vec2 v, Vec2 result) { return getState().worldToScreen(v, result); }
+
 	/**
 	 * Converts a vector from screen coordinates to world coordinates, and returns the converted vector.
 	 */
 	public Vec2 screenToWorld(Vec2 v) { return getState().screenToWorld(v); }
 
+	/**
+	 * Converts a vector from screen coordinates to world coordinates into result, which may be v itself, and returns result.
+	 */
+	public Vec2 screenToWorld(Vec2 v, Vec2 result) { return getState().screenToWorld(v, result); }
+
 	/**
 	 * Converts an fRect from world coordinates to screen coordinates, and returns the converted fRect.
 	 */
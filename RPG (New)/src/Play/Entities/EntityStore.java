@@ -0,0 +1,684 @@
+package Play.Entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import Engine.AssetManager;
+import Engine.AssetManager.CharacterSprites;
+import Engine.Clock;
+import Engine.Sprite;
+import Engine.Tools.Vec2;
+import Engine.Tools.fRect;
+import Play.PlayState;
+import Play.Maps.FlowField;
+import Play.Maps.TileMap;
+import Play.Entities.Creature.Facing;
+import Play.WorldSnapshot.EntityState;
+
+/**
+ * A crowd of plain wandering NPCs kept as parallel arrays of primitives rather than as objects, so that thousands of them can tick in a frame. Position,
+ * last position, velocity, size, relative hitbox, collision flags, sprite sheet, facing and animation start time each live in their own array, indexed by slot,
+ * and a tick walks straight down them. Members are packed into the first size() slots, so removing one moves the last member into its place. Because of
+ * that, members are referred to by handles, which stay the same for as long as the member is alive. A handle's index is reused by later members, but with
+ * a new generation, so a stale handle is recognized rather than pointing at whoever took its place (until the index has been reused 2048 times).
+ *
+ * Members collide the way Dynamics do, sweeping their hitbox along their path against the solid tiles of the map, each other and the solid Dynamics in
+ * PlayState.spatialGrid, and Dynamics sweep against them in turn. Members are found by a grid of one tile cells hashed into buckets of linked slots, rebuilt
+ * after each tick. They walk with the same four frame animations as Creatures, and are drawn in between the Dynamics by the y-value at their feet. Only
+ * the first phase of a tick uses other threads, and the store is otherwise for the game thread only.
+ *
+ * Scripted entities, i.e. the player and NPCs that the TheaterEngine, quests and cutscenes move around and talk to, are still Dynamics. View wraps a handle
+ * for code that would rather hold an object than call the store with a handle.
+ */
+public class EntityStore {
+
+	public static final int SOLID_VS_STATIC = 1, SOLID_VS_DYNAMIC = 2, MOVING = 4; // Bits of a member's flags
+	private static final int PLANNED = 8; // The flag bit set when the first phase of the tick has swept the member against the map
+	public static final double SIZE = NPC.SIZE.x; // The width and height of a newly added member, which is that of an NPC
+
+	private static final int INDEX_BITS = 20; // The low bits of a handle that hold its index into slotOf, so there can be at most 2^20 members at once
+	private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1; // The bits of a generation that fit above the index, keeping handles positive
+	private static final double FRAME_TIME = 100; // How long each frame of the walking animation is shown for in milliseconds
+	private static final int[] WALK_ROWS = { 0 , 1 , 2 , 1 }; // The rows of a character sprite sheet that the walking animation steps through
+	private static final int[] FACING_COLUMNS = { 1 , 0 , 3 , 2 }; // The column of a character sprite sheet for each Facing, by ordinal
+	private static final Facing[] FACINGS = Facing.values(); // Every Facing, kept since values() makes a new array each call
+	private static final CharacterSprites[] SHEETS = CharacterSprites.values(); // Every character sprite sheet, likewise
+	private static Sprite[][][] frames; // The frames of every sprite sheet by facing and row, cropped the first time a member is drawn
+
+	public static int parallelThreshold = 2048; // The fewest members for which the first phase of a tick is split across the pool
+	private static final int PLAN_CHUNK = 512; // The number of members planned by each task of the first phase
+	static ForkJoinPool pool = (Runtime.getRuntime().availableProcessors() > 1) ? ForkJoinPool.commonPool() : null; // Where plans are made, or null
+
+	// The members, by slot
+	private int size = 0; // The number of members, which are in slots 0 to size - 1
+	private double[] x, y, lastX, lastY; // The position at the end and start of the current tick in tiles
+	private double[] vx, vy; // The velocity in tiles per tick
+	private double[] width, height; // The size in tiles
+	private double[] hitX, hitY, hitWidth, hitHeight; // The hitbox relative to the position and size, like Entity.relativeHitbox
+	private byte[] flags; // SOLID_VS_STATIC, SOLID_VS_DYNAMIC and MOVING bits
+	private byte[] sheet; // The ordinal of the CharacterSprites sheet drawn
+	private byte[] facing; // The ordinal of the Facing
+	private double[] animStart; // The Clock time when the member turned to face the way it is facing, which its walking animation is timed from
+	private double[] planX, planY; // How far the first phase of the tick found the member could move along x, then y, before hitting a solid tile
+	private int[] handles; // The handle of the member in each slot
+	private int[] seenFrame, queuedFrame; // Marks left by updateVisible() when it last found the member visible and when it last put it in the visible list
+
+	// The handles
+	private int[] slotOf = new int[0]; // The slot of the member each handle index refers to, or -1 if the index is free
+	private int[] generations = new int[0]; // The generation of each handle index, which is bumped whenever its member is removed
+	private int numIndices = 0; // The number of handle indices that have been given out
+	private int[] freeIndices = new int[0]; // Handle indices of removed members, to be given out again
+	private int numFree = 0;
+
+	// The grid of cells each member's hitbox starts in
+	private int[] cellHead = new int[0]; // The first slot in each bucket, or -1 if it is empty
+	private int[] cellNext; // The next slot in the same bucket as each slot, or -1
+	private boolean gridDirty = true; // Whether members have been added, removed or moved since the grid was built
+	private double gridSlack = 0; // How far members may have moved since the grid was built
+	private double maxHitWidth, maxHitHeight; // The largest hitbox of any member when the grid was built
+	private static final ArrayList<Dynamic> nearby = new ArrayList<Dynamic>(); // Reused list of the Dynamics found near a member while it moves
+	private final Vec2 heading = new Vec2(0, 0); // Reused by follow()
+
+	// The visible members in the order they are drawn
+	private int[] visible = new int[64]; // The handles of the visible members, sorted by the y-value at their feet
+	private double[] visibleKeys = new double[64]; // The y-value at the feet of each visible member, in the same order
+	private int numVisible = 0;
+	private int[] arrived = new int[64]; // Reused list of the handles of the members that have come into view this frame
+	private int frame = 0; // Incremented by each updateVisible()
+
+	public EntityStore() { ensureCapacity(64); }
+
+	/**
+	 * A member of a store as an object, for code that would rather hold one than a handle. Views are made when asked for, hold nothing but the handle, and
+	 * work for as long as their member is alive.
+	 */
+	public class View {
+
+		public final int handle; // The handle of the member being viewed
+
+		private View(int handle) { this.handle = handle; }
+
+		public boolean isAlive() { return EntityStore.this.isAlive(handle); }
+
+		public double getX() { return x[slot(handle)]; }
+
+		public double getY() { return y[slot(handle)]; }
+
+		public double getVelX() { return vx[slot(handle)]; }
+
+		public double getVelY() { return vy[slot(handle)]; }
+
+		public Facing getFacing() { return FACINGS[facing[slot(handle)]]; }
+
+		public View setPos(double x, double y) {
+			EntityStore.this.setPos(handle, x, y);
+			return this;
+		}
+
+		public View setVel(double vx, double vy) {
+			EntityStore.this.setVel(handle, vx, vy);
+			return this;
+		}
+
+		public void remove() { EntityStore.this.remove(handle); }
+
+	}
+
+	/**
+	 * Adds a member the size of an NPC, centered on the given tile and solid against both the map and other entities like one, and returns its handle.
+	 *
+	 * @param sprites The sprite sheet it is drawn with
+	 * @param tx      The x coordinate of the tile it stands on
+	 * @param ty      The y coordinate of the tile it stands on
+	 */
+	public int add(CharacterSprites sprites, double tx, double ty) {
+		if (size == INDEX_MASK + 1) throw new IllegalStateException("An EntityStore can't hold more than " + (INDEX_MASK + 1) + " members!");
+		ensureCapacity(size + 1);
+
+		// Give out a handle index, reusing the index of a removed member if there is one
+		int index;
+		if (numFree > 0) index = freeIndices[--numFree];
+		else {
+			if (numIndices == slotOf.length) {
+				int n = Math.max(64, numIndices * 2);
+				slotOf = Arrays.copyOf(slotOf, n);
+				generations = Arrays.copyOf(generations, n);
+			}
+			index = numIndices++;
+		}
+		int handle = (generations[index] << INDEX_BITS) | index;
+		slotOf[index] = size;
+
+		int i = size++;
+		handles[i] = handle;
+		x[i] = lastX[i] = tx + (1 - SIZE) / 2;
+		y[i] = lastY[i] = ty + (1 - SIZE) / 2;
+		vx[i] = vy[i] = 0;
+		width[i] = height[i] = SIZE;
+		hitX[i] = 0;
+		hitY[i] = 0.5;
+		hitWidth[i] = 1;
+		hitHeight[i] = 0.5;
+		flags[i] = SOLID_VS_STATIC | SOLID_VS_DYNAMIC;
+		sheet[i] = (byte) sprites.ordinal();
+		facing[i] = (byte) Facing.Down.ordinal();
+		animStart[i] = Clock.now();
+		seenFrame[i] = queuedFrame[i] = 0;
+		gridDirty = true;
+		return handle;
+	}
+
+	/**
+	 * Removes the member with the given handle, if it is alive, moving the last member into its slot.
+	 */
+	public void remove(int handle) {
+		if (!isAlive(handle)) return;
+		int index = handle & INDEX_MASK, i = slotOf[index], last = --size;
+		if (i != last) move(last, i);
+		slotOf[index] = -1;
+		generations[index] = (generations[index] + 1) & GENERATION_MASK;
+		if (numFree == freeIndices.length) freeIndices = Arrays.copyOf(freeIndices, Math.max(64, numFree * 2));
+		freeIndices[numFree++] = index;
+		gridDirty = true;
+	}
+
+	/**
+	 * Removes every member. Handles given out before stay dead.
+	 */
+	public void clear() {
+		while (size > 0)
+			remove(handles[size - 1]);
+		numVisible = 0;
+	}
+
+	/**
+	 * Returns a View of the member with the given handle.
+	 */
+	public View view(int handle) { return new View(handle); }
+
+	/**
+	 * Returns true if the handle refers to a member that hasn't been removed.
+	 */
+	public boolean isAlive(int handle) {
+		int index = handle & INDEX_MASK;
+		return handle >= 0 && index < numIndices && slotOf[index] >= 0 && generations[index] == handle >>> INDEX_BITS;
+	}
+
+	/**
+	 * Returns the number of members.
+	 */
+	public int size() { return size; }
+
+	/**
+	 * Returns the handle of the member in the given slot, from 0 to size() - 1. Slots change as members are removed, handles don't.
+	 */
+	public int handle(int slot) { return handles[slot]; }
+
+	/**
+	 * Moves the member with the given handle to (x, y) in tiles without colliding with anything.
+	 */
+	public void setPos(int handle, double x, double y) {
+		int i = slot(handle);
+		this.x[i] = x;
+		this.y[i] = y;
+		gridDirty = true;
+	}
+
+	/**
+	 * Sets the velocity of the member with the given handle in tiles per tick.
+	 */
+	public void setVel(int handle, double vx, double vy) {
+		int i = slot(handle);
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+	}
+
+	/**
+	 * Sets the velocity of every member to the given speed along the flow field from the center of its hitbox, or to zero for those on its goal or that
+	 * can't reach it, like FlowField.steer() does for a Dynamic.
+	 *
+	 * @param field The field to follow
+	 * @param speed The speed to move at in tiles per tick
+	 */
+	public void follow(FlowField field, double speed) {
+		for (int i = 0; i < size; i++) {
+			field.steer(x[i] + width[i] * (hitX[i] + hitWidth[i] / 2), y[i] + height[i] * (hitY[i] + hitHeight[i] / 2), heading);
+			vx[i] = heading.x * speed;
+			vy[i] = heading.y * speed;
+		}
+	}
+
+	/**
+	 * Sets whether the member with the given handle is solid against the map and against other entities, like Dynamic.setCollisionType().
+	 */
+	public void setCollisionType(int handle, boolean solidVsStatic, boolean solidVsDynamic) {
+		int i = slot(handle);
+		flags[i] = (byte) ((flags[i] & MOVING) | (solidVsStatic ? SOLID_VS_STATIC : 0) | (solidVsDynamic ? SOLID_VS_DYNAMIC : 0));
+	}
+
+	public double getX(int handle) { return x[slot(handle)]; }
+
+	public double getY(int handle) { return y[slot(handle)]; }
+
+	/**
+	 * Returns the slot of the member with the given handle.
+	 */
+	private int slot(int handle) {
+		if (!isAlive(handle)) throw new IllegalArgumentException("Handle " + handle + " doesn't refer to a member of this EntityStore!");
+		return slotOf[handle & INDEX_MASK];
+	}
+
+	/**
+	 * Copies everything about the member in slot from into slot to.
+	 */
+	private void move(int from, int to) {
+		x[to] = x[from];
+		y[to] = y[from];
+		lastX[to] = lastX[from];
+		lastY[to] = lastY[from];
+		vx[to] = vx[from];
+		vy[to] = vy[from];
+		width[to] = width[from];
+		height[to] = height[from];
+		hitX[to] = hitX[from];
+		hitY[to] = hitY[from];
+		hitWidth[to] = hitWidth[from];
+		hitHeight[to] = hitHeight[from];
+		flags[to] = flags[from];
+		sheet[to] = sheet[from];
+		facing[to] = facing[from];
+		animStart[to] = animStart[from];
+		seenFrame[to] = seenFrame[from];
+		queuedFrame[to] = queuedFrame[from];
+		handles[to] = handles[from];
+		slotOf[handles[to] & INDEX_MASK] = to;
+	}
+
+	/**
+	 * Grows the arrays to hold at least n members.
+	 */
+	private void ensureCapacity(int n) {
+		if (x != null && x.length >= n) return;
+		int capacity = Math.max(n, (x == null) ? 0 : x.length * 2);
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		lastX = grow(lastX, capacity);
+		lastY = grow(lastY, capacity);
+		vx = grow(vx, capacity);
+		vy = grow(vy, capacity);
+		width = grow(width, capacity);
+		height = grow(height, capacity);
+		hitX = grow(hitX, capacity);
+		hitY = grow(hitY, capacity);
+		hitWidth = grow(hitWidth, capacity);
+		hitHeight = grow(hitHeight, capacity);
+		animStart = grow(animStart, capacity);
+		planX = grow(planX, capacity);
+		planY = grow(planY, capacity);
+		flags = (flags == null) ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+		sheet = (sheet == null) ? new byte[capacity] : Arrays.copyOf(sheet, capacity);
+		facing = (facing == null) ? new byte[capacity] : Arrays.copyOf(facing, capacity);
+		handles = (handles == null) ? new int[capacity] : Arrays.copyOf(handles, capacity);
+		seenFrame = (seenFrame == null) ? new int[capacity] : Arrays.copyOf(seenFrame, capacity);
+		queuedFrame = (queuedFrame == null) ? new int[capacity] : Arrays.copyOf(queuedFrame, capacity);
+		cellNext = new int[capacity];
+		gridDirty = true;
+	}
+
+	private static double[] grow(double[] a, int capacity) { return (a == null) ? new double[capacity] : Arrays.copyOf(a, capacity); }
+
+	/**
+	 * Sets the number of threads that the first phase of a tick is split across, both here and in Dynamic.planAll(). With one thread, or less, every tick
+	 * runs entirely on the game thread.
+	 */
+	public static void setParallelism(int threads) {
+		if (pool != null && pool != ForkJoinPool.commonPool()) pool.shutdown();
+		pool = (threads <= 1) ? null : new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Moves every member by its velocity, colliding as it goes, and turns and animates it to match, in two phases.
+	 *
+	 * The first phase only reads the map and writes each member's own slot: it animates each member and sweeps its path against the solid tiles of the
+	 * map, which depends on nothing but where the member starts. Members are independent there, so with at least parallelThreshold of them it is split
+	 * across the pool. The second phase then moves the members one at a time in slot order on the game thread, colliding with each other and with the
+	 * Dynamics, so a member sees the ones before it where they have moved to and the ones after it where they were. A member that nothing else gets in the
+	 * way of follows its plan from the first phase as it is. One that is stopped short is swept against the map again from where it stopped, giving what
+	 * sweeping it all in one go would have. Either way, the result is the same bit for bit however many threads the first phase ran on.
+	 *
+	 * @param deltaTime The length of the tick in milliseconds
+	 * @param map       The map to collide with
+	 */
+	public void tick(double deltaTime, TileMap map) {
+		// Everything moves at most this far, so looking that much further around the cells it was filed under finds every member
+		double slack = 0;
+		for (int i = 0; i < size; i++)
+			slack = Math.max(slack, Math.max(Math.abs(vx[i]), Math.abs(vy[i])));
+		if (gridDirty) buildGrid();
+		gridSlack = slack;
+
+		// Phase one: animate every member and sweep it against the map, in parallel if there are enough of them and the map can be read that way
+		double now = Clock.now();
+		if (pool != null && size >= parallelThreshold && map.allowsConcurrentReads()) pool.invoke(new Planner(0, size, now, map));
+		else plan(0, size, now, map);
+
+		// Phase two: move them in order, colliding with everything else
+		boolean checkGrid = PlayState.spatialGrid != null && PlayState.spatialGrid.size() > 0;
+		for (int i = 0; i < size; i++) {
+			if ((flags[i] & MOVING) != 0) collide(i, map, checkGrid);
+		}
+
+		buildGrid();
+	}
+
+	/**
+	 * Plans a range of members in the first phase of a tick, splitting it in half until it is small enough to plan on one thread.
+	 */
+	private class Planner extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to; // The range of slots to plan
+		private final double now; // The Clock time of the tick
+		private final TileMap map; // The map being collided with
+
+		private Planner(int from, int to, double now, TileMap map) {
+			this.from = from;
+			this.to = to;
+			this.now = now;
+			this.map = map;
+		}
+
+		protected void compute() {
+			if (to - from <= PLAN_CHUNK) plan(from, to, now, map);
+			else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Planner(from, mid, now, map), new Planner(mid, to, now, map));
+			}
+		}
+
+	}
+
+	/**
+	 * Makes the first phase of the tick for the members in slots from to to - 1: remembers where they start, animates them, and sweeps the path of each
+	 * one that moves in a single step against the map, x then y, as collide() would if nothing else were in the way. Only touches the given slots.
+	 */
+	private void plan(int from, int to, double now, TileMap map) {
+		for (int i = from; i < to; i++) {
+			lastX[i] = x[i];
+			lastY[i] = y[i];
+			animate(i, now);
+			flags[i] &= ~PLANNED;
+			if ((flags[i] & (MOVING | SOLID_VS_STATIC)) != (MOVING | SOLID_VS_STATIC) || steps(i) != 1) continue;
+			double dx = (vx[i] != 0) ? sweepMap(i, x[i], y[i], vx[i], true, map) : 0;
+			planX[i] = dx;
+			planY[i] = (vy[i] != 0) ? sweepMap(i, x[i] + dx, y[i], vy[i], false, map) : 0;
+			flags[i] |= PLANNED;
+		}
+	}
+
+	/**
+	 * Returns the number of sub-steps the member in slot i moves in, like Dynamic.handleCollisions().
+	 */
+	private int steps(int i) { return Math.max(1, (int) Math.ceil(Math.max(Math.abs(vx[i]), Math.abs(vy[i])) / Dynamic.maxStep)); }
+
+	/**
+	 * Returns how far the hitbox of the member in slot i, with the member at (px, py), can move along one axis before it hits a solid tile of the map.
+	 */
+	private double sweepMap(int i, double px, double py, double d, boolean alongX, TileMap map) {
+		double hx = px + width[i] * hitX[i], hy = py + height[i] * hitY[i];
+		double a0 = alongX ? hx : hy, a1 = a0 + (alongX ? width[i] * hitWidth[i] : height[i] * hitHeight[i]);
+		double b0 = alongX ? hy : hx, b1 = b0 + (alongX ? height[i] * hitHeight[i] : width[i] * hitWidth[i]);
+		if (a1 <= a0 || b1 <= b0) return d; // A hitbox with no area never collides
+		return Dynamic.sweepTiles(map, a0, a1, b0, b1, d, alongX, "Crowd member");
+	}
+
+	/**
+	 * Sets the MOVING flag and facing of the member in slot i from its velocity, with the same precedence as Creature, restarting its animation from the
+	 * given Clock time if it turns.
+	 */
+	private void animate(int i, double now) {
+		boolean moving = vx[i] != 0 || vy[i] != 0;
+		flags[i] = (byte) (moving ? flags[i] | MOVING : flags[i] & ~MOVING);
+
+		int f = facing[i];
+		if (vy[i] > 0) f = Facing.Down.ordinal();
+		else if (vy[i] < 0) f = Facing.Up.ordinal();
+		else if (vx[i] > 0) f = Facing.Right.ordinal();
+		else if (vx[i] < 0) f = Facing.Left.ordinal();
+		if (f != facing[i]) {
+			facing[i] = (byte) f;
+			animStart[i] = now;
+		}
+	}
+
+	/**
+	 * Moves the member in slot i by its velocity, sweeping its hitbox along the way like Dynamic.handleCollisions() does. Uses the sweeps against the map
+	 * from its plan for as long as it is still on the path they were made along.
+	 */
+	private void collide(int i, TileMap map, boolean checkGrid) {
+		double w = width[i] * hitWidth[i], h = height[i] * hitHeight[i];
+		boolean solidVsStatic = (flags[i] & SOLID_VS_STATIC) != 0, solidVsDynamic = (flags[i] & SOLID_VS_DYNAMIC) != 0;
+		boolean checkDynamics = solidVsDynamic && checkGrid;
+		if (checkDynamics) {
+			double qx = x[i] + width[i] * hitX[i] + Math.min(vx[i], 0), qy = y[i] + height[i] * hitY[i] + Math.min(vy[i], 0);
+			PlayState.spatialGrid.query(qx, qy, w + Math.abs(vx[i]), h + Math.abs(vy[i]), nearby);
+			checkDynamics = !nearby.isEmpty();
+		}
+
+		boolean onPlan = (flags[i] & PLANNED) != 0;
+		int steps = steps(i);
+		double dx = vx[i] / steps, dy = vy[i] / steps;
+		for (int step = 0; step < steps; step++) {
+			for (int axis = 0; axis < 2; axis++) {
+				boolean alongX = axis == 0;
+				double d = alongX ? dx : dy;
+				if (d == 0) continue;
+
+				double hx = x[i] + width[i] * hitX[i], hy = y[i] + height[i] * hitY[i];
+				double a0 = alongX ? hx : hy, a1 = a0 + (alongX ? w : h), b0 = alongX ? hy : hx, b1 = b0 + (alongX ? h : w);
+				if (a1 <= a0 || b1 <= b0) {
+					// A hitbox with no area never collides
+				} else {
+					if (onPlan) d = alongX ? planX[i] : planY[i];
+					else if (solidVsStatic) d = Dynamic.sweepTiles(map, a0, a1, b0, b1, d, alongX, "Crowd member");
+					double unblocked = d;
+					if (solidVsDynamic) d = sweepMembers(a0, a1, b0, b1, d, alongX, i);
+					if (checkDynamics) d = sweepDynamics(a0, a1, b0, b1, d, alongX);
+					onPlan &= d == unblocked; // Once stopped short, the rest of the plan was made from somewhere the member isn't
+				}
+				if (alongX) x[i] += d;
+				else y[i] += d;
+			}
+		}
+	}
+
+	/**
+	 * Returns how far the box can move along one axis, up to the given distance, before it runs into a member of the store that is solid against other
+	 * entities. Used by Dynamics to collide with the crowd. The box is given the way Dynamic.sweepTiles() takes it.
+	 *
+	 * @param a0     The near edge of the box along the axis being moved along
+	 * @param a1     The far edge of the box along the axis being moved along
+	 * @param b0     The near edge of the box across the axis being moved along
+	 * @param b1     The far edge of the box across the axis being moved along
+	 * @param d      The distance to move, which is negative for left or up
+	 * @param alongX True to move along the x axis, false for the y axis
+	 */
+	public double sweep(double a0, double a1, double b0, double b1, double d, boolean alongX) {
+		if (gridDirty) buildGrid();
+		return sweepMembers(a0, a1, b0, b1, d, alongX, -1);
+	}
+
+	/**
+	 * Returns how far the box can move before it runs into a member solid against other entities, ignoring the member in slot skip.
+	 */
+	private double sweepMembers(double a0, double a1, double b0, double b1, double d, boolean alongX, int skip) {
+		if (size == 0) return d;
+
+		// The members whose hitboxes start in these cells are the only ones that could be in the way
+		double s0 = (d > 0) ? a1 : a0 + d, s1 = (d > 0) ? a1 + d : a0;
+		double x0 = alongX ? s0 : b0, x1 = alongX ? s1 : b1, y0 = alongX ? b0 : s0, y1 = alongX ? b1 : s1;
+		int cx0 = cell(x0 - maxHitWidth - gridSlack), cx1 = cell(x1 + gridSlack);
+		int cy0 = cell(y0 - maxHitHeight - gridSlack), cy1 = cell(y1 + gridSlack);
+
+		int mask = cellHead.length - 1;
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int cx = cx0; cx <= cx1; cx++) {
+				// A bucket may be looked at more than once if cells in the range hash to it, which only means checking its members twice
+				for (int j = cellHead[bucket(cx, cy, mask)]; j >= 0; j = cellNext[j]) {
+					if (j == skip || (flags[j] & SOLID_VS_DYNAMIC) == 0) continue;
+					double hx = x[j] + width[j] * hitX[j], hy = y[j] + height[j] * hitY[j];
+					double hw = width[j] * hitWidth[j], hh = height[j] * hitHeight[j];
+					if (alongX) d = Dynamic.sweepPast(a0, a1, b0, b1, d, hx, hx + hw, hy, hy + hh);
+					else d = Dynamic.sweepPast(a0, a1, b0, b1, d, hy, hy + hh, hx, hx + hw);
+				}
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Returns how far the box can move before it runs into one of the solid Dynamics found by collide().
+	 */
+	private static double sweepDynamics(double a0, double a1, double b0, double b1, double d, boolean alongX) {
+		for (int k = 0, n = nearby.size(); k < n; k++) {
+			Dynamic e = nearby.get(k);
+			if (!e.solidVsDynamic) continue;
+			double e0 = alongX ? e.hitboxX() : e.hitboxY(), e1 = e0 + (alongX ? e.hitboxWidth() : e.hitboxHeight());
+			double f0 = alongX ? e.hitboxY() : e.hitboxX(), f1 = f0 + (alongX ? e.hitboxHeight() : e.hitboxWidth());
+			d = Dynamic.sweepPast(a0, a1, b0, b1, d, e0, e1, f0, f1);
+		}
+		return d;
+	}
+
+	/**
+	 * Files every member under the cell its hitbox's top left corner is in. Cells are hashed into about twice as many buckets as there are members.
+	 */
+	private void buildGrid() {
+		int numBuckets = Integer.highestOneBit(Math.max(256, size) * 2 - 1);
+		if (cellHead.length != numBuckets) cellHead = new int[numBuckets];
+		Arrays.fill(cellHead, -1);
+		int mask = numBuckets - 1;
+		maxHitWidth = 0;
+		maxHitHeight = 0;
+		for (int i = 0; i < size; i++) {
+			int b = bucket(cell(x[i] + width[i] * hitX[i]), cell(y[i] + height[i] * hitY[i]), mask);
+			cellNext[i] = cellHead[b];
+			cellHead[b] = i;
+			maxHitWidth = Math.max(maxHitWidth, width[i] * hitWidth[i]);
+			maxHitHeight = Math.max(maxHitHeight, height[i] * hitHeight[i]);
+		}
+		gridDirty = false;
+		gridSlack = 0;
+	}
+
+	/**
+	 * Returns the one tile cell that the given coordinate is in.
+	 */
+	private static int cell(double coordinate) { return (int) Math.floor(coordinate); }
+
+	/**
+	 * Returns the bucket that the cell (cx, cy) hashes to.
+	 */
+	private static int bucket(int cx, int cy, int mask) { return (cx * 0x9E3779B1 ^ cy * 0x85EBCA77) >>> 8 & mask; }
+
+	/**
+	 * Makes the visible list hold exactly the members within the given window of tiles, padded by one tile, sorted by their feet. Works like RenderQueue,
+	 * keeping the order from the last frame and fixing it up with an insertion sort.
+	 *
+	 * @param tx0 The leftmost visible column of tiles
+	 * @param ty0 The topmost visible row of tiles
+	 * @param tx1 The column of tiles just past the rightmost visible one
+	 * @param ty1 The row of tiles just past the bottommost visible one
+	 */
+	public void updateVisible(int tx0, int ty0, int tx1, int ty1) {
+		// Mark the visible members, and set aside the ones that weren't in the list last frame
+		int seen = ++frame, numArrived = 0;
+		for (int i = 0; i < size; i++) {
+			if (x[i] + width[i] < tx0 - 1 || y[i] + height[i] < ty0 - 1 || x[i] > tx1 + 1 || y[i] > ty1 + 1) continue;
+			seenFrame[i] = seen;
+			if (queuedFrame[i] >= seen - 1) continue; // Already in the list
+			queuedFrame[i] = seen;
+			if (numArrived == arrived.length) arrived = Arrays.copyOf(arrived, numArrived * 2);
+			arrived[numArrived++] = handles[i];
+		}
+
+		// Keep the members that are still visible where they were, then add the ones that have just come into view
+		int kept = 0;
+		for (int k = 0; k < numVisible; k++) {
+			int handle = visible[k];
+			if (!isAlive(handle)) continue;
+			int i = slotOf[handle & INDEX_MASK];
+			if (seenFrame[i] != seen) continue;
+			queuedFrame[i] = seen;
+			visible[kept++] = handle;
+		}
+		numVisible = kept + numArrived;
+		if (visible.length < numVisible) {
+			visible = Arrays.copyOf(visible, Math.max(numVisible, visible.length * 2));
+			visibleKeys = Arrays.copyOf(visibleKeys, visible.length);
+		}
+		System.arraycopy(arrived, 0, visible, kept, numArrived);
+
+		// Insertion sort by the y-value at their feet
+		for (int k = 0; k < numVisible; k++) {
+			int i = slotOf[visible[k] & INDEX_MASK];
+			visibleKeys[k] = y[i] + height[i];
+		}
+		for (int k = 1; k < numVisible; k++) {
+			double key = visibleKeys[k];
+			if (visibleKeys[k - 1] <= key) continue;
+			int handle = visible[k], j = k - 1;
+			for (; j >= 0 && visibleKeys[j] > key; j--) {
+				visibleKeys[j + 1] = visibleKeys[j];
+				visible[j + 1] = visible[j];
+			}
+			visibleKeys[j + 1] = key;
+			visible[j + 1] = handle;
+		}
+	}
+
+	/**
+	 * Returns the number of members found visible by the last updateVisible().
+	 */
+	public int numVisible() { return numVisible; }
+
+	/**
+	 * Returns the y-value at the feet of the visible member that should be drawn in the given place, where 0 is drawn first.
+	 */
+	public double visibleKey(int k) { return visibleKeys[k]; }
+
+	/**
+	 * Records the visible member that should be drawn in the given place, where 0 is drawn first, into the given state.
+	 */
+	public void snapshot(int k, EntityState s) {
+		int i = slotOf[visible[k] & INDEX_MASK];
+		s.set(x[i], y[i], lastX[i], lastY[i], width[i], height[i]);
+		int row = ((flags[i] & MOVING) != 0) ? WALK_ROWS[(int) (Clock.since(animStart[i]) / FRAME_TIME) % WALK_ROWS.length] : WALK_ROWS[0];
+		s.sprite = frame(sheet[i], facing[i], row);
+		if (Entity.showHitboxes) s.outline(new fRect(x[i] + width[i] * hitX[i], y[i] + height[i] * hitY[i], width[i] * hitWidth[i],
+				height[i] * hitHeight[i]));
+	}
+
+	/**
+	 * Returns a frame of a character sprite sheet, cropping every frame the first time one is asked for so that members share them.
+	 */
+	private static Sprite frame(int sheet, int facing, int row) {
+		if (frames == null) {
+			Sprite[][][] cropped = new Sprite[SHEETS.length][FACINGS.length][3];
+			for (int s = 0; s < SHEETS.length; s++) {
+				Sprite spritesheet = AssetManager.getCharacterSpriteSheet(SHEETS[s]);
+				for (int f = 0; f < FACINGS.length; f++) {
+					for (int r = 0; r < 3; r++)
+						cropped[s][f][r] = (spritesheet == null) ? null : spritesheet.crop(FACING_COLUMNS[f], r, 1, 1);
+				}
+			}
+			frames = cropped;
+		}
+		return frames[sheet][facing][row];
+	}
+
+}
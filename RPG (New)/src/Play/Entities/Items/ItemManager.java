@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+
 public class ItemManager {
 
 	public static enum Items { MONEY, HEALTH, APPLE, ORANGE }
@@ -36,7 +39,7 @@ public class ItemManager {
 	public static Items getItemID(int index) {
 		if (index >= 0 && index < inventory.size()) return inventory.get(index).item;
 		else {
-			System.out.println("Invalid index! The inventory is not that big!");
+			Diagnostics.warn(Category.ITEMS, "Invalid index! The inventory is not that big!");
 			return null;
 		}
 	}
@@ -50,7 +53,7 @@ public class ItemManager {
 	public static int getAmount(int index) {
 		if (index >= 0 && index < inventory.size()) return inventory.get(index).amount;
 		else {
-			System.out.println("Invalid index! The inventory is not that big!");
+			Diagnostics.warn(Category.ITEMS, "Invalid index! The inventory is not that big!");
 			return -1;
 		}
 	}
@@ -66,7 +69,7 @@ public class ItemManager {
 
 		// Validate arguments
 		if (item == null || amount <= 0) {
-			System.out.println("Either the given item is null, or the amount is less than or equal to zero!");
+			Diagnostics.warn(Category.ITEMS, "Either the given item is null, or the amount is less than or equal to zero!");
 			return 0;
 		}
 
@@ -88,7 +91,7 @@ public class ItemManager {
 
 		// Check to see if there's room to create a new slot, since an existing one hasn't been found
 		if (size >= MAX_NUM_SLOTS) {
-			System.out.println("Inventory full! Could not give item (" + item + ", " + amount + ").");
+			Diagnostics.warn(Category.ITEMS, "Inventory full! Could not give item (" + item + ", " + amount + ").");
 			return 0;
 		} else {
 			// If the amount exceeds the max amount of room per slot, fill a new slot and then try to fill another in a second call.
@@ -118,7 +121,7 @@ public class ItemManager {
 
 		// Validate arguments
 		if (item == null || amount < 1) {
-			System.out.println("Either the item is null, or the amount is less than 1!");
+			Diagnostics.warn(Category.ITEMS, "Either the item is null, or the amount is less than 1!");
 			return false;
 		}
 
@@ -144,10 +147,10 @@ public class ItemManager {
 
 		// Validate arguments
 		if (item == null || amount <= 0) {
-			System.out.println("Either item is null, or the amount to remove is not less than 1!");
+			Diagnostics.warn(Category.ITEMS, "Either item is null, or the amount to remove is not less than 1!");
 			return 0;
 		} else if (!hasItem(item, amount)) {
-			System.out.println("Inventory does not have enough items to remove the requested amount!");
+			Diagnostics.warn(Category.ITEMS, "Inventory does not have enough items to remove the requested amount!");
 			return 0;
 		}
 
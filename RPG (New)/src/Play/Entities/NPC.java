@@ -1,27 +1,29 @@
 package Play.Entities;
 
-import java.awt.Graphics;
-
 import Engine.AssetManager.CharacterSprites;
 import Engine.Game;
+import Engine.Tools.ConstVec2;
 import Engine.Tools.Vec2;
 import Engine.Tools.fRect;
 import Play.LootTable;
+import Play.Maps.FlowField;
 import Play.TheaterEngine.Commands.ShowDialogCommand;
 import Play.TheaterEngine.Commands.TheaterEngine;
 
 public class NPC extends Creature {
 
-	public static final Vec2 SIZE = new Vec2(0.9, 0.9);
+	public static final ConstVec2 SIZE = new ConstVec2(0.9, 0.9);
 
 	private LootTable<String> textOptions;
+	private FlowField following; // The flow field this NPC walks along, or null if it only moves when told to
+	private double followSpeed; // How fast it walks along the flow field in tiles per millisecond
 
 	public NPC(Game game, String name, CharacterSprites spriteName, Vec2 pos) {
 		super(game, name, spriteName, pos);
 		this.textOptions = new LootTable<String>().add("I AM ERROR", 1);
 		relativeHitbox = new fRect(0, 0.5, 1, 0.5);
-		size = SIZE;
-		this.pos = new Vec2(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
+		setSize(SIZE.x, SIZE.y);
+		setPos(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
 	}
 
 	public void onInteract(Entity e) {
@@ -41,24 +43,37 @@ public class NPC extends Creature {
 					changeAnimation("Left");
 					break;
 			}
-			v = new Vec2(0, 0);
+			v.set(0, 0);
 			TheaterEngine.add(new ShowDialogCommand(game, textOptions.get()));
 		}
 	}
 
+	/**
+	 * Steers along the flow field being followed, if there is one, then sets the animation to match.
+	 */
+	public void plan(double deltaTime) {
+		if (following != null) following.steer(this, followSpeed * deltaTime);
+		super.plan(deltaTime);
+	}
+
 	public void tick(double deltaTime) {
 
 		super.tick(deltaTime);
 
 	}
 
-	public void render(Graphics g, int ox, int oy) {
-
-		if (isOnScreen()) {
-			super.render(g, ox, oy);
-			// worldToScreen(interactableRegion()).draw(g, Color.white);
-		}
-
+	/**
+	 * Has this NPC walk along the given flow field towards its goal every tick, stopping once it is there, or stop following one if it is null. Then
+	 * returns the NPC.
+	 *
+	 * @param field The flow field to follow, i.e. the one from TileMap.flowField() for whatever the NPC should head for
+	 * @param speed How fast to walk in tiles per millisecond
+	 */
+	public NPC follow(FlowField field, double speed) {
+		following = field;
+		followSpeed = speed;
+		if (field == null) v.set(0, 0);
+		return this;
 	}
 
 	/**
@@ -1,6 +1,5 @@
 package Play.Entities;
 
-import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 
 import Engine.Game;
@@ -14,6 +13,13 @@ import Play.TheaterEngine.Commands.TheaterEngine;
 
 public class Player extends Creature {
 
+	private fRect interactArea; // Where the player is trying to interact, while looking for what to interact with
+	private final SpatialGrid.Filter canInteractWith = new SpatialGrid.Filter() { // Accepts the entities whose interactable region is in interactArea
+
+		public boolean accept(Dynamic e) { return e != Player.this && interactArea.intersects(e.interactableRegion()); }
+
+	};
+
 	/**
 	 * @param game An instance of the game object
 	 * @param x    The initial x coordinate in the world
@@ -23,13 +29,16 @@ public class Player extends Creature {
 		super(game, "Player", CharacterSprites.SQUIRTLE, pos);
 
 		// Set player defaults
-		size = NPC.SIZE;
-		this.pos = new Vec2(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
+		setSize(NPC.SIZE.x, NPC.SIZE.y);
+		setPos(pos.x + (1 - size.x) / 2, pos.y + (1 - size.y) / 2);
 		relativeHitbox = new fRect(4.0 / 16, 11.0 / 16, 8.0 / 16, 5.0 / 16);
 
 	}
 
-	public void tick(double deltaTime) {
+	/**
+	 * Sets the velocity from the keys held down, then the animation to match.
+	 */
+	public void plan(double deltaTime) {
 
 		// Handle input if theater not happening, otherwise zero velocity
 		if (!TheaterEngine.hasCommand()) {
@@ -42,43 +51,35 @@ public class Player extends Creature {
 			else if (game.keyDown('d') && !game.keyDown('a')) v.x = 0.01 * deltaTime;
 			else v.x = 0;
 
-		} else if (!TheaterEngine.hasControl(this)) v = new Vec2(0, 0);
+		} else if (!TheaterEngine.hasControl(this)) v.set(0, 0);
+
+		// Handle animations
+		super.plan(deltaTime);
+	}
 
-		// Handle collisions and animations
+	public void tick(double deltaTime) {
+
+		// Handle collisions
 		super.tick(deltaTime);
 
-		// Check interactions
+		// Check interactions with the closest entity in front of the player
 		if (game.keyUp(KeyEvent.VK_ENTER) && !TheaterEngine.hasCommand()) {
-			for (Dynamic e : PlayState.entities) {
-				if (e != this && interactArea().intersects(e.interactableRegion())) {
-					// Do whatever to the entity
-					e.onInteract(this);
-
-					// Check map, then check quests
-					boolean breakLoop = false;
-					if (PlayState.map.onInteract(e)) breakLoop = true;
-
-					for (Quest q : QuestManager.currentQuestList) {
-						if (q.onInteract(e)) {
-							breakLoop = true;
-							break;
-						}
-					}
-					if (breakLoop) break;
+			interactArea = interactArea();
+			Dynamic e = PlayState.spatialGrid.nearest(interactArea.x + interactArea.width / 2, interactArea.y + interactArea.height / 2,
+					Math.hypot(interactArea.width, interactArea.height) / 2, canInteractWith);
+			if (e != null) {
+				// Do whatever to the entity
+				e.onInteract(this);
+
+				// Check map, then check quests
+				PlayState.map.onInteract(e);
+				for (Quest q : QuestManager.currentQuestList) {
+					if (q.onInteract(e)) break;
 				}
 			}
 		}
 	}
 
-	public void render(Graphics g, int ox, int oy) {
-
-		super.render(g, ox, oy);
-		if (isOnScreen()) {
-			// worldToScreen(interactArea()).draw(g, Color.white);
-		}
-
-	}
-
 	/**
 	 * Returns a Rectangle representing where the Player's interaction zone is, outside of the player body, in world coordinates.
 	 */
@@ -0,0 +1,94 @@
+package Play.Entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The entities that are visible, in the order they should be drawn: by the y-value at their feet, so that entities further down the screen are drawn over
+ * those above them. Only entities in the visible window are ever sorted, and the order from the last frame is kept and fixed up rather than sorted from
+ * scratch. Entities only move a little between frames, so the queue is nearly sorted already and an insertion sort puts it right in close to linear time.
+ *
+ * Entities that stay visible keep their place, new ones are added at the end and sorted into place, and ones that have left the window or the list of
+ * entities are dropped. Entities with their feet at the same y-value stay in the order they were in, like they would with a stable sort. Entities keep
+ * the marks that say whether they are queued themselves, so an entity may only be in one RenderQueue. For the game thread only.
+ */
+public class RenderQueue {
+
+	private final ArrayList<Dynamic> queue = new ArrayList<Dynamic>(); // The visible entities in draw order
+	private final ArrayList<Dynamic> arrived = new ArrayList<Dynamic>(); // Reused list of the entities that have come into view this frame
+	private double[] keys = new double[64]; // The y-value at the feet of each entity in the queue, in the same order, while sorting
+	private int frame = 0; // Incremented by each update() to mark the entities it has found to be visible
+
+	/**
+	 * Makes the queue hold exactly the entities in the list that are within the given window of tiles, padded by one tile, sorted by their feet.
+	 *
+	 * @param entities Every entity that could be drawn
+	 * @param tx0      The leftmost visible column of tiles
+	 * @param ty0      The topmost visible row of tiles
+	 * @param tx1      The column of tiles just past the rightmost visible one
+	 * @param ty1      The row of tiles just past the bottommost visible one
+	 */
+	public void update(ArrayList<Dynamic> entities, int tx0, int ty0, int tx1, int ty1) {
+		// Mark the visible entities, and set aside the ones that weren't in the queue last frame
+		int seen = ++frame;
+		arrived.clear();
+		for (int i = 0, n = entities.size(); i < n; i++) {
+			Dynamic e = entities.get(i);
+			if (e.pos.x + e.size.x < tx0 - 1 || e.pos.y + e.size.y < ty0 - 1 || e.pos.x > tx1 + 1 || e.pos.y > ty1 + 1) continue;
+			e.renderFrame = seen;
+			if (e.queuedFrame >= seen - 1) continue; // Already in the queue, or already set aside
+			e.queuedFrame = seen;
+			arrived.add(e);
+		}
+
+		// Keep the entities that are still visible where they were, then add the ones that have just come into view
+		int kept = 0;
+		for (int i = 0, n = queue.size(); i < n; i++) {
+			Dynamic e = queue.get(i);
+			if (e.renderFrame != seen) continue;
+			e.queuedFrame = seen;
+			queue.set(kept++, e);
+		}
+		for (int i = queue.size() - 1; i >= kept; i--)
+			queue.remove(i);
+		queue.addAll(arrived);
+
+		sort();
+	}
+
+	/**
+	 * Insertion sorts the queue by the y-value at each entity's feet, which takes a single pass when nothing has moved past anything else.
+	 */
+	private void sort() {
+		int n = queue.size();
+		if (keys.length < n) keys = Arrays.copyOf(keys, Math.max(n, keys.length * 2));
+		for (int i = 0; i < n; i++) {
+			Dynamic e = queue.get(i);
+			keys[i] = e.pos.y + e.size.y;
+		}
+
+		for (int i = 1; i < n; i++) {
+			double key = keys[i];
+			if (keys[i - 1] <= key) continue;
+			Dynamic e = queue.get(i);
+			int j = i - 1;
+			for (; j >= 0 && keys[j] > key; j--) {
+				keys[j + 1] = keys[j];
+				queue.set(j + 1, queue.get(j));
+			}
+			keys[j + 1] = key;
+			queue.set(j + 1, e);
+		}
+	}
+
+	/**
+	 * Returns the number of entities in the queue.
+	 */
+	public int size() { return queue.size(); }
+
+	/**
+	 * Returns the entity that should be drawn in the given place, where 0 is drawn first.
+	 */
+	public Dynamic get(int i) { return queue.get(i); }
+
+}
@@ -0,0 +1,199 @@
+package Play.Entities;
+
+import java.util.ArrayList;
+
+/**
+ * A broadphase for finding the Dynamics near a point or rectangle without looking at every entity on the map. The world is divided into square cells of
+ * CELL_SIZE tiles, and each entity is kept in every cell that its bounds touch: the smallest box holding its position and size, its hitbox and its
+ * interactable region. Cells are hashed into a fixed number of buckets, so the grid doesn't depend on the size of the map and entities off the edge of it
+ * still work. Entities in other cells that hash to the same bucket, and entities whose bounds overlap a query but whose hitboxes don't, are returned too,
+ * so callers still do their own exact test on what comes back.
+ *
+ * Entities are re-bucketed by update(), and only when the range of cells they touch changes, which for an entity walking around is once every few ticks.
+ * PlayState calls updateAll() before entities tick, to pick up entities that were added, removed or moved by the TheaterEngine, and update() after each
+ * entity ticks. Queries don't allocate, and neither do updates once the buckets have grown to fit. Everything here is for the game thread only, and a query
+ * may not be started while another is being used, i.e. from inside a Filter.
+ */
+public class SpatialGrid {
+
+	public static final double CELL_SIZE = 2; // The width and height of a cell in tiles
+	private static final int NUM_BUCKETS = 1024; // The number of buckets that cells are hashed into, which is a power of two
+
+	private final ArrayList<ArrayList<Dynamic>> buckets = new ArrayList<ArrayList<Dynamic>>(NUM_BUCKETS); // The entities in each bucket
+	private final ArrayList<Dynamic> indexed = new ArrayList<Dynamic>(); // Every entity in the grid
+	private int stamp = 0; // Incremented by each updateAll() and query to mark the entities it has seen
+
+	/**
+	 * Decides whether an entity should be returned by nearest().
+	 */
+	public interface Filter {
+
+		public boolean accept(Dynamic e);
+
+	}
+
+	public SpatialGrid() {
+		for (int i = 0; i < NUM_BUCKETS; i++)
+			buckets.add(new ArrayList<Dynamic>());
+	}
+
+	/**
+	 * Makes the grid hold exactly the given entities at their current positions, adding and removing entities as needed.
+	 *
+	 * @param entities Every entity that should be in the grid
+	 */
+	public void updateAll(ArrayList<Dynamic> entities) {
+		int seen = ++stamp;
+		for (int i = 0, n = entities.size(); i < n; i++) {
+			Dynamic e = entities.get(i);
+			e.gridStamp = seen;
+			update(e);
+		}
+
+		// Remove the entities that weren't in the list
+		for (int i = indexed.size() - 1; i >= 0; i--) {
+			Dynamic e = indexed.get(i);
+			if (e.gridStamp == seen) continue;
+			remove(e);
+		}
+	}
+
+	/**
+	 * Adds the entity to the grid if it isn't in it, or moves it to the cells its bounds touch now if they have changed.
+	 */
+	public void update(Dynamic e) {
+		double x0 = e.boundsMinX(), y0 = e.boundsMinY(), x1 = e.boundsMaxX(), y1 = e.boundsMaxY();
+		int cx0 = cell(x0), cy0 = cell(y0), cx1 = cell(x1), cy1 = cell(y1);
+		if (e.grid == this) {
+			if (cx0 == e.gridX0 && cy0 == e.gridY0 && cx1 == e.gridX1 && cy1 == e.gridY1) return;
+			unlink(e);
+		} else {
+			if (e.grid != null) e.grid.remove(e);
+			e.grid = this;
+			indexed.add(e);
+		}
+		e.gridX0 = cx0;
+		e.gridY0 = cy0;
+		e.gridX1 = cx1;
+		e.gridY1 = cy1;
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int cx = cx0; cx <= cx1; cx++) {
+				ArrayList<Dynamic> bucket = bucket(cx, cy);
+				if (!bucket.contains(e)) bucket.add(e);
+			}
+		}
+	}
+
+	/**
+	 * Removes the entity from the grid if it is in it.
+	 */
+	public void remove(Dynamic e) {
+		if (e.grid != this) return;
+		unlink(e);
+		indexed.remove(e);
+		e.grid = null;
+	}
+
+	/**
+	 * Removes every entity from the grid.
+	 */
+	public void clear() {
+		for (int i = indexed.size() - 1; i >= 0; i--)
+			remove(indexed.get(i));
+	}
+
+	/**
+	 * Takes the entity out of the buckets of the cells it was last put in.
+	 */
+	private void unlink(Dynamic e) {
+		for (int cy = e.gridY0; cy <= e.gridY1; cy++) {
+			for (int cx = e.gridX0; cx <= e.gridX1; cx++) {
+				ArrayList<Dynamic> bucket = bucket(cx, cy);
+				int i = bucket.indexOf(e);
+				if (i < 0) continue; // Already taken out of this bucket for another cell that hashes to it
+				bucket.set(i, bucket.get(bucket.size() - 1));
+				bucket.remove(bucket.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Fills result with every entity whose bounds overlap the given rectangle, each once and in no particular order. The list is cleared first.
+	 *
+	 * @param x      The left edge of the rectangle in tiles
+	 * @param y      The top edge of the rectangle in tiles
+	 * @param width  The width of the rectangle in tiles
+	 * @param height The height of the rectangle in tiles
+	 * @param result The list to fill, which is reused between queries so that they don't allocate
+	 */
+	public void query(double x, double y, double width, double height, ArrayList<Dynamic> result) {
+		result.clear();
+		int seen = ++stamp;
+		double x1 = x + width, y1 = y + height;
+		for (int cy = cell(y), cy1 = cell(y1); cy <= cy1; cy++) {
+			for (int cx = cell(x), cx1 = cell(x1); cx <= cx1; cx++) {
+				ArrayList<Dynamic> bucket = bucket(cx, cy);
+				for (int i = 0, n = bucket.size(); i < n; i++) {
+					Dynamic e = bucket.get(i);
+					if (e.queryStamp == seen) continue;
+					e.queryStamp = seen;
+					if (e.boundsMaxX() >= x && e.boundsMinX() <= x1 && e.boundsMaxY() >= y && e.boundsMinY() <= y1) result.add(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the entity whose bounds are closest to (x, y) out of those within maxDistance of it that the filter accepts, or null if there aren't any.
+	 * Entities whose bounds both hold the point are told apart by how close their centers are.
+	 *
+	 * @param x           The x coordinate of the point in tiles
+	 * @param y           The y coordinate of the point in tiles
+	 * @param maxDistance The furthest an entity's bounds can be from the point
+	 * @param filter      Which entities may be returned, or null for any of them
+	 */
+	public Dynamic nearest(double x, double y, double maxDistance, Filter filter) {
+		int seen = ++stamp;
+		Dynamic best = null;
+		double bestDistance = maxDistance * maxDistance, bestCenterDistance = Double.MAX_VALUE;
+		for (int cy = cell(y - maxDistance), cy1 = cell(y + maxDistance); cy <= cy1; cy++) {
+			for (int cx = cell(x - maxDistance), cx1 = cell(x + maxDistance); cx <= cx1; cx++) {
+				ArrayList<Dynamic> bucket = bucket(cx, cy);
+				for (int i = 0, n = bucket.size(); i < n; i++) {
+					Dynamic e = bucket.get(i);
+					if (e.queryStamp == seen) continue;
+					e.queryStamp = seen;
+					double dx = Math.max(0, Math.max(e.boundsMinX() - x, x - e.boundsMaxX()));
+					double dy = Math.max(0, Math.max(e.boundsMinY() - y, y - e.boundsMaxY()));
+					double distance = dx * dx + dy * dy;
+					if (distance > bestDistance) continue;
+
+					double ex = e.pos.x + 0.5 * e.size.x - x, ey = e.pos.y + 0.5 * e.size.y - y;
+					double centerDistance = ex * ex + ey * ey;
+					if ((distance < bestDistance || centerDistance < bestCenterDistance) && (filter == null || filter.accept(e))) {
+						best = e;
+						bestDistance = distance;
+						bestCenterDistance = centerDistance;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the number of entities in the grid.
+	 */
+	public int size() { return indexed.size(); }
+
+	/**
+	 * Returns the cell that the given coordinate is in.
+	 */
+	private static int cell(double coordinate) { return (int) Math.floor(coordinate / CELL_SIZE); }
+
+	/**
+	 * Returns the bucket that the cell (cx, cy) hashes to.
+	 */
+	private ArrayList<Dynamic> bucket(int cx, int cy) { return buckets.get((cx * 0x9E3779B1 ^ cy * 0x85EBCA77) >>> 16 & (NUM_BUCKETS - 1)); }
+
+}
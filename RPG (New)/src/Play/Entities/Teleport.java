@@ -54,4 +54,9 @@ public class Teleport extends Trigger {
 		this(game, runOnInteract, name, newPos);
 		newMapName = mapName;
 	}
+
+	/**
+	 * Returns the name of the map this teleport leads to, or null if it stays on the same map.
+	 */
+	public Maps getNewMapName() { return newMapName; }
 }
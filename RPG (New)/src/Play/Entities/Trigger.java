@@ -1,11 +1,11 @@
 package Play.Entities;
 
-import java.awt.Color;
-import java.awt.Graphics;
+import java.util.ArrayList;
 
 import Engine.Game;
 import Engine.Tools.Function;
 import Play.PlayState;
+import Play.WorldSnapshot.EntityState;
 import Play.TheaterEngine.Commands.TheaterEngine;
 
 public class Trigger extends Dynamic {
@@ -20,6 +20,8 @@ public class Trigger extends Dynamic {
 	protected boolean shouldBeDrawn = false; // Whether or not this trigger should be drawn on screen
 	protected boolean wasInteractedWith = false; // Whether or not this trigger has been interacted with
 
+	private static final ArrayList<Dynamic> touching = new ArrayList<Dynamic>(); // Reused list of the entities found on top of a trigger
+
 	/**
 	 * @param game            The instance of the Game object
 	 * @param name            The name of the trigger (for identification purposes)
@@ -62,10 +64,12 @@ public class Trigger extends Dynamic {
 	public void tick(double deltaTime) {
 		// Trigger runs upon collision with the player if TheaterEngine not in control.
 		if (!runOnInteract && !TheaterEngine.hasCommand()) {
-			for (Dynamic e : PlayState.entities) {
+			PlayState.spatialGrid.query(hitboxX(), hitboxY(), hitboxWidth(), hitboxHeight(), touching);
+			for (int i = 0, n = touching.size(); i < n; i++) {
+				Dynamic e = touching.get(i);
 				if (e == this || !(e instanceof Player)) continue;
 				Player p = (Player) e;
-				if (!p.hitbox().intersects(hitbox())) continue;
+				if (!p.hitboxIntersects(this)) continue;
 				switch (triggerType) {
 					case ONCE:
 						if (active) {
@@ -83,7 +87,10 @@ public class Trigger extends Dynamic {
 		}
 	}
 
-	public void render(Graphics g, int ox, int oy) { if (shouldBeDrawn && active) worldToScreen(hitbox()).draw(g, Color.white); }
+	public void snapshot(EntityState s) {
+		super.snapshot(s);
+		if (shouldBeDrawn && active) s.outline(hitbox());
+	}
 
 	/**
 	 * Sets whether or not the Trigger's hitbox should be drawn or not, then returns the Trigger.
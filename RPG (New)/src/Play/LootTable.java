@@ -2,6 +2,9 @@ package Play;
 
 import java.util.ArrayList;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+
 public class LootTable<T> {
 
 	private ArrayList<Row> table = new ArrayList<Row>(); // The table holding each row
@@ -29,12 +32,12 @@ public class LootTable<T> {
 	public LootTable<T> add(T item, double weight) {
 
 		if (weight <= 0) {
-			System.out.println("The weight of the item (" + item + ") must be greater than zero!");
+			Diagnostics.warn(Category.LOOT, "The weight of the item (" + item + ") must be greater than zero!");
 			return this;
 		}
 
 		if (contains(item)) {
-			System.out.println("This loot table already contains this item!");
+			Diagnostics.warn(Category.LOOT, "This loot table already contains this item!");
 			return this;
 		}
 
@@ -62,7 +65,7 @@ public class LootTable<T> {
 			for (int i = 0; i < min; i++) {
 				add(items[i], weights[i]);
 			}
-			System.out.println("Only added the first " + min + " items! Your arrays should be of equal lengths!");
+			Diagnostics.warn(Category.LOOT, "Only added the first " + min + " items! Your arrays should be of equal lengths!");
 		}
 
 		return this;
@@ -79,7 +82,7 @@ public class LootTable<T> {
 	public LootTable<T> set(T item, double weight) {
 
 		if (weight <= 0) {
-			System.out.println("The weight of the item (" + item + ") must be greater than zero!");
+			Diagnostics.warn(Category.LOOT, "The weight of the item (" + item + ") must be greater than zero!");
 			return this;
 		}
 
@@ -106,7 +109,7 @@ public class LootTable<T> {
 	public LootTable<T> remove(T item) {
 
 		if (!contains(item)) {
-			System.out.println("This loot table does not contain the item (" + item + ")!");
+			Diagnostics.warn(Category.LOOT, "This loot table does not contain the item (" + item + ")!");
 			return this;
 		}
 
@@ -0,0 +1,238 @@
+package Play.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import Engine.Tools;
+
+/**
+ * Reads and writes maps in the compact binary .rmap format, which holds exactly the same data as a text .map file:
+ *
+ * <pre>
+ * int     MAGIC ("RMAP")
+ * short   VERSION
+ * int     numWide, numTall, numLayers
+ * for each layer, in row-major order: runs of (varint length, zigzag varint tile id) until the layer is full
+ * byte[]  solid bitmap, one bit per tile in row-major order, least significant bit first
+ * </pre>
+ *
+ * Runs are used because most maps are large areas of the same tile (grass, water, or empty), so a whole row often takes only a couple of bytes.
+ * Run this class with a .map file or a folder of them to convert them to .rmap files next to the originals.
+ */
+public class BinaryMapFormat {
+
+	public static final String EXTENSION = ".rmap"; // The file extension of binary maps
+	public static final int MAGIC = 0x524D4150; // "RMAP" in ASCII
+	public static final short VERSION = 1; // The version written by this class, and the newest one it can read
+
+	/**
+	 * Converts the text map files given as arguments to binary ones next to them. A folder converts every .map file in it.
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: BinaryMapFormat <file.map | folder> ...");
+			return;
+		}
+		for (String arg : args) {
+			File file = new File(arg);
+			File[] files = file.isDirectory() ? file.listFiles() : new File[] { file };
+			Arrays.sort(files);
+			for (File f : files) {
+				if (f.getName().endsWith(".map")) convert(f);
+			}
+		}
+	}
+
+	/**
+	 * Converts the given text map file to a binary one with the same name next to it, and checks that the binary map loads back to the same data.
+	 */
+	private static void convert(File textFile) {
+		TileMap text = new TileMap(null, 1, 1);
+		text.load(textFile.getPath(), Tools.ResourceLoader.LOAD_FILE);
+
+		File binaryFile = new File(textFile.getPath().substring(0, textFile.getPath().length() - ".map".length()) + EXTENSION);
+		try {
+			OutputStream out = new FileOutputStream(binaryFile);
+			write(out, text);
+			out.close();
+		} catch (IOException e) {
+			System.out.println("Could not write " + binaryFile + ": " + e.getMessage());
+			return;
+		}
+
+		TileMap binary = new TileMap(null, 1, 1);
+		binary.load(binaryFile.getPath(), Tools.ResourceLoader.LOAD_FILE);
+		boolean same = text.getGrid().equals(binary.getGrid());
+		System.out.println(textFile.getName() + ": " + textFile.length() + " -> " + binaryFile.length() + " bytes" + (same ? "" : " (MISMATCH!)"));
+	}
+
+	/**
+	 * Writes the given map to the stream in the binary format. Doesn't close the stream. The map is read a tile at a time through getTile() and
+	 * isSolid(), so any map can be written, including a PagedTileMap.
+	 *
+	 * @param out The stream to write to
+	 * @param map The map to be written
+	 */
+	public static void write(OutputStream out, TileMap map) throws IOException {
+		int width = map.numWide(), height = map.numTall(), numLayers = map.numLayers();
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		data.writeInt(width);
+		data.writeInt(height);
+		data.writeInt(numLayers);
+
+		// Write each layer as runs of the same id, which carry on from one row onto the next
+		for (int z = 0; z < numLayers; z++) {
+			int runID = 0, runLength = 0;
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					int id = map.getTile(x, y, z);
+					if (runLength > 0 && id != runID) {
+						writeRun(data, runLength, runID);
+						runLength = 0;
+					}
+					runID = id;
+					runLength++;
+				}
+			}
+			if (runLength > 0) writeRun(data, runLength, runID);
+		}
+
+		// Write the solid bitmap
+		int bits = 0, i = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				if (map.isSolid(x, y)) bits |= 1 << (i & 7);
+				if ((i & 7) == 7) {
+					data.writeByte(bits);
+					bits = 0;
+				}
+			}
+		}
+		if ((i & 7) != 0) data.writeByte(bits);
+		data.flush();
+	}
+
+	/**
+	 * Writes the layers and solid bitmap of the grid, without its size.
+	 */
+	static void writeGrid(DataOutputStream data, TileGrid grid) throws IOException {
+		int numTiles = grid.width * grid.height;
+
+		// Write each layer as runs of the same id
+		for (int z = 0; z < grid.numLayers; z++) {
+			int runID = 0, runLength = 0;
+			for (int i = 0; i < numTiles; i++) {
+				int id = grid.getTile(z, i);
+				if (runLength > 0 && id != runID) {
+					writeRun(data, runLength, runID);
+					runLength = 0;
+				}
+				runID = id;
+				runLength++;
+			}
+			if (runLength > 0) writeRun(data, runLength, runID);
+		}
+
+		// Write the solid bitmap
+		int bits = 0;
+		for (int i = 0; i < numTiles; i++) {
+			if (grid.isSolid(i)) bits |= 1 << (i & 7);
+			if ((i & 7) == 7) {
+				data.writeByte(bits);
+				bits = 0;
+			}
+		}
+		if ((numTiles & 7) != 0) data.writeByte(bits);
+	}
+
+	/**
+	 * Reads a binary map from the buffer.
+	 *
+	 * @param buffer The contents of a binary map file
+	 * @return The tile ids and solid flags of the map
+	 * @throws IllegalArgumentException If the buffer isn't a binary map this version can read
+	 */
+	public static TileGrid read(ByteBuffer buffer) {
+		if (buffer.remaining() < 18 || buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a binary map file!");
+		short version = buffer.getShort();
+		if (version > VERSION) throw new IllegalArgumentException("Binary map version " + version + " is newer than this game can read!");
+
+		int numWide = buffer.getInt(), numTall = buffer.getInt(), numLayers = buffer.getInt();
+		TileGrid grid = new TileGrid(numWide, numTall, numLayers);
+		readGrid(buffer, grid);
+		return grid;
+	}
+
+	/**
+	 * Reads layers and a solid bitmap written by writeGrid() into a grid of the same size.
+	 */
+	static void readGrid(ByteBuffer buffer, TileGrid grid) {
+		int numTiles = grid.width * grid.height;
+
+		// Read each layer's runs, which may continue from one row onto the next
+		for (int z = 0; z < grid.numLayers; z++) {
+			for (int i = 0; i < numTiles;) {
+				int runLength = Math.min(readVarint(buffer), numTiles - i);
+				grid.fill(z, i, i + runLength, unzigzag(readVarint(buffer)));
+				i += runLength;
+			}
+		}
+
+		// Read the solid bitmap
+		int bits = 0;
+		for (int i = 0; i < numTiles; i++) {
+			if ((i & 7) == 0) bits = buffer.get();
+			if ((bits & (1 << (i & 7))) != 0) grid.setSolid(i, true);
+		}
+	}
+
+	/**
+	 * Writes a run of length tiles with the given id.
+	 */
+	private static void writeRun(DataOutputStream out, int length, int id) throws IOException {
+		writeVarint(out, length);
+		writeVarint(out, zigzag(id));
+	}
+
+	/**
+	 * Writes an unsigned value 7 bits at a time, least significant first, with the high bit of each byte set if more bytes follow.
+	 */
+	private static void writeVarint(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads a value written by writeVarint().
+	 */
+	private static int readVarint(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+	}
+
+	/**
+	 * Maps signed values to unsigned ones so that small negative numbers (i.e. -1 for empty tiles) stay small: 0, -1, 1, -2, ... become 0, 1, 2, 3, ...
+	 */
+	private static int zigzag(int n) { return (n << 1) ^ (n >> 31); }
+
+	/**
+	 * Undoes zigzag().
+	 */
+	private static int unzigzag(int n) { return (n >>> 1) ^ -(n & 1); }
+
+}
@@ -1,6 +1,7 @@
 package Play.Maps;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import Engine.AssetManager.CharacterSprites;
 import Engine.Game;
@@ -9,6 +10,7 @@ import Engine.Tools.Vec2;
 import Play.LootTable;
 import Play.Entities.Dynamic;
 import Play.Entities.Entity;
+import Play.Entities.EntityStore;
 import Play.Entities.NPC;
 import Play.Entities.Teleport;
 import Play.Entities.Trigger;
@@ -26,6 +28,15 @@ public class CoolIslandMap extends TileMap {
 
 	private static Trigger cueKillCutscene;
 
+	// The tiles that the wandering NPCs start on and the sprite sheets they are drawn with
+	private static final int[][] WANDERER_TILES = { { 20 , 18 } , { 27 , 20 } , { 14 , 24 } , { 33 , 24 } , { 22 , 36 } , { 30 , 37 } };
+	private static final CharacterSprites[] WANDERER_SPRITES = { CharacterSprites.BULBASAUR , CharacterSprites.PIKACHU , CharacterSprites.SQUIRTLE };
+	private static final int TURN_CHANCE = 90; // Each tick, every wanderer has a 1 in this chance of picking a new direction or stopping
+	private static final double WANDER_SPEED = 0.004; // How fast the wanderers walk in tiles per millisecond
+
+	private final ArrayList<EntityStore.View> wanderers = new ArrayList<EntityStore.View>(); // The wandering NPCs in the crowd
+	private Random random; // Picks where the wanderers go, seeded the same each time the map is switched to so that runs repeat
+
 	public CoolIslandMap(Game game) {
 		super(game, Maps.COOL_ISLAND);
 		QuestManager.setInitiator(Quests.PIKACHU_CORNER, sparky = new NPC(game, "Sparky", CharacterSprites.PIKACHU, new Vec2(19, 29)));
@@ -56,6 +67,41 @@ public class CoolIslandMap extends TileMap {
 		entities.add(cueKillCutscene);
 	}
 
+	public void populateCrowd(EntityStore crowd) {
+		wanderers.clear();
+		random = new Random(WANDERER_TILES.length);
+		for (int i = 0; i < WANDERER_TILES.length; i++) {
+			int tx = WANDERER_TILES[i][0], ty = WANDERER_TILES[i][1];
+			if (!isSolid(tx, ty)) wanderers.add(crowd.view(crowd.add(WANDERER_SPRITES[i % WANDERER_SPRITES.length], tx, ty)));
+		}
+	}
+
+	public void tick(double deltaTime) {
+		super.tick(deltaTime);
+
+		// Now and then, send each wanderer off in one of the four directions or stand it still
+		for (EntityStore.View w : wanderers) {
+			if (!w.isAlive() || random.nextInt(TURN_CHANCE) != 0) continue;
+			double speed = WANDER_SPEED * deltaTime;
+			switch (random.nextInt(5)) {
+				case 0:
+					w.setVel(0, -speed);
+					break;
+				case 1:
+					w.setVel(0, speed);
+					break;
+				case 2:
+					w.setVel(-speed, 0);
+					break;
+				case 3:
+					w.setVel(speed, 0);
+					break;
+				default:
+					w.setVel(0, 0);
+			}
+		}
+	}
+
 	public String getDialog(Entity e) {
 		if (e == sparky) {
 			return !QuestManager.completedQuest(Quests.PIKACHU_CORNER, false) ? "Hey, would you run to the top-left corner for me?"
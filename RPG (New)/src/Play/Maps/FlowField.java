@@ -0,0 +1,238 @@
+package Play.Maps;
+
+import java.util.Arrays;
+
+import Engine.Tools.Vec2;
+import Play.Entities.Dynamic;
+
+/**
+ * Which way to step from every tile near a goal to get to it the shortest way, shared by everything heading there. Where PathFinder finds one path for one
+ * entity, a flow field is found once for the goal and then any number of entities look up the tile they are on, so a crowd converging on the player, a
+ * door or a Teleport costs one search rather than one per entity. Steps can be diagonal, but only between tiles whose two shared neighbours are open too,
+ * like PathFinder's paths.
+ *
+ * The field covers the square of tiles within radius of the goal, and holds one byte per tile: the direction of the next tile, GOAL on the goal itself,
+ * or NONE where the goal can't be reached. It is found by Dijkstra's algorithm outwards from the goal, which is spread over as many update() calls as it
+ * takes to settle budget tiles at a time, so a moving goal never costs a long tick. The last finished field is kept and sampled in the meantime. A goal
+ * set while a field is being found waits for it to be finished rather than throwing it away, so however often the goal moves, the field sampled is never
+ * more than two fields behind it. A whole field of the default radius takes about 5 updates at the default budget. Each TileMap keeps its flow fields
+ * by what they lead to, and updates them as it ticks. For the game thread only.
+ *
+ * Usage: FlowField f = map.flowField(player); f.setGoal(playerTileX, playerTileY); ... f.steer(npc, speed);
+ */
+public class FlowField {
+
+	public static final byte NONE = -1, GOAL = 8; // The directions of tiles the goal can't be reached from, and of the goal itself
+	public static final int DEFAULT_RADIUS = 64; // The radius of the fields that TileMap makes
+	private static final int[] DX = { 1 , 1 , 0 , -1 , -1 , -1 , 0 , 1 }, DY = { 0 , 1 , 1 , 1 , 0 , -1 , -1 , -1 }; // The steps of each direction
+	private static final int STRAIGHT_COST = 5, DIAGONAL_COST = 7; // The costs of straight and diagonal steps, which are about 1 to sqrt(2)
+
+	public final int radius; // How far from the goal the field reaches, in tiles along either axis
+	public int budget = 4096; // The most tiles settled by each update()
+
+	private final TileMap map; // The map the field is on
+	private final int size; // The width and height of the square of tiles covered, which is 2 * radius + 1
+
+	// The last finished field, which is what is sampled
+	private byte[] directions; // The direction of each tile in the square, by (y - originY) * size + (x - originX)
+	private int originX, originY; // The top left tile of the square
+	private int goalX, goalY; // The goal it leads to
+	private boolean ready = false; // Whether a field has been finished yet
+
+	// The field being found
+	private byte[] pending; // The directions found so far
+	private int[] costs; // The cost of the cheapest way found so far from each tile to the goal
+	private long[] heap = new long[256]; // The tiles to settle, as their cost in the high bits and index in the low bits, in a binary min-heap
+	private int heapSize = 0;
+	private int pendingOriginX, pendingOriginY, pendingGoalX, pendingGoalY; // The square and goal of the field being found
+	private boolean searching = false; // Whether a field is being found
+	private int queuedGoalX, queuedGoalY; // The goal to find a field for once the one being found is done
+	private boolean queued = false; // Whether there is a goal waiting for the field being found to be done
+	private int version; // The solidVersion() of the map when the field being found, or the last finished one, was started
+
+	/**
+	 * @param map    The map the field is on
+	 * @param radius How far from the goal the field reaches, in tiles along either axis
+	 */
+	public FlowField(TileMap map, int radius) {
+		this.map = map;
+		this.radius = radius;
+		size = 2 * radius + 1;
+		directions = new byte[size * size];
+		pending = new byte[size * size];
+		costs = new int[size * size];
+	}
+
+	/**
+	 * Starts finding the field for the given goal tile, unless it is already the goal of the last field. If a field is being found, the new one is
+	 * started once that one is done instead, replacing any goal already waiting. The last finished field is still sampled until the new one is done.
+	 */
+	public void setGoal(int tx, int ty) {
+		if (searching) {
+			queued = tx != pendingGoalX || ty != pendingGoalY;
+			queuedGoalX = tx;
+			queuedGoalY = ty;
+		} else if (!ready || tx != goalX || ty != goalY) start(tx, ty);
+	}
+
+	/**
+	 * Settles up to budget more tiles of the field being found, swapping it in once it is done and then starting on the goal waiting, if there is one.
+	 * Starts over on the newest goal if the map's solid tiles have changed.
+	 */
+	public void update() {
+		if ((searching || ready) && map.solidVersion() != version) {
+			if (queued) start(queuedGoalX, queuedGoalY);
+			else start(searching ? pendingGoalX : goalX, searching ? pendingGoalY : goalY);
+		}
+		if (!searching) return;
+
+		for (int settled = 0; settled < budget && heapSize > 0; settled++) {
+			long top = pop();
+			int node = (int) top, cost = (int) (top >>> 32);
+			if (cost > costs[node]) continue; // Pushed again with a cheaper way since
+			int x = pendingOriginX + node % size, y = pendingOriginY + node / size;
+
+			// Point each open neighbour that is cheaper to reach by way of this tile back at it
+			for (int d = 0; d < 8; d++) {
+				int nx = x + DX[d], ny = y + DY[d];
+				int lx = nx - pendingOriginX, ly = ny - pendingOriginY;
+				if (lx < 0 || ly < 0 || lx >= size || ly >= size || !isOpen(nx, ny)) continue;
+				boolean diagonal = (d & 1) != 0;
+				if (diagonal && !(isOpen(nx, y) && isOpen(x, ny))) continue; // Can't squeeze past the corner
+				int neighbour = ly * size + lx, c = cost + (diagonal ? DIAGONAL_COST : STRAIGHT_COST);
+				if (c >= costs[neighbour]) continue;
+				costs[neighbour] = c;
+				pending[neighbour] = (byte) ((d + 4) & 7);
+				push(c, neighbour);
+			}
+		}
+
+		if (heapSize == 0) {
+			byte[] finished = pending;
+			pending = directions;
+			directions = finished;
+			originX = pendingOriginX;
+			originY = pendingOriginY;
+			goalX = pendingGoalX;
+			goalY = pendingGoalY;
+			ready = true;
+			searching = false;
+			if (queued) start(queuedGoalX, queuedGoalY);
+		}
+	}
+
+	/**
+	 * Finishes the field being found, and the one for the goal waiting if there is one, right away, however many updates they would take.
+	 */
+	public void finish() {
+		int budget = this.budget;
+		this.budget = Integer.MAX_VALUE;
+		do {
+			update();
+		} while (searching);
+		this.budget = budget;
+	}
+
+	/**
+	 * Throws away the field being found and starts finding the one for the given goal.
+	 */
+	private void start(int tx, int ty) {
+		pendingGoalX = tx;
+		pendingGoalY = ty;
+		pendingOriginX = tx - radius;
+		pendingOriginY = ty - radius;
+		version = map.solidVersion();
+		Arrays.fill(pending, NONE);
+		Arrays.fill(costs, Integer.MAX_VALUE);
+		heapSize = 0;
+		searching = true;
+		queued = false;
+		if (!isOpen(tx, ty)) return; // Leads nowhere, which the first update() finishes finding
+		int center = radius * size + radius;
+		costs[center] = 0;
+		pending[center] = GOAL;
+		push(0, center);
+	}
+
+	private boolean isOpen(int tx, int ty) { return map.inBounds(tx, ty) && !map.isSolid(tx, ty); }
+
+	/**
+	 * Returns true once a field has been finished, so that sampling it means anything.
+	 */
+	public boolean isReady() { return ready; }
+
+	public int goalX() { return goalX; }
+
+	public int goalY() { return goalY; }
+
+	/**
+	 * Returns the direction to step in from the given tile, as an index into the eight directions clockwise from right, or GOAL or NONE.
+	 */
+	public int direction(int tx, int ty) {
+		int lx = tx - originX, ly = ty - originY;
+		if (!ready || lx < 0 || ly < 0 || lx >= size || ly >= size) return NONE;
+		return directions[ly * size + lx];
+	}
+
+	/**
+	 * Sets result to the unit vector from (x, y) towards the center of the next tile on the way to the goal from the tile (x, y) is on, and returns true.
+	 * Aiming at the center of the next tile, rather than just in its direction, keeps whatever follows the field from snagging on corners. Sets result to
+	 * zero and returns false if (x, y) is on the goal or can't reach it.
+	 *
+	 * @param x      The x coordinate in tiles, i.e. of the center of an entity's hitbox
+	 * @param y      The y coordinate in tiles
+	 * @param result The vector to set
+	 */
+	public boolean steer(double x, double y, Vec2 result) {
+		int tx = (int) Math.floor(x), ty = (int) Math.floor(y);
+		int d = direction(tx, ty);
+		if (d < 0 || d == GOAL) {
+			result.set(0, 0);
+			return false;
+		}
+		result.set(tx + DX[d] + 0.5 - x, ty + DY[d] + 0.5 - y).normLocal();
+		return true;
+	}
+
+	/**
+	 * Sets the entity's velocity to the given speed along the field from the center of its hitbox, or to zero if it is on the goal or can't reach it.
+	 * Returns true if it was set moving. Only writes the entity, so entities can be steered from several threads at once while the field isn't updated.
+	 *
+	 * @param e     The entity to steer
+	 * @param speed The speed to move at in tiles per tick
+	 */
+	public boolean steer(Dynamic e, double speed) {
+		boolean moving = steer(e.hitboxX() + e.hitboxWidth() / 2, e.hitboxY() + e.hitboxHeight() / 2, e.v);
+		e.v.scaleLocal(speed);
+		return moving;
+	}
+
+	private void push(int cost, int node) {
+		if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+		long entry = ((long) cost << 32) | node;
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heap[up] <= entry) break;
+			heap[i] = heap[up];
+			i = up;
+		}
+		heap[i] = entry;
+	}
+
+	private long pop() {
+		long top = heap[0], entry = heap[--heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+			if (heap[child] >= entry) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = entry;
+		return top;
+	}
+
+}
@@ -1,33 +1,175 @@
 package Play.Maps;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
+import Engine.Tools;
+import Play.Entities.Dynamic;
+import Play.Entities.Teleport;
 
+/**
+ * Builds the game's maps the first time they are asked for, rather than all at startup. The tiles of maps that teleports on the current map lead to are
+ * read on a background thread ahead of time, so a map is usually ready by the time the screen has faded out to switch to it.
+ *
+ * Only the reading of a map's file happens off the game thread. Building the map itself makes its NPCs and teleports and hooks them up to quests, so that
+ * still happens on the game thread, once the tiles are in.
+ */
 public class MapManager {
 
 	public static enum Maps { LOL, COOL_ISLAND, INSIDE_HOUSE }
+	public static final Maps START_MAP = Maps.COOL_ISLAND; // The map that the game starts on
 
-	public static HashMap<Maps, TileMap> mapList = new HashMap<Maps, TileMap>(); // hashMap of maps
+	private static Game game; // The instance of the game
+	private static HashMap<Maps, TileMap> mapList = new HashMap<Maps, TileMap>(); // The maps that have been built so far
+	private static ConcurrentHashMap<Maps, Future<TileGrid>> prefetched = new ConcurrentHashMap<Maps, Future<TileGrid>>(); // Tiles read ahead of time
+	private static ExecutorService loader; // The thread that prefetched maps are read on
 
 	/**
-	 * Returns a map requested by the given name.
-	 * 
+	 * Returns a map requested by the given name, building it if this is the first time it has been asked for.
+	 *
 	 * @param name The name of the requested map
 	 */
 	public static TileMap get(Maps name) {
-		if (mapList.containsKey(name)) return mapList.get(name).reset();
-		System.out.println("No map with name: " + name + " exists!");
-		return null;
+		TileMap map = mapList.get(name);
+		if (map == null) {
+			map = build(name);
+			if (map == null) {
+				Diagnostics.warn(Category.MAPS, "No map with name: " + name + " exists!");
+				return null;
+			}
+			mapList.put(name, map);
+		}
+		return map.reset();
 	}
 
 	/**
-	 * Loads each of the maps in the game.
+	 * Constructs the map with the given name, or returns null if there isn't one.
+	 */
+	private static TileMap build(Maps name) {
+		if (name == null) return null;
+		switch (name) {
+			case COOL_ISLAND:
+				return new CoolIslandMap(game);
+			case LOL:
+				return new LolMap(game);
+			case INSIDE_HOUSE:
+				return new InsideHouseMap(game);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Gets the manager ready to build maps. Maps aren't loaded until they are first asked for.
 	 */
 	public static void loadMaps(Game game) {
-		mapList.put(Maps.COOL_ISLAND, new CoolIslandMap(game));
-		mapList.put(Maps.LOL, new LolMap(game));
-		mapList.put(Maps.INSIDE_HOUSE, new InsideHouseMap(game));
+		MapManager.game = game;
+		loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Map Loader");
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+	}
+
+	/**
+	 * Starts reading the tiles of the given map in the background if it hasn't been built or started reading yet.
+	 *
+	 * @param name The name of the map that may be needed soon
+	 */
+	public static void prefetch(Maps name) {
+		if (name == null || loader == null || mapList.containsKey(name) || prefetched.containsKey(name)) return;
+		prefetched.put(name, loader.submit(reader(name)));
+	}
+
+	/**
+	 * Reads the tiles of the given map right away on the calling thread if it hasn't been built or started reading yet, so that building it later won't
+	 * have to. Used during startup, where the calling thread is already one of several.
+	 *
+	 * @param name The name of the map that will be needed
+	 */
+	public static void preload(Maps name) {
+		if (name == null || mapList.containsKey(name) || prefetched.containsKey(name)) return;
+		FutureTask<TileGrid> task = new FutureTask<TileGrid>(reader(name));
+		prefetched.put(name, task);
+		task.run();
+	}
+
+	/**
+	 * Returns a task that reads the tiles of the given map.
+	 */
+	private static Callable<TileGrid> reader(final Maps name) {
+		return new Callable<TileGrid>() {
+
+			public TileGrid call() { return readGrid(name); }
+
+		};
+	}
+
+	/**
+	 * Prefetches every map that a teleport in the given list leads to.
+	 *
+	 * @param entities The entities on the current map
+	 */
+	public static void prefetchDestinations(ArrayList<Dynamic> entities) {
+		for (int i = 0, n = entities.size(); i < n; i++) {
+			if (entities.get(i) instanceof Teleport) prefetch(((Teleport) entities.get(i)).getNewMapName());
+		}
+	}
+
+	/**
+	 * Returns true if get() can return the given map without waiting on its file, starting to read it if that hasn't started yet.
+	 *
+	 * @param name The name of the map
+	 */
+	public static boolean isReady(Maps name) {
+		if (mapList.containsKey(name)) return true;
+		prefetch(name);
+		Future<TileGrid> f = prefetched.get(name);
+		return f == null || f.isDone();
+	}
+
+	/**
+	 * Returns the tiles of the given map, waiting for them if they are being prefetched and reading them now if they aren't.
+	 *
+	 * @param name The name of the map
+	 * @return The tile ids and solid flags of the map, or null if it couldn't be read
+	 */
+	static TileGrid takeGrid(Maps name) {
+		Future<TileGrid> f = prefetched.remove(name);
+		if (f == null) return readGrid(name);
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return readGrid(name);
+		} catch (ExecutionException e) {
+			Diagnostics.warn(Category.MAPS, "Map " + name + " could not be loaded: " + e.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the tiles of the given map from its resource, preferring the binary version if there is one.
+	 */
+	private static TileGrid readGrid(Maps name) {
+		String path = "/maps/" + name;
+		return TileMap.readGrid((TileMap.class.getResource(path + BinaryMapFormat.EXTENSION) != null) ? path + BinaryMapFormat.EXTENSION : path + ".map",
+				Tools.ResourceLoader.LOAD_RESOURCE);
 	}
 
 }
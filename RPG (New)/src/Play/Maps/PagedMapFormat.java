@@ -0,0 +1,186 @@
+package Play.Maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import Engine.Tools;
+
+/**
+ * Writes maps in the paged .pmap format read by PagedTileMap, which splits a map into square pages that can each be read on their own:
+ *
+ * <pre>
+ * int     MAGIC ("RPAG")
+ * short   VERSION
+ * int     numWide, numTall, numLayers, pageSize
+ * long[]  the file offset of each page in row-major order, followed by the end of the file
+ * for each page: its layers and solid bitmap, encoded the same way as the body of a binary .rmap file
+ * </pre>
+ *
+ * Pages at the right and bottom edges are cut short by the edge of the map. Run this class with a .map or .rmap file to convert it, or with --generate
+ * to make a procedurally generated overworld of any size for testing.
+ */
+public class PagedMapFormat {
+
+	public static final String EXTENSION = ".pmap"; // The file extension of paged maps
+	public static final int MAGIC = 0x52504147; // "RPAG" in ASCII
+	public static final short VERSION = 1; // The version written by this class, and the newest one PagedTileMap can read
+	public static final int HEADER_SIZE = 22; // The number of bytes before the page offsets
+
+	public static final int DEFAULT_PAGE_SIZE = 64; // The width and height of a page in tiles, which is a multiple of TileChunkCache.CHUNK_SIZE
+
+	/**
+	 * Fills in the pages of a map as they are written, so that a map never has to be in memory all at once.
+	 */
+	public interface PageSource {
+
+		/**
+		 * Fills the given page with the tiles of the map whose top left corner is at (x0, y0). The page starts out with tile 0 everywhere and nothing solid.
+		 */
+		public void fill(TileGrid page, int x0, int y0);
+
+	}
+
+	/**
+	 * Converts the map given as the first argument to a paged map next to it, or generates an overworld with --generate.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 4 && args[0].equals("--generate")) {
+			long start = System.nanoTime();
+			generate(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+			System.out.println(String.format("Generated %s (%d bytes) in %.1f s", args[1], new File(args[1]).length(), (System.nanoTime() - start) / 1e9));
+		} else if (args.length == 1 || args.length == 2) {
+			final TileMap map = new TileMap(null, 1, 1);
+			map.load(args[0], Tools.ResourceLoader.LOAD_FILE);
+			File file = new File(args[0].substring(0, args[0].lastIndexOf('.')) + EXTENSION);
+			write(file, map.numWide(), map.numTall(), map.numLayers(), (args.length == 2) ? Integer.parseInt(args[1]) : DEFAULT_PAGE_SIZE,
+					new PageSource() {
+
+						public void fill(TileGrid page, int x0, int y0) { page.copyFrom(map.getGrid(), x0, y0, 0, 0, page.width, page.height); }
+
+					});
+			System.out.println(args[0] + " -> " + file + " (" + file.length() + " bytes)");
+		} else {
+			System.out.println("Usage: PagedMapFormat <file.map | file.rmap> [pageSize]");
+			System.out.println("       PagedMapFormat --generate <file.pmap> <width> <height>");
+		}
+	}
+
+	/**
+	 * Writes a paged map to the given file, asking the source for one page at a time.
+	 *
+	 * @param file      The file to write to, which is overwritten
+	 * @param numWide   The width of the map in tiles
+	 * @param numTall   The height of the map in tiles
+	 * @param numLayers The number of layers in the map
+	 * @param pageSize  The width and height of a page in tiles, which must be a multiple of TileChunkCache.CHUNK_SIZE
+	 * @param source    Where the tiles of each page come from
+	 */
+	public static void write(File file, int numWide, int numTall, int numLayers, int pageSize, PageSource source) throws IOException {
+		if (pageSize <= 0 || pageSize % TileChunkCache.CHUNK_SIZE != 0)
+			throw new IllegalArgumentException("Page size must be a multiple of " + TileChunkCache.CHUNK_SIZE + "!");
+		int pagesWide = (numWide + pageSize - 1) / pageSize, pagesTall = (numTall + pageSize - 1) / pageSize;
+		long[] offsets = new long[pagesWide * pagesTall + 1];
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			// Write the pages after the space for the header and offsets, then go back and fill those in
+			long position = HEADER_SIZE + 8L * offsets.length;
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream data = new DataOutputStream(bytes);
+			for (int py = 0, i = 0; py < pagesTall; py++) {
+				for (int px = 0; px < pagesWide; px++, i++) {
+					int x0 = px * pageSize, y0 = py * pageSize;
+					TileGrid page = new TileGrid(Math.min(pageSize, numWide - x0), Math.min(pageSize, numTall - y0), numLayers);
+					source.fill(page, x0, y0);
+
+					bytes.reset();
+					BinaryMapFormat.writeGrid(data, page);
+					offsets[i] = position;
+					position += writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()), position);
+				}
+			}
+			offsets[offsets.length - 1] = position;
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 8 * offsets.length);
+			header.putInt(MAGIC).putShort(VERSION).putInt(numWide).putInt(numTall).putInt(numLayers).putInt(pageSize);
+			for (long offset : offsets)
+				header.putLong(offset);
+			header.flip();
+			writeFully(channel, header, 0);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes all of the buffer to the channel at the given position and returns the number of bytes written.
+	 */
+	private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int n = buffer.remaining();
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+		return n;
+	}
+
+	/**
+	 * Writes an overworld of the given size to the file: rolling islands of grass with trees and flowers on a second layer, beaches, and water in between.
+	 * Water and trees are solid. The same size always makes the same map.
+	 *
+	 * @param file    The file to write to, which is overwritten
+	 * @param numWide The width of the map in tiles
+	 * @param numTall The height of the map in tiles
+	 */
+	public static void generate(File file, int numWide, int numTall) throws IOException {
+		write(file, numWide, numTall, 2, DEFAULT_PAGE_SIZE, new PageSource() {
+
+			public void fill(TileGrid page, int x0, int y0) {
+				for (int y = 0, i = 0; y < page.height; y++) {
+					for (int x = 0; x < page.width; x++, i++) {
+						int wx = x0 + x, wy = y0 + y;
+						double height = noise(wx / 48.0, wy / 48.0) * 0.7 + noise(wx / 12.0, wy / 12.0) * 0.3;
+						int ground = (height < 0.4) ? 3 : (height < 0.46) ? 1 : 0; // water, sand, or grass
+						int h = hash(wx, wy) % 100, decoration = (ground != 0) ? TileGrid.EMPTY : (h < 6) ? 5 : (h < 10) ? 7 : TileGrid.EMPTY; // tree or flower
+						page.setTile(0, i, ground);
+						page.setTile(1, i, decoration);
+						page.setSolid(i, ground == 3 || decoration == 5);
+					}
+				}
+			}
+
+		});
+	}
+
+	/**
+	 * Returns smoothly varying value noise between 0 and 1 at the given point.
+	 */
+	private static double noise(double x, double y) {
+		int ix = (int) Math.floor(x), iy = (int) Math.floor(y);
+		double fx = x - ix, fy = y - iy;
+		fx = fx * fx * (3 - 2 * fx);
+		fy = fy * fy * (3 - 2 * fy);
+		double top = lattice(ix, iy) + (lattice(ix + 1, iy) - lattice(ix, iy)) * fx;
+		double bottom = lattice(ix, iy + 1) + (lattice(ix + 1, iy + 1) - lattice(ix, iy + 1)) * fx;
+		return top + (bottom - top) * fy;
+	}
+
+	/**
+	 * Returns a random value between 0 and 1 that is always the same for the given lattice point.
+	 */
+	private static double lattice(int x, int y) { return (hash(x, y) & 0xFFFF) / 65535.0; }
+
+	/**
+	 * Returns a well mixed non-negative hash of the given point.
+	 */
+	private static int hash(int x, int y) {
+		int h = x * 0x27D4EB2D + y * 0x165667B1;
+		h = (h ^ (h >>> 15)) * 0x85EBCA6B;
+		h = (h ^ (h >>> 13)) * 0xC2B2AE35;
+		return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+	}
+
+}
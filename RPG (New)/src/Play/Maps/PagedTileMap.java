@@ -0,0 +1,436 @@
+package Play.Maps;
+
+import java.awt.Graphics;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Engine.AssetManager;
+import Engine.Clock;
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+import Engine.Game;
+import Engine.Tools;
+import Play.PlayState;
+import Play.Entities.Dynamic;
+import Play.Maps.MapManager.Maps;
+
+/**
+ * A TileMap that is read from a paged .pmap file (see PagedMapFormat) a page at a time instead of all at once, so that maps far larger than memory can be
+ * played on. Every tick the pages around the camera and under every entity are asked for, along with the pages the camera is heading towards, and are
+ * read on a background thread. Once more than residentBytes worth of pages are in memory, the least recently used ones that weren't asked for this tick
+ * are thrown away again.
+ *
+ * Rendering never waits for a page: only the pages in memory are copied into the TileWindow that is drawn, and one that isn't in memory yet is left blank
+ * for the frame or two it takes to read. Everything else (collisions, tile
+ * lookups and changes) reads the page right away if it has to, and should happen on the game thread, which is the only thread that throws pages away.
+ * Pages that have been changed are kept in memory for as long as the map is, since the file itself is never written to.
+ */
+public class PagedTileMap extends TileMap {
+
+	public static long residentBytes = 32L * 1024 * 1024; // Roughly how much memory the pages of a map may use before unused ones are thrown away
+	private static final int minResidentPages = 16; // The fewest pages to keep in memory, however large they are
+	private static final int lookaheadTicks = 60; // How many ticks ahead of the camera's current movement pages are read in advance
+
+	// The thread that pages are read on in the background, shared by every paged map
+	private static final ExecutorService pager = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Map Pager");
+			t.setDaemon(true);
+			return t;
+		}
+
+	});
+
+	private FileChannel channel; // The open paged map file
+	private int pageSize, pagesWide, pagesTall; // The size of a page in tiles, and the number of pages across and down the map
+	private long[] offsets; // The file offset of each page in row-major order, followed by the end of the file
+	private int maxResidentPages; // The most pages to keep in memory when they aren't needed
+
+	private final ConcurrentHashMap<Long, Page> resident = new ConcurrentHashMap<Long, Page>(); // The pages that are in memory
+	private final ConcurrentHashMap<Long, Future<Page>> loading = new ConcurrentHashMap<Long, Future<Page>>(); // The pages being read
+	private volatile Page lastPage; // The page that was last looked up by a tile, which is usually the one the next tile is on
+
+	// Pages are stamped on the game thread and the pager thread, so the counters that stamp them are atomic
+	private final AtomicLong tickCount = new AtomicLong(); // The number of times updateResidency() has been called, which stamps the pages asked for
+	private final AtomicLong useCount = new AtomicLong(); // The number of times a page has been used, which stamps pages to find the least recently used
+	private double lastCenterX = Double.NaN, lastCenterY = Double.NaN; // The tile at the center of the screen last tick
+
+	/**
+	 * Opens the paged version of one of the game's maps.
+	 *
+	 * @param game The instance of the game object
+	 * @param id   The id of the map, whose file is "/maps/" + id + PagedMapFormat.EXTENSION
+	 */
+	public PagedTileMap(Game game, Maps id) { this(game, id, "/maps/" + id + PagedMapFormat.EXTENSION, Tools.ResourceLoader.LOAD_RESOURCE); }
+
+	/**
+	 * Opens a paged map with the given path by the given method.
+	 *
+	 * @param game The instance of the game object
+	 * @param id   The id of the map, or null if it isn't one of the game's maps
+	 * @param path The path of the map file
+	 * @param type ResourceLoader.LOAD_FILE or ResourceLoader.LOAD_RESOURCE
+	 */
+	public PagedTileMap(Game game, Maps id, String path, int type) {
+		super(game, id, 0, 0, 0);
+		load(path, type);
+	}
+
+	/**
+	 * Opens the paged map with the given path by the given method, replacing this map's data. Paged maps inside a jar are copied to a temporary file
+	 * first, since pages have to be read from anywhere in the file. Does nothing if the map can't be found.
+	 *
+	 * @param path The path of the map to be loaded
+	 * @param type ResourceLoader.LOAD_FILE or ResourceLoader.LOAD_RESOURCE
+	 */
+	public void load(String path, int type) {
+		ReadableByteChannel in = Tools.ResourceLoader.openChannel(path, type);
+		if (in == null) return;
+		try {
+			FileChannel file;
+			if (in instanceof FileChannel) file = (FileChannel) in;
+			else {
+				File temp = File.createTempFile("map", PagedMapFormat.EXTENSION);
+				temp.deleteOnExit();
+				InputStream stream = Channels.newInputStream(in);
+				Files.copy(stream, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				stream.close();
+				file = FileChannel.open(temp.toPath());
+			}
+
+			// Read the header and page offsets
+			ByteBuffer header = ByteBuffer.allocate(PagedMapFormat.HEADER_SIZE);
+			readFully(file, header, 0);
+			if (header.getInt() != PagedMapFormat.MAGIC) throw new IllegalArgumentException("Not a paged map file!");
+			short version = header.getShort();
+			if (version > PagedMapFormat.VERSION) throw new IllegalArgumentException("Paged map version " + version + " is newer than this game can read!");
+			int numWide = header.getInt(), numTall = header.getInt(), numLayers = header.getInt(), pageSize = header.getInt();
+			int pagesWide = (numWide + pageSize - 1) / pageSize, pagesTall = (numTall + pageSize - 1) / pageSize;
+			ByteBuffer offsetBytes = ByteBuffer.allocate(8 * (pagesWide * pagesTall + 1));
+			readFully(file, offsetBytes, PagedMapFormat.HEADER_SIZE);
+			long[] offsets = new long[pagesWide * pagesTall + 1];
+			offsetBytes.asLongBuffer().get(offsets);
+
+			// Swap in the new file, throwing away every page of the old one
+			if (channel != null) channel.close();
+			channel = file;
+			this.numWide = numWide;
+			this.numTall = numTall;
+			this.numLayers = numLayers;
+			this.pageSize = pageSize;
+			this.pagesWide = pagesWide;
+			this.pagesTall = pagesTall;
+			this.offsets = offsets;
+			maxResidentPages = (int) Math.max(minResidentPages, residentBytes / ((long) pageSize * pageSize * (2 * numLayers) + pageSize * pageSize / 8));
+			resident.clear();
+			loading.clear();
+			lastPage = null;
+			chunkCache.invalidateAll();
+			solidChanged();
+		} catch (IOException e) {
+			Diagnostics.error(Category.MAPS, "Paged map with path " + path + " could not be read!");
+		}
+	}
+
+	/**
+	 * Asks for the pages around the camera, under every entity, and in the direction the camera is moving, then throws away the least recently used pages
+	 * if there are too many in memory.
+	 */
+	public void tick(double deltaTime) {
+		super.tick(deltaTime);
+		if (PlayState.map == this && PlayState.camera != null)
+			updateResidency(PlayState.camera.ox, PlayState.camera.oy, Tile.GAME_SIZE, game.getWidth(), game.getHeight(), PlayState.entities);
+	}
+
+	/**
+	 * Asks for the pages around the given view and under the given entities, and the pages the view is heading towards based on how far it moved since
+	 * the last call, then throws away the least recently used pages if there are too many in memory.
+	 *
+	 * @param ox           The x offset of the camera
+	 * @param oy           The y offset of the camera
+	 * @param size         The size of a tile in pixels
+	 * @param screenWidth  The width of the screen in pixels
+	 * @param screenHeight The height of the screen in pixels
+	 * @param entities     The entities on the map
+	 */
+	public void updateResidency(int ox, int oy, int size, int screenWidth, int screenHeight, ArrayList<Dynamic> entities) {
+		tickCount.incrementAndGet();
+
+		// The pages on screen and a little around it
+		double x0 = -ox / (double) size, y0 = -oy / (double) size, x1 = (screenWidth - ox) / (double) size, y1 = (screenHeight - oy) / (double) size;
+		int margin = pageSize / 2;
+		want(x0 - margin, y0 - margin, x1 + margin, y1 + margin);
+
+		// The pages the camera will be over in lookaheadTicks if it keeps going the way it is, up to a page ahead
+		double centerX = (x0 + x1) / 2, centerY = (y0 + y1) / 2;
+		if (!Double.isNaN(lastCenterX)) {
+			double dx = Game.clamp((centerX - lastCenterX) * lookaheadTicks, -pageSize, pageSize);
+			double dy = Game.clamp((centerY - lastCenterY) * lookaheadTicks, -pageSize, pageSize);
+			if (dx != 0 || dy != 0) want(x0 + dx, y0 + dy, x1 + dx, y1 + dy);
+		}
+		lastCenterX = centerX;
+		lastCenterY = centerY;
+
+		// The pages under every entity, so that their collisions rarely have to wait
+		for (Dynamic e : entities)
+			want(e.pos.x - 1, e.pos.y - 1, e.pos.x + e.size.x + 1, e.pos.y + e.size.y + 1);
+
+		evict();
+	}
+
+	/**
+	 * Throws away the least recently used pages that weren't asked for this tick and haven't been changed until there are few enough in memory.
+	 */
+	private void evict() {
+		if (resident.size() <= maxResidentPages) return;
+		ArrayList<Page> candidates = new ArrayList<Page>();
+		for (Page p : resident.values()) {
+			if (!p.dirty && p.wantedTick != tickCount.get()) candidates.add(p);
+		}
+		Collections.sort(candidates, new Comparator<Page>() {
+
+			public int compare(Page a, Page b) { return Long.compare(a.lastUsed, b.lastUsed); }
+
+		});
+		for (int i = 0, excess = resident.size() - maxResidentPages; i < excess && i < candidates.size(); i++) {
+			Page p = candidates.get(i);
+			resident.remove(key(p.px, p.py), p);
+			if (lastPage == p) lastPage = null;
+		}
+	}
+
+	/**
+	 * Asks for every page overlapping the given rectangle of tiles, and marks them as used this tick.
+	 */
+	private void want(double x0, double y0, double x1, double y1) {
+		int px0 = Math.max(0, (int) Math.floor(x0) / pageSize), py0 = Math.max(0, (int) Math.floor(y0) / pageSize);
+		int px1 = Math.min(pagesWide - 1, (int) Math.floor(x1) / pageSize), py1 = Math.min(pagesTall - 1, (int) Math.floor(y1) / pageSize);
+		for (int py = py0; py <= py1; py++) {
+			for (int px = px0; px <= px1; px++) {
+				Page p = resident.get(key(px, py));
+				if (p == null) request(px, py, true);
+				else {
+					p.wantedTick = tickCount.get();
+					p.lastUsed = useCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the page at the given page coordinates. If it isn't in memory and wait is true, reads it on this thread (or waits for the read that is already
+	 * going) before returning, and otherwise asks for it to be read in the background and returns null. Waiting may throw pages away to make room, so
+	 * it should only be done on the game thread.
+	 */
+	private Page getPage(int px, int py, boolean wait) {
+		Page p = resident.get(key(px, py));
+		if (p != null) {
+			p.lastUsed = useCount.incrementAndGet();
+			return p;
+		}
+
+		Future<Page> f = request(px, py, false);
+		if (!wait) return null;
+		((FutureTask<Page>) f).run(); // Does nothing if the pager thread has already started reading it
+		try {
+			p = f.get();
+			p.lastUsed = useCount.incrementAndGet();
+			evict();
+			return p;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading a page of a map!");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not read page (" + px + ", " + py + ") of a map!", e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the page that the given tile is on, reading it first if it isn't in memory.
+	 */
+	private Page pageOf(int tx, int ty) {
+		Page p = lastPage;
+		int px = tx / pageSize, py = ty / pageSize;
+		if (p == null || p.px != px || p.py != py) lastPage = p = getPage(px, py, true);
+		return p;
+	}
+
+	/**
+	 * Queues the page at the given page coordinates to be read on the pager thread unless it is already being read, and returns the read, which gives
+	 * the page that ends up in memory.
+	 *
+	 * @param wanted Whether updateResidency() asked for the page, so it shouldn't be thrown away this tick
+	 */
+	private Future<Page> request(final int px, final int py, final boolean wanted) {
+		final Long k = key(px, py);
+		Future<Page> f = loading.get(k);
+		if (f != null) return f;
+
+		final FileChannel channel = this.channel;
+		FutureTask<Page> task = new FutureTask<Page>(new Callable<Page>() {
+
+			public Page call() throws IOException {
+				try {
+					Page p = read(channel, px, py);
+					if (channel == PagedTileMap.this.channel) {
+						// Keep the page that is already in memory if another read of it got there first, since it may have been changed since
+						Page existing = resident.putIfAbsent(k, p);
+						if (existing != null) p = existing;
+						if (wanted) p.wantedTick = tickCount.get();
+						p.lastUsed = useCount.incrementAndGet();
+					}
+					return p;
+				} finally {
+					loading.remove(k);
+				}
+			}
+
+		});
+		f = loading.putIfAbsent(k, task);
+		if (f != null) return f;
+		pager.execute(task);
+		return task;
+	}
+
+	/**
+	 * Reads the page at the given page coordinates from the file.
+	 */
+	private Page read(FileChannel channel, int px, int py) throws IOException {
+		int i = py * pagesWide + px;
+		ByteBuffer bytes = ByteBuffer.allocate((int) (offsets[i + 1] - offsets[i]));
+		readFully(channel, bytes, offsets[i]);
+
+		Page p = new Page(px, py, new TileGrid(Math.min(pageSize, numWide - px * pageSize), Math.min(pageSize, numTall - py * pageSize), numLayers));
+		BinaryMapFormat.readGrid(bytes, p.grid);
+		return p;
+	}
+
+	/**
+	 * Fills the buffer from the channel starting at the given position, then flips it.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+		}
+		buffer.flip();
+	}
+
+	public void render(Graphics g, int px, int py, int size, int tx0, int ty0, int tx1, int ty1) {
+		tx0 = Math.max(tx0, 0);
+		ty0 = Math.max(ty0, 0);
+		tx1 = Math.min(tx1, numWide);
+		ty1 = Math.min(ty1, numTall);
+		if (tx0 >= tx1 || ty0 >= ty1) return;
+
+		// Draw each page that is in memory, asking for the rest
+		boolean baked = chunkCache.beginFrame(size);
+		for (int pageY = ty0 / pageSize, pyMax = (ty1 - 1) / pageSize; pageY <= pyMax; pageY++) {
+			for (int pageX = tx0 / pageSize, pxMax = (tx1 - 1) / pageSize; pageX <= pxMax; pageX++) {
+				Page p = getPage(pageX, pageY, false);
+				if (p == null) continue;
+
+				int gx = pageX * pageSize, gy = pageY * pageSize;
+				int x0 = Math.max(tx0, gx), y0 = Math.max(ty0, gy), x1 = Math.min(tx1, gx + p.grid.width), y1 = Math.min(ty1, gy + p.grid.height);
+				if (baked) chunkCache.render(g, p.grid, gx, gy, px, py, size, x0, y0, x1, y1, Clock.now());
+				else renderTiles(g, p.grid, gx, gy, px, py, size, x0, y0, x1, y1, Clock.now());
+			}
+		}
+	}
+
+	/**
+	 * Copies the pages in the window that are in memory, asking for the rest, which are left blank.
+	 */
+	void copyWindow(TileWindow window) {
+		int px0 = Math.max(0, Math.floorDiv(window.x0(), pageSize)), py0 = Math.max(0, Math.floorDiv(window.y0(), pageSize));
+		int px1 = Math.min(pagesWide - 1, Math.floorDiv(window.x1() - 1, pageSize)), py1 = Math.min(pagesTall - 1, Math.floorDiv(window.y1() - 1, pageSize));
+		for (int pageY = py0; pageY <= py1; pageY++) {
+			for (int pageX = px0; pageX <= px1; pageX++) {
+				Page p = getPage(pageX, pageY, false);
+				if (p != null) window.copy(p.grid, pageX * pageSize, pageY * pageSize);
+			}
+		}
+	}
+
+	public boolean isSolid(int tx, int ty) {
+		Page p = pageOf(tx, ty);
+		return p.grid.isSolid(tx - p.px * pageSize, ty - p.py * pageSize);
+	}
+
+	/**
+	 * Returns false, since reading a tile can page it in or out and moves lastPage.
+	 */
+	public boolean allowsConcurrentReads() { return false; }
+
+	public int getTile(int tx, int ty, int tz) {
+		Page p = pageOf(tx, ty);
+		return p.grid.getTile(tx - p.px * pageSize, ty - p.py * pageSize, tz);
+	}
+
+	public TileMap setSolid(int tx, int ty, boolean b) {
+		Page p = pageOf(tx, ty);
+		p.grid.setSolid(p.grid.index(tx - p.px * pageSize, ty - p.py * pageSize), b);
+		p.dirty = true;
+		chunkCache.invalidate(tx, ty);
+		solidChanged();
+		return this;
+	}
+
+	public TileMap setTile(int tx, int ty, int tz, int id) {
+		Page p = pageOf(tx, ty);
+		if (id < AssetManager.getTileSprites().length && id >= 0) p.grid.setTile(tz, p.grid.index(tx - p.px * pageSize, ty - p.py * pageSize), id);
+		p.dirty = true;
+		chunkCache.invalidate(tx, ty);
+		return this;
+	}
+
+	/**
+	 * Returns the number of pages that are in memory.
+	 */
+	public int numResidentPages() { return resident.size(); }
+
+	/**
+	 * Returns the key of the page at page coordinates (px, py).
+	 */
+	private static Long key(int px, int py) { return ((long) py << 32) | px; }
+
+	/**
+	 * A page of the map that has been read into memory.
+	 */
+	private static class Page {
+
+		final int px, py; // The page coordinates of this page
+		final TileGrid grid; // The tiles of this page
+		volatile long wantedTick; // The tick this page was last asked for by updateResidency()
+		volatile long lastUsed; // The value of useCount when this page was last used
+		volatile boolean dirty; // Whether this page has been changed since it was read, so it can't be thrown away
+
+		Page(int px, int py, TileGrid grid) {
+			this.px = px;
+			this.py = py;
+			this.grid = grid;
+		}
+
+	}
+
+}
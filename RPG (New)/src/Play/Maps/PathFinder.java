@@ -0,0 +1,461 @@
+package Play.Maps;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Finds paths between tiles of a map around its solid tiles, using A* with jump point search. Paths can move diagonally, but only between tiles whose two
+ * shared neighbours are open too, so that an entity following one never clips a corner. Jump point search skips over the runs of open tiles that plain
+ * A* would add to its open list one at a time, only stopping where a wall opens up a new way to go, so on the large open maps of this game it looks at a
+ * small fraction of the tiles.
+ *
+ * Searches run on a pool of worker threads. request() copies the solid flags around the start and goal on the game thread, then hands back a Future that
+ * a worker fills in, so the game thread never waits on a search. Found paths are cached by the regions of REGION_SIZE tiles their start and goal are in,
+ * and a request between the same regions reuses one if its start and goal can walk straight onto its ends. The cache of a map is thrown away whenever
+ * TileMap.setSolid() changes it. Everything but the searches themselves is for the game thread only.
+ *
+ * A search only goes through the box holding the start and goal padded by some number of tiles, and never through more than maxSearchTiles tiles, since
+ * the box is copied on the game thread. On a PagedTileMap that also reads any pages in the box that aren't in memory, so maxSearchTiles bounds how long
+ * a request can hold up the game thread there. A search that fails after running into a side of the box that the map carries on past comes back as
+ * OUT_OF_BOUNDS rather than null, since a way around may lie outside the box; asking again with more padding searches further.
+ */
+public class PathFinder {
+
+	public static final int REGION_SIZE = 8; // The width and height of the regions that cached paths are shared between
+	public static int searchPadding = 24; // How many tiles around the box holding the start and goal a search may go through
+	public static int maxSearchTiles = 256 * 256; // The most tiles a search may go through, which the padding is cut down to fit
+	private static final int MAX_CACHED = 256; // The number of paths cached per map before the cache is emptied
+	private static final double SQRT2 = Math.sqrt(2);
+
+	private static ExecutorService workers; // The threads that searches run on, started when the first one is requested
+	private static final HashMap<TileMap, Cache> caches = new HashMap<TileMap, Cache>(); // The paths found on each map since it last changed
+
+	/**
+	 * A path from one tile to another, as the tiles it turns at, starting with the first tile and ending with the last. An entity following it walks in a
+	 * straight line from each tile to the next. Paths are never changed once found, so they can be shared.
+	 */
+	public static final class Path {
+
+		private final int[] xs, ys; // The x and y coordinates of each tile
+
+		private Path(int[] xs, int[] ys) {
+			this.xs = xs;
+			this.ys = ys;
+		}
+
+		/**
+		 * Returns the number of tiles in the path, which is at least one for every path but OUT_OF_BOUNDS.
+		 */
+		public int size() { return xs.length; }
+
+		public int x(int i) { return xs[i]; }
+
+		public int y(int i) { return ys[i]; }
+
+		/**
+		 * Returns the length of the path in tiles.
+		 */
+		public double length() {
+			double length = 0;
+			for (int i = 1; i < xs.length; i++)
+				length += Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+			return length;
+		}
+
+	}
+
+	/**
+	 * Returned instead of a path when the search couldn't find one inside the box it was allowed to search, but might have outside it. It has no tiles.
+	 */
+	public static final Path OUT_OF_BOUNDS = new Path(new int[0], new int[0]);
+
+	/**
+	 * The paths found on one map while it had one solidVersion(). Workers put paths in, so the map of paths is concurrent.
+	 */
+	private static final class Cache {
+
+		private final int version; // The solidVersion() of the map when these paths were found
+		private final ConcurrentHashMap<Long, Path> paths = new ConcurrentHashMap<Long, Path>(); // The paths found, by region key
+
+		private Cache(int version) { this.version = version; }
+
+	}
+
+	/**
+	 * Asks for the path from tile (sx, sy) to tile (gx, gy) of the map, searching searchPadding tiles around them, like request() with a padding.
+	 */
+	public static Future<Path> request(TileMap map, int sx, int sy, int gx, int gy) { return request(map, sx, sy, gx, gy, searchPadding); }
+
+	/**
+	 * Asks for the path from tile (sx, sy) to tile (gx, gy) of the map, returning a Future that holds the path once it has been found. It holds null if
+	 * the goal can't be reached from the start at all, or OUT_OF_BOUNDS if it couldn't be reached inside the box that was searched. Cached paths are
+	 * returned already done.
+	 *
+	 * @param map     The map to find a path on
+	 * @param sx      The x coordinate of the tile to start on
+	 * @param sy      The y coordinate of the tile to start on
+	 * @param gx      The x coordinate of the tile to end on
+	 * @param gy      The y coordinate of the tile to end on
+	 * @param padding How many tiles around the box holding the start and goal to search through, if that fits in maxSearchTiles
+	 */
+	public static Future<Path> request(TileMap map, final int sx, final int sy, final int gx, final int gy, int padding) {
+		if (!isOpen(map, sx, sy) || !isOpen(map, gx, gy)) return CompletableFuture.completedFuture(null);
+
+		final Cache cache = cacheOf(map);
+		final long key = regionKey(sx, sy, gx, gy);
+		Path cached = cache.paths.get(key);
+		if (cached != null) {
+			Path joined = join(map, cached, sx, sy, gx, gy);
+			if (joined != null) return CompletableFuture.completedFuture(joined);
+		}
+
+		padding = fitPadding(sx, sy, gx, gy, padding);
+		if (padding < 0) return CompletableFuture.completedFuture(OUT_OF_BOUNDS);
+		final Snapshot snapshot = new Snapshot(map, sx, sy, gx, gy, padding);
+		if (workers == null) startWorkers();
+		return workers.submit(new Callable<Path>() {
+
+			public Path call() {
+				Path path = snapshot.search(sx, sy, gx, gy);
+				if (path != null && path != OUT_OF_BOUNDS) {
+					if (cache.paths.size() >= MAX_CACHED) cache.paths.clear();
+					cache.paths.put(key, path);
+				}
+				return path;
+			}
+
+		});
+	}
+
+	/**
+	 * Finds the path from tile (sx, sy) to tile (gx, gy) of the map right away on the calling thread, searching searchPadding tiles around them, without
+	 * using or filling the cache. Returns null if the goal can't be reached from the start, or OUT_OF_BOUNDS if it can't be inside the box searched.
+	 */
+	public static Path find(TileMap map, int sx, int sy, int gx, int gy) {
+		if (!isOpen(map, sx, sy) || !isOpen(map, gx, gy)) return null;
+		int padding = fitPadding(sx, sy, gx, gy, searchPadding);
+		if (padding < 0) return OUT_OF_BOUNDS;
+		return new Snapshot(map, sx, sy, gx, gy, padding).search(sx, sy, gx, gy);
+	}
+
+	/**
+	 * Returns the given padding, cut down so that the padded box holding the start and goal has at most maxSearchTiles tiles, or -1 if even the box
+	 * without any padding has more.
+	 */
+	private static int fitPadding(int sx, int sy, int gx, int gy, int padding) {
+		long w = Math.abs(gx - sx) + 1, h = Math.abs(gy - sy) + 1;
+		if (w * h > maxSearchTiles) return -1;
+		if ((w + 2L * padding) * (h + 2L * padding) <= maxSearchTiles) return padding;
+		// The largest p with (w + 2p)(h + 2p) <= maxSearchTiles
+		int p = (int) ((Math.sqrt((double) (w - h) * (w - h) + 4.0 * maxSearchTiles) - (w + h)) / 4);
+		while (p > 0 && (w + 2L * p) * (h + 2L * p) > maxSearchTiles)
+			p--;
+		return Math.max(0, p);
+	}
+
+	/**
+	 * Returns the cache of the given map, replacing it with an empty one if the map has changed since it was made.
+	 */
+	private static Cache cacheOf(TileMap map) {
+		Cache cache = caches.get(map);
+		if (cache == null || cache.version != map.solidVersion()) {
+			cache = new Cache(map.solidVersion());
+			caches.put(map, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the cached path with the given start and goal put on its ends, or null if either can't walk straight to the end of the path nearest it.
+	 */
+	private static Path join(TileMap map, Path cached, int sx, int sy, int gx, int gy) {
+		int last = cached.size() - 1;
+		if (!isClear(map, sx, sy, cached.x(0), cached.y(0)) || !isClear(map, cached.x(last), cached.y(last), gx, gy)) return null;
+
+		int[] xs = new int[cached.size() + 2], ys = new int[cached.size() + 2];
+		int n = 0;
+		xs[n] = sx;
+		ys[n++] = sy;
+		for (int i = 0; i <= last; i++) {
+			if (cached.x(i) == xs[n - 1] && cached.y(i) == ys[n - 1]) continue;
+			xs[n] = cached.x(i);
+			ys[n++] = cached.y(i);
+		}
+		if (gx != xs[n - 1] || gy != ys[n - 1]) {
+			xs[n] = gx;
+			ys[n++] = gy;
+		}
+		return new Path(Arrays.copyOf(xs, n), Arrays.copyOf(ys, n));
+	}
+
+	/**
+	 * Returns true if every tile in the box with the two tiles at its corners is open, so that an entity can walk straight from one to the other.
+	 */
+	private static boolean isClear(TileMap map, int x0, int y0, int x1, int y1) {
+		for (int y = Math.min(y0, y1); y <= Math.max(y0, y1); y++) {
+			for (int x = Math.min(x0, x1); x <= Math.max(x0, x1); x++) {
+				if (!isOpen(map, x, y)) return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isOpen(TileMap map, int x, int y) { return map.inBounds(x, y) && !map.isSolid(x, y); }
+
+	/**
+	 * Returns the key that paths from the region holding (sx, sy) to the region holding (gx, gy) are cached under.
+	 */
+	private static long regionKey(int sx, int sy, int gx, int gy) {
+		return ((long) (sx / REGION_SIZE & 0xFFFF) << 48) | ((long) (sy / REGION_SIZE & 0xFFFF) << 32) | ((long) (gx / REGION_SIZE & 0xFFFF) << 16)
+				| (gy / REGION_SIZE & 0xFFFF);
+	}
+
+	/**
+	 * Starts the worker threads, leaving a core free for the game thread.
+	 */
+	private static void startWorkers() {
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+		workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Path Finder");
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+	}
+
+	/**
+	 * Which tiles are open in the box around a start and goal that a search may go through, copied from the map so that a worker can search it while the
+	 * map changes.
+	 */
+	private static final class Snapshot {
+
+		private final int x0, y0, width, height; // The box of tiles copied
+		private final boolean[] open; // Whether each tile in the box isn't solid, by (y - y0) * width + (x - x0)
+		private final boolean cutLeft, cutTop, cutRight, cutBottom; // Whether the map carries on past each side of the box
+		private boolean hitEdge; // Whether the search has looked past a side of the box that the map carries on past
+		private int goal; // The index of the goal while searching
+
+		private Snapshot(TileMap map, int sx, int sy, int gx, int gy, int padding) {
+			x0 = Math.max(0, Math.min(sx, gx) - padding);
+			y0 = Math.max(0, Math.min(sy, gy) - padding);
+			width = Math.min(map.numWide(), Math.max(sx, gx) + padding + 1) - x0;
+			height = Math.min(map.numTall(), Math.max(sy, gy) + padding + 1) - y0;
+			cutLeft = x0 > 0;
+			cutTop = y0 > 0;
+			cutRight = x0 + width < map.numWide();
+			cutBottom = y0 + height < map.numTall();
+			open = new boolean[width * height];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++)
+					open[y * width + x] = !map.isSolid(x0 + x, y0 + y);
+			}
+		}
+
+		/**
+		 * Returns true if the tile at (x, y), relative to the box, is in the box and open. Notes when the tile is outside the box but on the map.
+		 */
+		private boolean isOpen(int x, int y) {
+			if (x >= 0 && y >= 0 && x < width && y < height) return open[y * width + x];
+			if ((x < 0 && cutLeft) || (y < 0 && cutTop) || (x >= width && cutRight) || (y >= height && cutBottom)) hitEdge = true;
+			return false;
+		}
+
+		/**
+		 * Returns the path from (sx, sy) to (gx, gy) in map coordinates, which must both be open tiles in the box. Returns null if there isn't one, or
+		 * OUT_OF_BOUNDS if there isn't one in the box but the search ran into a side of it that the map carries on past.
+		 */
+		private Path search(int sx, int sy, int gx, int gy) {
+			int n = width * height, start = (sy - y0) * width + (sx - x0);
+			goal = (gy - y0) * width + (gx - x0);
+			double[] g = new double[n]; // The length of the shortest way found to each tile
+			int[] parent = new int[n]; // The jump point each tile was reached from
+			byte[] state = new byte[n]; // 0 if a tile hasn't been reached, 1 if it is open, 2 if it is closed
+			Heap heap = new Heap();
+
+			parent[start] = -1;
+			state[start] = 1;
+			heap.push(start, heuristic(start));
+			int[] neighbours = new int[16];
+			while (heap.size > 0) {
+				int node = heap.pop();
+				if (state[node] == 2) continue; // Pushed again with a shorter way since
+				state[node] = 2;
+				if (node == goal) return path(parent, node);
+
+				int x = node % width, y = node / width;
+				int numNeighbours = neighbours(node, parent[node], neighbours);
+				for (int k = 0; k < numNeighbours; k += 2) {
+					int jumpPoint = jump(neighbours[k], neighbours[k + 1], neighbours[k] - x, neighbours[k + 1] - y);
+					if (jumpPoint < 0 || state[jumpPoint] == 2) continue;
+					double d = g[node] + distance(node, jumpPoint);
+					if (state[jumpPoint] == 0 || d < g[jumpPoint]) {
+						g[jumpPoint] = d;
+						parent[jumpPoint] = node;
+						state[jumpPoint] = 1;
+						heap.push(jumpPoint, d + heuristic(jumpPoint));
+					}
+				}
+			}
+			return hitEdge ? OUT_OF_BOUNDS : null;
+		}
+
+		/**
+		 * Fills result with the (x, y) pairs of the tiles that are worth jumping towards from the given node, having arrived from parent, and returns the
+		 * number of values filled in. Only tiles that can't be reached as cheaply some other way are kept, and diagonals only where both tiles beside
+		 * them are open.
+		 */
+		private int neighbours(int node, int parent, int[] result) {
+			int x = node % width, y = node / width, n = 0;
+			if (parent < 0) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if ((dx == 0 && dy == 0) || !isOpen(x + dx, y + dy) || (dx != 0 && dy != 0 && !(isOpen(x + dx, y) && isOpen(x, y + dy)))) continue;
+						result[n++] = x + dx;
+						result[n++] = y + dy;
+					}
+				}
+				return n;
+			}
+
+			int dx = Integer.signum(x - parent % width), dy = Integer.signum(y - parent / width);
+			if (dx != 0 && dy != 0) {
+				boolean alongY = isOpen(x, y + dy), alongX = isOpen(x + dx, y);
+				if (alongY) n = add(result, n, x, y + dy);
+				if (alongX) n = add(result, n, x + dx, y);
+				if (alongY && alongX && isOpen(x + dx, y + dy)) n = add(result, n, x + dx, y + dy);
+			} else if (dx != 0) {
+				boolean ahead = isOpen(x + dx, y), below = isOpen(x, y + 1), above = isOpen(x, y - 1);
+				if (ahead) {
+					n = add(result, n, x + dx, y);
+					if (below && isOpen(x + dx, y + 1)) n = add(result, n, x + dx, y + 1);
+					if (above && isOpen(x + dx, y - 1)) n = add(result, n, x + dx, y - 1);
+				}
+				if (below) n = add(result, n, x, y + 1);
+				if (above) n = add(result, n, x, y - 1);
+			} else {
+				boolean ahead = isOpen(x, y + dy), right = isOpen(x + 1, y), left = isOpen(x - 1, y);
+				if (ahead) {
+					n = add(result, n, x, y + dy);
+					if (right && isOpen(x + 1, y + dy)) n = add(result, n, x + 1, y + dy);
+					if (left && isOpen(x - 1, y + dy)) n = add(result, n, x - 1, y + dy);
+				}
+				if (right) n = add(result, n, x + 1, y);
+				if (left) n = add(result, n, x - 1, y);
+			}
+			return n;
+		}
+
+		private static int add(int[] result, int n, int x, int y) {
+			result[n] = x;
+			result[n + 1] = y;
+			return n + 2;
+		}
+
+		/**
+		 * Walks from (x, y) in the direction (dx, dy) until it reaches the goal or a jump point, a tile where a wall beside the way it came lets it turn
+		 * somewhere it couldn't have reached as cheaply otherwise, and returns its index. Returns -1 if it runs into a wall first. Walking diagonally
+		 * stops wherever walking straight along either axis from there would find a jump point.
+		 */
+		private int jump(int x, int y, int dx, int dy) {
+			while (true) {
+				if (!isOpen(x, y)) return -1;
+				int node = y * width + x;
+				if (node == goal) return node;
+				if (dx != 0 && dy != 0) {
+					if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) return node;
+					if (!isOpen(x + dx, y) || !isOpen(x, y + dy)) return -1; // Can't squeeze past the corner
+				} else if (dx != 0) {
+					if ((isOpen(x, y - 1) && !isOpen(x - dx, y - 1)) || (isOpen(x, y + 1) && !isOpen(x - dx, y + 1))) return node;
+				} else {
+					if ((isOpen(x - 1, y) && !isOpen(x - 1, y - dy)) || (isOpen(x + 1, y) && !isOpen(x + 1, y - dy))) return node;
+				}
+				x += dx;
+				y += dy;
+			}
+		}
+
+		/**
+		 * Returns the length of the shortest way between two tiles with nothing in the way, moving straight and diagonally.
+		 */
+		private double distance(int a, int b) {
+			int dx = Math.abs(a % width - b % width), dy = Math.abs(a / width - b / width);
+			return Math.max(dx, dy) + (SQRT2 - 1) * Math.min(dx, dy);
+		}
+
+		private double heuristic(int node) { return distance(node, goal); }
+
+		/**
+		 * Returns the path of jump points that ends at the given node, in map coordinates.
+		 */
+		private Path path(int[] parent, int node) {
+			int n = 0;
+			for (int i = node; i >= 0; i = parent[i])
+				n++;
+			int[] xs = new int[n], ys = new int[n];
+			for (int i = node; i >= 0; i = parent[i]) {
+				n--;
+				xs[n] = x0 + i % width;
+				ys[n] = y0 + i / width;
+			}
+			return new Path(xs, ys);
+		}
+
+	}
+
+	/**
+	 * A binary min-heap of tiles by the estimated length of the path through them. A tile may be in it more than once.
+	 */
+	private static final class Heap {
+
+		private int[] nodes = new int[64];
+		private double[] keys = new double[64];
+		private int size = 0;
+
+		private void push(int node, double key) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (keys[up] <= key) break;
+				nodes[i] = nodes[up];
+				keys[i] = keys[up];
+				i = up;
+			}
+			nodes[i] = node;
+			keys[i] = key;
+		}
+
+		private int pop() {
+			int top = nodes[0], node = nodes[--size];
+			double key = keys[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+				if (keys[child] >= key) break;
+				nodes[i] = nodes[child];
+				keys[i] = keys[child];
+				i = child;
+			}
+			nodes[i] = node;
+			keys[i] = key;
+			return top;
+		}
+
+	}
+
+}
@@ -0,0 +1,189 @@
+package Play.Maps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads maps in the text .map format, which is whitespace-separated numbers in sections separated by BREAK lines: the width, height and number of layers,
+ * then each layer's tile ids row by row, then the solid flags row by row.
+ *
+ * Numbers are parsed straight out of the file's bytes into the map's arrays, so no Strings are made along the way. Maps of at least parallelThreshold
+ * bytes that are files on disk are memory-mapped instead of streamed, and each layer (and the solid flags) is parsed on its own thread once the BREAKs
+ * have been found. Machines with a single core always stream, since the threads would only take turns.
+ */
+public class TextMapFormat {
+
+	public static boolean parallel = true; // Whether large maps may be parsed one layer per thread
+	private static final long parallelThreshold = 64 * 1024; // The smallest file size in bytes that is parsed in parallel
+
+	/**
+	 * Reads a text map from the channel. Closes the channel when done.
+	 *
+	 * @param channel The channel to read the map file from
+	 * @return The tile ids and solid flags of the map
+	 * @throws IllegalArgumentException If the channel doesn't contain a valid text map
+	 */
+	public static TileGrid read(ReadableByteChannel channel) throws IOException {
+		try {
+			if (parallel && ForkJoinPool.getCommonPoolParallelism() > 1 && channel instanceof FileChannel
+					&& ((FileChannel) channel).size() >= parallelThreshold) {
+				FileChannel file = (FileChannel) channel;
+				return readParallel(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()));
+			}
+
+			Tokenizer t = new Tokenizer(ByteBuffer.allocate(16 * 1024), channel);
+			int numWide = t.nextInt(), numTall = t.nextInt(), numLayers = t.nextInt();
+			TileGrid grid = new TileGrid(numWide, numTall, numLayers);
+			for (int z = 0; z < numLayers; z++)
+				t.readTiles(grid, z);
+			t.readSolids(grid);
+			return grid;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads a text map that is entirely in the given buffer, parsing every section after the first concurrently.
+	 */
+	private static TileGrid readParallel(ByteBuffer buffer) {
+		// Find the start of every section, each of which begins right after a BREAK
+		ArrayList<Integer> sectionStarts = new ArrayList<Integer>();
+		sectionStarts.add(0);
+		for (int i = 0, n = buffer.limit() - 4; i < n; i++) {
+			if (buffer.get(i) == 'B' && buffer.get(i + 1) == 'R' && buffer.get(i + 2) == 'E' && buffer.get(i + 3) == 'A' && buffer.get(i + 4) == 'K')
+				sectionStarts.add(i + 5);
+		}
+
+		Tokenizer header = new Tokenizer(section(buffer, sectionStarts, 0), null);
+		final int numWide = header.nextInt(), numTall = header.nextInt(), numLayers = header.nextInt();
+		if (sectionStarts.size() < numLayers + 2) throw new IllegalArgumentException("Map file is missing a BREAK!");
+		final TileGrid grid = new TileGrid(numWide, numTall, numLayers);
+
+		// Parse each layer and the solid flags on the common pool, then wait for all of them
+		ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+		for (int z = 0; z <= numLayers; z++) {
+			final int layer = z;
+			final ByteBuffer section = section(buffer, sectionStarts, z + 1);
+			tasks.add(ForkJoinPool.commonPool().submit(new Runnable() {
+
+				public void run() {
+					Tokenizer t = new Tokenizer(section, null);
+					if (layer < numLayers) t.readTiles(grid, layer);
+					else t.readSolids(grid);
+				}
+
+			}));
+		}
+		try {
+			for (Future<?> task : tasks)
+				task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading a map!");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+
+		return grid;
+	}
+
+	/**
+	 * Returns a view of the bytes of the ith section of the buffer.
+	 */
+	private static ByteBuffer section(ByteBuffer buffer, ArrayList<Integer> sectionStarts, int i) {
+		ByteBuffer section = buffer.duplicate();
+		section.limit((i + 1 < sectionStarts.size()) ? sectionStarts.get(i + 1) : buffer.limit());
+		section.position(sectionStarts.get(i));
+		return section;
+	}
+
+	/**
+	 * Reads integers out of the bytes of a text map, skipping over whitespace and the letters of BREAK. Bytes come from the buffer, which is refilled from
+	 * the channel whenever it runs out if there is one.
+	 */
+	private static class Tokenizer {
+
+		private final ByteBuffer buffer; // The bytes that haven't been read yet
+		private final ReadableByteChannel channel; // Where more bytes come from, or null if the buffer is all there is
+
+		/**
+		 * @param buffer  The bytes to read from first, which are assumed to be empty if there is a channel
+		 * @param channel The channel to refill the buffer from, or null if the buffer already holds everything to be read
+		 */
+		public Tokenizer(ByteBuffer buffer, ReadableByteChannel channel) {
+			this.buffer = buffer;
+			this.channel = channel;
+			if (channel != null) buffer.limit(0);
+		}
+
+		/**
+		 * Returns the next byte, or -1 if there aren't any left.
+		 */
+		private int read() {
+			if (!buffer.hasRemaining()) {
+				if (channel == null) return -1;
+				try {
+					buffer.clear();
+					int n;
+					do {
+						n = channel.read(buffer);
+					} while (n == 0);
+					buffer.flip();
+					if (n == -1) return -1;
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return buffer.get();
+		}
+
+		/**
+		 * Returns the next integer.
+		 *
+		 * @throws IllegalArgumentException If there are no integers left
+		 */
+		public int nextInt() {
+			int b = read();
+			while (b != '-' && (b < '0' || b > '9')) {
+				if (b == -1) throw new IllegalArgumentException("Map file ended early!");
+				b = read();
+			}
+
+			boolean negative = b == '-';
+			if (negative) b = read();
+
+			int value = 0;
+			while (b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				b = read();
+			}
+			return negative ? -value : value;
+		}
+
+		/**
+		 * Fills layer z of the grid with tile ids, row by row.
+		 */
+		public void readTiles(TileGrid grid, int z) {
+			for (int i = 0, n = grid.width * grid.height; i < n; i++)
+				grid.setTile(z, i, nextInt());
+		}
+
+		/**
+		 * Fills the solid flags of the grid row by row, where any number other than 0 is solid.
+		 */
+		public void readSolids(TileGrid grid) {
+			for (int i = 0, n = grid.width * grid.height; i < n; i++)
+				grid.setSolid(i, nextInt() != 0);
+		}
+
+	}
+
+}
@@ -6,32 +6,12 @@ import Engine.Animation;
 import Engine.AssetManager;
 import Engine.Sprite;
 
-@SuppressWarnings("unused")
 public class Tile {
 
 	public static final int NORM_GAME_SIZE = 48; // the normal size constant for game mode
 	public static int GAME_SIZE = NORM_GAME_SIZE; // the size that tiles should be rendered in game mode
 
-	private static Tile[] tiles = new Tile[256]; // list of all tiles
-	private static final Tile grassTile = new Tile(0);
-	private static final Tile sandTile = new Tile(1);
-	private static final Tile brickTile = new Tile(2);
-	private static final Tile waterTile = new Tile.Animated(3, new int[][] { { 0 , 0 } , { 1 , 0 } , { 2 , 0 } , { 1 , 0 } }, 750);
-	private static final Tile lavaTile = new Tile.Animated(4, new int[][] { { 0 , 0 } , { 1 , 0 } , { 2 , 0 } , { 1 , 0 } }, 750);
-	private static final Tile treeTile = new Tile(5);
-	private static final Tile sunTile = new Tile(6);
-	private static final Tile flowerTile = new Tile(7);
-	private static final Tile houseDoorTile = new Tile(8);
-	private static final Tile houseWindowTile = new Tile(9);
-	private static final Tile houseWallTile = new Tile(10);
-	private static final Tile upperLeftBlueHouseTile = new Tile(11);
-	private static final Tile upperMiddleBlueHouseTile = new Tile(12);
-	private static final Tile upperRightBlueHouseTile = new Tile(13);
-	private static final Tile lowerLeftBlueHouseTile = new Tile(14);
-	private static final Tile lowerMiddleBlueHouseTile = new Tile(15);
-	private static final Tile lowerRightBlueHouseTile = new Tile(16);
-	private static final Tile woodenFloorboardTile = new Tile(17);
-	private static final Tile stoneBrickTile = new Tile(18);
+	private static final Tile[] tiles = new Tile[256]; // list of all tiles, filled in by loadTiles()
 
 	protected int id; // id of the tile
 	protected Sprite sprite; // the sprite of the tile (from Assets)
@@ -42,20 +22,50 @@ public class Tile {
 		tiles[id] = this;
 	}
 
-	protected void tick() {}
-
-	public void render(Graphics g, int tx, int ty, int ox, int oy, int size) { g.drawImage(sprite.image(), tx * size + ox, ty * size + oy, size, size, null); }
+	/**
+	 * Returns true if this tile's image changes over time, meaning it can't be pre-rendered.
+	 */
+	public boolean isAnimated() { return false; }
+
+	/**
+	 * Draws the tile at the given tile coordinates.
+	 *
+	 * @param time The Clock time to draw animated tiles at, which the play state takes when it publishes a snapshot rather than reading the clock while
+	 *             drawing
+	 */
+	public void render(Graphics g, int tx, int ty, int ox, int oy, int size, double time) {
+		g.drawImage(sprite.scaled(size, size), tx * size + ox, ty * size + oy, null);
+	}
 
 	public static Tile getTile(int id) {
 		if (id >= 0 && id < tiles.length && tiles[id] != null) return tiles[id];
 		else return tiles[2];
 	}
 
-	public static void tickTiles() {
-		for (int i = 0; i < tiles.length; i++) {
-			if (tiles[i] == null) break;
-			tiles[i].tick();
-		}
+	/**
+	 * Creates every tile, each of which adds itself to the list of tiles. Has to be called after AssetManager has loaded the tile sprites, and before
+	 * any tile is drawn.
+	 */
+	public static void loadTiles() {
+		new Tile(0); // grass
+		new Tile(1); // sand
+		new Tile(2); // brick
+		new Tile.Animated(3, new int[][] { { 0 , 0 } , { 1 , 0 } , { 2 , 0 } , { 1 , 0 } }, 750); // water
+		new Tile.Animated(4, new int[][] { { 0 , 0 } , { 1 , 0 } , { 2 , 0 } , { 1 , 0 } }, 750); // lava
+		new Tile(5); // tree
+		new Tile(6); // sun
+		new Tile(7); // flower
+		new Tile(8); // house door
+		new Tile(9); // house window
+		new Tile(10); // house wall
+		new Tile(11); // upper left of the blue house
+		new Tile(12); // upper middle of the blue house
+		new Tile(13); // upper right of the blue house
+		new Tile(14); // lower left of the blue house
+		new Tile(15); // lower middle of the blue house
+		new Tile(16); // lower right of the blue house
+		new Tile(17); // wooden floorboard
+		new Tile(18); // stone brick
 	}
 
 	///////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -69,10 +79,10 @@ public class Tile {
 			animation = new Animation(msDelay, sprite, animFrames);
 		}
 
-		protected void tick() { animation.tick(); }
+		public boolean isAnimated() { return true; }
 
-		public void render(Graphics g, int tx, int ty, int ox, int oy, int size) {
-			g.drawImage(animation.currentFrame().image(), tx * size + ox, ty * size + oy, size, size, null);
+		public void render(Graphics g, int tx, int ty, int ox, int oy, int size, double time) {
+			g.drawImage(animation.frameAt(time).scaled(size, size), tx * size + ox, ty * size + oy, null);
 		}
 
 	}
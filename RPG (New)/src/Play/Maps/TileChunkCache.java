@@ -0,0 +1,269 @@
+package Play.Maps;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Caches a TileMap as square chunks of CHUNK_SIZE x CHUNK_SIZE tiles, with every layer pre-rendered into a single image at the current tile size, so that a
+ * frame draws a handful of chunk images instead of one scaled image per tile per layer. Chunks with no transparent pixels are stored as opaque images, which
+ * are much faster to draw than translucent ones. The cells that have an animated tile on any layer are drawn again on top of their chunk every frame, all
+ * layers in order, so that the animation shows and anything layered over it still covers it.
+ *
+ * Chunks are only baked once the tile size has stayed the same for a couple of frames, so zooming draws tiles directly instead of rebaking every frame. The
+ * least recently drawn chunks are thrown away once the cache holds more than maxPixels pixels.
+ *
+ * The play state draws on the render thread from TileWindows, copies of the map taken on the game thread, while the map may be edited on the game thread.
+ * So the game thread only ever queues invalidations, each stamped with the version of the map's tiles it makes, and everything else is done by whichever
+ * thread is rendering. A frame only applies the invalidations up to the version of the window it draws, leaving later ones for the frames that draw the
+ * copies with those edits in them, so a chunk is never baked from a copy older than an edit that has already been applied.
+ *
+ * Chunks are addressed in world tile coordinates, so a map made of several grids (i.e. the pages of a PagedTileMap) can share one cache as long as each
+ * grid starts on a chunk boundary.
+ */
+public class TileChunkCache {
+
+	public static final int CHUNK_SIZE = 8; // width and height of a chunk in tiles
+	private static final long maxPixels = 16 * 1024 * 1024; // the most pixels (4 bytes each) that all of the cached chunk images can hold together
+	private static final int framesBeforeBaking = 2; // how many frames in a row the tile size has to stay the same before chunks are baked at it
+
+	private final TileMap map; // the map being cached
+
+	private final LinkedHashMap<Long, Chunk> chunks = new LinkedHashMap<Long, Chunk>(64, 0.75f, true); // baked chunks in least to most recently drawn order
+	private long pixelsUsed = 0; // the number of pixels in all of the chunk images
+
+	private int bakedSize = -1; // the tile size that the chunks in the cache were baked at
+	private int lastSize = -1; // the tile size of the last frame
+	private int framesAtSize = 0; // the number of frames in a row that have used lastSize
+
+	private static final long ALL = Long.MIN_VALUE; // the key of an invalidation of every chunk, which no chunk has
+
+	private final ConcurrentLinkedQueue<Edit> dirty = new ConcurrentLinkedQueue<Edit>(); // chunks that have changed since they were baked, oldest first
+	private long edits = 0; // the number of invalidations so far, which is the version of the map's tiles, only used on the game thread
+
+	/**
+	 * @param map The map that should be cached
+	 */
+	public TileChunkCache(TileMap map) { this.map = map; }
+
+	/**
+	 * Marks the chunk containing the given tile as needing to be baked again.
+	 *
+	 * @param tx The x coordinate of the tile that changed
+	 * @param ty The y coordinate of the tile that changed
+	 */
+	public void invalidate(int tx, int ty) { dirty.add(new Edit(key(tx / CHUNK_SIZE, ty / CHUNK_SIZE), ++edits)); }
+
+	/**
+	 * Marks every chunk as needing to be baked again, i.e. when the map's tiles have all been replaced.
+	 */
+	public void invalidateAll() { dirty.add(new Edit(ALL, ++edits)); }
+
+	/**
+	 * Returns the version of the map's tiles, which goes up with every invalidation. Game thread only.
+	 */
+	public long version() { return edits; }
+
+	/**
+	 * Applies every invalidation so far and returns whether the chunks should be drawn at the given tile size this frame, for frames drawn straight from
+	 * the live map on the thread that edits it.
+	 *
+	 * @param size The size of a tile in pixels this frame
+	 */
+	public boolean beginFrame(int size) { return beginFrame(size, Long.MAX_VALUE); }
+
+	/**
+	 * Applies the invalidations up to the given version, and returns whether the chunks should be drawn at the given tile size this frame. Returns false
+	 * if the tile size has changed too recently to be worth baking at, in which case the tiles should be drawn directly.
+	 *
+	 * @param size    The size of a tile in pixels this frame
+	 * @param version The version() of the cache when the tiles being drawn were copied from the map
+	 */
+	public boolean beginFrame(int size, long version) {
+		// Throw away anything that changed up to the copy being drawn, leaving later changes for the frames that draw them
+		for (Edit e = dirty.peek(); e != null && e.version <= version; e = dirty.peek()) {
+			dirty.poll();
+			if (e.key == ALL) clear();
+			else remove(e.key);
+		}
+
+		// Wait for the tile size to settle before baking at it
+		if (size != lastSize) {
+			lastSize = size;
+			framesAtSize = 0;
+		}
+		if (framesAtSize < framesBeforeBaking) {
+			framesAtSize++;
+			return false;
+		}
+		if (size != bakedSize) {
+			clear();
+			bakedSize = size;
+		}
+		return true;
+	}
+
+	/**
+	 * Draws the chunks of the grid that overlap the given window of tiles, baking any that aren't cached yet. Should only be called after beginFrame()
+	 * returned true for this frame.
+	 *
+	 * @param g    The Graphics object to draw with
+	 * @param grid The grid to draw, which must hold the whole window
+	 * @param gx   The x coordinate in the map of the grid's left column, which must be a multiple of CHUNK_SIZE
+	 * @param gy   The y coordinate in the map of the grid's top row, which must be a multiple of CHUNK_SIZE
+	 * @param px   The x offset of the camera
+	 * @param py   The y offset of the camera
+	 * @param size The size of a tile in pixels
+	 * @param tx0  The leftmost column to draw
+	 * @param ty0  The topmost row to draw
+	 * @param tx1  One past the rightmost column to draw
+	 * @param ty1  One past the bottommost row to draw
+	 * @param time The Clock time to draw animated tiles at
+	 */
+	public void render(Graphics g, TileGrid grid, int gx, int gy, int px, int py, int size, int tx0, int ty0, int tx1, int ty1, double time) {
+		int chunkPixels = CHUNK_SIZE * size;
+		int screenWidth = map.game.getWidth(), screenHeight = map.game.getHeight();
+		for (int cy = ty0 / CHUNK_SIZE, cyMax = (ty1 - 1) / CHUNK_SIZE; cy <= cyMax; cy++) {
+			for (int cx = tx0 / CHUNK_SIZE, cxMax = (tx1 - 1) / CHUNK_SIZE; cx <= cxMax; cx++) {
+				// Skip chunks that are off screen
+				int sx = cx * chunkPixels + px, sy = cy * chunkPixels + py;
+				if (sx + chunkPixels < 0 || sx > screenWidth || sy + chunkPixels < 0 || sy > screenHeight) continue;
+
+				Chunk c = get(grid, gx, gy, cx, cy, size);
+				if (c.image != null) g.drawImage(c.image, sx, sy, null);
+
+				// Draw the cells with animated tiles again on top of the chunk they belong to
+				for (int i = 0; i < c.animated.length; i += 2) {
+					int tx = c.animated[i], ty = c.animated[i + 1];
+					if ((tx + 1) * size + px < 0 || tx * size + px > screenWidth || (ty + 1) * size + py < 0 || ty * size + py > screenHeight) continue;
+					for (int z = 0, index = grid.index(tx - gx, ty - gy); z < grid.numLayers; z++) {
+						if (grid.getTile(z, index) != TileGrid.EMPTY) Tile.getTile(grid.getTile(z, index)).render(g, tx, ty, px, py, size, time);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the chunk at the given position, baking and caching it first if needed.
+	 */
+	private Chunk get(TileGrid grid, int gx, int gy, int cx, int cy, int size) {
+		Long k = key(cx, cy);
+		Chunk c = chunks.get(k);
+		if (c != null) return c;
+
+		c = bake(grid, gx, gy, cx, cy, size);
+		chunks.put(k, c);
+		if (c.image != null) pixelsUsed += c.image.getWidth() * c.image.getHeight();
+
+		// Evict the least recently drawn chunks until the cache fits in its budget again, but never the one just baked
+		Iterator<Chunk> it = chunks.values().iterator();
+		while (pixelsUsed > maxPixels && chunks.size() > 1) {
+			Chunk eldest = it.next();
+			if (eldest.image != null) pixelsUsed -= eldest.image.getWidth() * eldest.image.getHeight();
+			it.remove();
+		}
+		return c;
+	}
+
+	/**
+	 * Draws every layer of the given chunk into a new image, which is made opaque if nothing in it is see-through, and collects the positions of the
+	 * cells that have animated tiles.
+	 */
+	private Chunk bake(TileGrid grid, int gx, int gy, int cx, int cy, int size) {
+		int x0 = cx * CHUNK_SIZE, y0 = cy * CHUNK_SIZE;
+		int x1 = Math.min(x0 + CHUNK_SIZE, gx + grid.width), y1 = Math.min(y0 + CHUNK_SIZE, gy + grid.height);
+
+		Chunk c = new Chunk();
+		int[] animated = new int[CHUNK_SIZE * CHUNK_SIZE * 2];
+		int numAnimated = 0;
+		BufferedImage image = null;
+		Graphics g = null;
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0, i = grid.index(x0 - gx, y - gy); x < x1; x++, i++) {
+				boolean isAnimated = false;
+				for (int z = 0; z < grid.numLayers; z++) {
+					int id = grid.getTile(z, i);
+					if (id == TileGrid.EMPTY) continue;
+
+					// Only make an image for chunks that have something in them
+					if (g == null) {
+						image = new BufferedImage((x1 - x0) * size, (y1 - y0) * size, BufferedImage.TYPE_INT_ARGB);
+						g = image.getGraphics();
+					}
+					Tile t = Tile.getTile(id);
+					// Animated tiles are drawn again over the chunk every frame, so the time they are baked at doesn't matter
+					t.render(g, x - x0, y - y0, 0, 0, size, 0);
+					isAnimated |= t.isAnimated();
+				}
+				if (isAnimated) {
+					animated[numAnimated++] = x;
+					animated[numAnimated++] = y;
+				}
+			}
+		}
+		c.animated = Arrays.copyOf(animated, numAnimated);
+		if (g == null) return c;
+		g.dispose();
+
+		// Copy the chunk into an opaque image if every pixel is opaque anyway
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		boolean opaque = true;
+		for (int i = 0; i < pixels.length && opaque; i++)
+			opaque = (pixels[i] >>> 24) == 0xFF;
+		if (opaque) {
+			c.image = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+			c.image.getRaster().setDataElements(0, 0, image.getWidth(), image.getHeight(), pixels);
+		} else c.image = image;
+		return c;
+	}
+
+	/**
+	 * Removes the chunk with the given key from the cache if it's there.
+	 */
+	private void remove(Long k) {
+		Chunk c = chunks.remove(k);
+		if (c != null && c.image != null) pixelsUsed -= c.image.getWidth() * c.image.getHeight();
+	}
+
+	/**
+	 * Removes every chunk from the cache.
+	 */
+	private void clear() {
+		chunks.clear();
+		pixelsUsed = 0;
+	}
+
+	/**
+	 * Returns the key of the chunk at chunk coordinates (cx, cy).
+	 */
+	private static Long key(int cx, int cy) { return ((long) cy << 32) | cx; }
+
+	/**
+	 * An invalidation of a chunk, or of every chunk.
+	 */
+	private static class Edit {
+
+		final long key; // the key of the chunk that changed, or ALL
+		final long version; // the version of the map's tiles that the change made
+
+		Edit(long key, long version) {
+			this.key = key;
+			this.version = version;
+		}
+
+	}
+
+	/**
+	 * A baked chunk of every layer.
+	 */
+	private static class Chunk {
+		BufferedImage image; // every layer of the chunk, or null if there aren't any tiles in it
+		int[] animated; // the tile coordinates of the cells with animated tiles in the chunk as x, y pairs
+	}
+
+}
@@ -0,0 +1,118 @@
+package Play.Maps;
+
+import java.util.Arrays;
+
+/**
+ * The tile ids and solid flags of a map, stored flat: one short per tile per layer in row-major order, and one bit per tile for whether it is solid. A
+ * tile's index is y * width + x, which is the same on every layer, so loops over a window of the map can work out the index of a row once and step along
+ * it.
+ *
+ * Tile ids are at most a few hundred, so a short holds any of them, and -1 (EMPTY) means there is no tile on that layer.
+ */
+public class TileGrid {
+
+	public static final int EMPTY = -1; // The id of a spot with no tile on it
+
+	public final int width, height, numLayers; // The size of the grid in tiles
+
+	private final short[][] tiles; // The tile ids of each layer, indexed [layer][y * width + x]
+	private final long[] solids; // Whether each tile is solid, with tile i at bit (i & 63) of solids[i >> 6]
+
+	/**
+	 * Constructs a grid of the given size with tile 0 everywhere and nothing solid.
+	 *
+	 * @param width     The width of the grid in tiles
+	 * @param height    The height of the grid in tiles
+	 * @param numLayers The number of layers
+	 */
+	public TileGrid(int width, int height, int numLayers) {
+		this.width = width;
+		this.height = height;
+		this.numLayers = numLayers;
+		tiles = new short[numLayers][width * height];
+		solids = new long[(width * height + 63) >> 6];
+	}
+
+	/**
+	 * Returns the index of the tile at (x, y), which must be in bounds.
+	 */
+	public int index(int x, int y) { return y * width + x; }
+
+	/**
+	 * Returns true if (x, y) is a tile of this grid.
+	 */
+	public boolean inBounds(int x, int y) { return x >= 0 && y >= 0 && x < width && y < height; }
+
+	/**
+	 * Returns the id of the tile with the given index on layer z, or EMPTY if there isn't one.
+	 */
+	public int getTile(int z, int index) { return tiles[z][index]; }
+
+	/**
+	 * Returns the id of the tile at (x, y) on layer z, or EMPTY if there isn't one.
+	 */
+	public int getTile(int x, int y, int z) { return tiles[z][y * width + x]; }
+
+	/**
+	 * Sets the id of the tile with the given index on layer z.
+	 */
+	public void setTile(int z, int index, int id) { tiles[z][index] = (short) id; }
+
+	/**
+	 * Sets the ids of the tiles with indices from (inclusive) to to (exclusive) on layer z, which may span several rows.
+	 */
+	public void fill(int z, int from, int to, int id) { Arrays.fill(tiles[z], from, to, (short) id); }
+
+	/**
+	 * Returns true if the tile with the given index is solid.
+	 */
+	public boolean isSolid(int index) { return (solids[index >> 6] & (1L << index)) != 0; }
+
+	/**
+	 * Returns true if the tile at (x, y) is solid.
+	 */
+	public boolean isSolid(int x, int y) { return isSolid(y * width + x); }
+
+	/**
+	 * Sets whether the tile with the given index is solid.
+	 */
+	public void setSolid(int index, boolean solid) {
+		if (solid) solids[index >> 6] |= 1L << index;
+		else solids[index >> 6] &= ~(1L << index);
+	}
+
+	/**
+	 * Copies a w x h rectangle of tiles, on every layer both grids have, and their solid flags from src at (sx, sy) to this grid at (dx, dy). The
+	 * rectangle must be in bounds in both grids.
+	 *
+	 * @param src The grid to copy from, which may not be this one
+	 * @param sx  The x coordinate of the top left of the rectangle in src
+	 * @param sy  The y coordinate of the top left of the rectangle in src
+	 * @param dx  The x coordinate of the top left of the rectangle in this grid
+	 * @param dy  The y coordinate of the top left of the rectangle in this grid
+	 * @param w   The width of the rectangle in tiles
+	 * @param h   The height of the rectangle in tiles
+	 */
+	public void copyFrom(TileGrid src, int sx, int sy, int dx, int dy, int w, int h) {
+		for (int z = 0, layers = Math.min(numLayers, src.numLayers); z < layers; z++) {
+			for (int y = 0; y < h; y++)
+				System.arraycopy(src.tiles[z], src.index(sx, sy + y), tiles[z], index(dx, dy + y), w);
+		}
+		for (int y = 0; y < h; y++) {
+			for (int x = 0, s = src.index(sx, sy + y), d = index(dx, dy + y); x < w; x++, s++, d++)
+				setSolid(d, src.isSolid(s));
+		}
+	}
+
+	/**
+	 * Returns true if o is a grid of the same size with the same tiles and solid flags.
+	 */
+	public boolean equals(Object o) {
+		if (!(o instanceof TileGrid)) return false;
+		TileGrid g = (TileGrid) o;
+		return width == g.width && height == g.height && Arrays.deepEquals(tiles, g.tiles) && Arrays.equals(solids, g.solids);
+	}
+
+	public int hashCode() { return 31 * Arrays.deepHashCode(tiles) + Arrays.hashCode(solids); }
+
+}
@@ -1,13 +1,21 @@
 package Play.Maps;
 
 import java.awt.Graphics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import Engine.AssetManager;
+import Engine.Clock;
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Engine.Tools;
 import Play.Entities.Dynamic;
 import Play.Entities.Entity;
+import Play.Entities.EntityStore;
 import Play.Maps.MapManager.Maps;
 
 public class TileMap {
@@ -15,19 +23,26 @@ public class TileMap {
 	protected Game game; // The instance of the game
 	public final Maps id; // The id of the map
 
-	protected int[][][] tileData; // The tile id data for the map
-	protected boolean[][] solidData; // The solid data for the map
+	protected TileGrid grid; // The tile ids and solid flags of the map
 
 	protected int numWide, numTall, numLayers; // Size variables of the map
+	private int solidVersion = 0; // Incremented whenever a tile changes whether it is solid, so PathFinder knows when its paths are out of date
+
+	protected final TileChunkCache chunkCache = new TileChunkCache(this); // Pre-rendered chunks of the map used when rendering in game mode
+	private final HashMap<Object, FlowField> flowFields = new HashMap<Object, FlowField>(); // The flow fields on this map, by what they lead to
 
 	/**
+	 * Constructs one of the game's maps, using its tiles from MapManager if they were prefetched or reading them now if not.
+	 * 
 	 * @param game The instance of the game object
 	 * @param id   The id of the map to be loaded
 	 */
 	public TileMap(Game game, Maps id) {
 		this.game = game;
 		this.id = id;
-		load("/maps/" + id + ".map", Tools.ResourceLoader.LOAD_RESOURCE);
+
+		TileGrid grid = MapManager.takeGrid(id);
+		setGrid((grid != null) ? grid : new TileGrid(0, 0, 1));
 	}
 
 	/**
@@ -38,75 +53,173 @@ public class TileMap {
 	 * @param height The height of the new map
 	 */
 	public TileMap(Game game, int width, int height) {
-		this.numWide = width;
-		this.numTall = height;
-		this.numLayers = 1;
 		this.id = null;
+		this.game = game;
+		setGrid(new TileGrid(width, height, 1));
+	}
 
-		tileData = new int[numLayers][height][width];
-		solidData = new boolean[height][width];
+	/**
+	 * Constructs a map of the given size without any tile data, for subclasses that store their tiles some other way and override every method that
+	 * uses the grid.
+	 * 
+	 * @param game      The instance of the game object
+	 * @param id        The id of the map, or null if it isn't one of the game's maps
+	 * @param width     The width of the map
+	 * @param height    The height of the map
+	 * @param numLayers The number of layers in the map
+	 */
+	protected TileMap(Game game, Maps id, int width, int height, int numLayers) {
 		this.game = game;
+		this.id = id;
+		this.numWide = width;
+		this.numTall = height;
+		this.numLayers = numLayers;
 	}
 
 	/**
-	 * Loads a map with the given path by the given method.
+	 * Loads a map with the given path by the given method, replacing this map's data. Does nothing if the map can't be found.
 	 * 
 	 * @param path The path of the map to be loaded
 	 * @param type ResourceLoader.LOAD_FILE or ResourceLoader.LOAD_RESOURCE
 	 */
 	public void load(String path, int type) {
-		// Start loading text file
-		String text = Tools.ResourceLoader.loadTextFile(path, type);
-		String[] tokens = text.split("\nBREAK\n");
-
-		// Get important values
-		String[] mapSize = tokens[0].split("\\s+");
-		numWide = Integer.parseInt(mapSize[0]);
-		numTall = Integer.parseInt(mapSize[1]);
-		numLayers = Integer.parseInt(mapSize[2]);
-		tileData = new int[numLayers][numTall][numWide];
-		solidData = new boolean[numTall][numWide];
-
-		// Load tile data
-		for (int z = 0; z < numLayers; z++) {
-			String[] lines = tokens[z + 1].split("\n");
-			for (int y = 0; y < numTall; y++) {
-				String[] data = lines[y].split("\\s+");
-				for (int x = 0; x < numWide; x++) {
-					tileData[z][y][x] = Integer.parseInt(data[x]);
-				}
-			}
-		}
+		TileGrid grid = readGrid(path, type);
+		if (grid != null) setGrid(grid);
+	}
 
-		// Load solid data
-		String[] solidLines = tokens[numLayers + 1].split("\n");
-		for (int y = 0; y < numTall; y++) {
-			String[] solidDataTokens = solidLines[y].split("\\s+");
-			for (int x = 0; x < numWide; x++) {
-				int val = Integer.parseInt(solidDataTokens[x]);
-				solidData[y][x] = (val == 0) ? false : true;
+	/**
+	 * Reads the map with the given path by the given method. Paths ending in BinaryMapFormat.EXTENSION are read as binary maps, and anything else as a text
+	 * map. Safe to call from any thread.
+	 * 
+	 * @param path The path of the map to be read
+	 * @param type ResourceLoader.LOAD_FILE or ResourceLoader.LOAD_RESOURCE
+	 * @return The tile ids and solid flags of the map, or null if it can't be found, read or made sense of
+	 */
+	public static TileGrid readGrid(String path, int type) {
+		try {
+			if (path.endsWith(BinaryMapFormat.EXTENSION)) {
+				ByteBuffer buffer = Tools.ResourceLoader.loadBinaryFile(path, type);
+				return (buffer != null) ? BinaryMapFormat.read(buffer) : null;
 			}
+
+			ReadableByteChannel channel = Tools.ResourceLoader.openChannel(path, type);
+			return (channel != null) ? TextMapFormat.read(channel) : null;
+		} catch (IOException e) {
+			Diagnostics.error(Category.MAPS, "Map with path " + path + " could not be read!");
+			return null;
+		} catch (RuntimeException e) {
+			// Malformed files throw from the formats as they run out of bytes or find something they don't expect
+			Diagnostics.error(Category.MAPS, "Map with path " + path + " is malformed: " + e);
+			return null;
 		}
+	}
+
+	public void render(Graphics g, int px, int py) { render(g, px, py, Tile.GAME_SIZE, 0, 0, numWide, numTall); }
 
+	/**
+	 * Renders the tiles within the given window of the map that are on screen, using pre-rendered chunks of the map once the tile size has settled. This
+	 * reads the live map, so it must be called on the thread that changes it (i.e. in the editor); the play state draws a TileWindow copied from the map
+	 * instead.
+	 * 
+	 * @param g    The Graphics object to draw with
+	 * @param px   The x offset of the camera
+	 * @param py   The y offset of the camera
+	 * @param size The size of a tile in pixels
+	 * @param tx0  The leftmost column to consider drawing
+	 * @param ty0  The topmost row to consider drawing
+	 * @param tx1  One past the rightmost column to consider drawing
+	 * @param ty1  One past the bottommost row to consider drawing
+	 */
+	public void render(Graphics g, int px, int py, int size, int tx0, int ty0, int tx1, int ty1) {
+		TileGrid grid = this.grid;
+		tx0 = Math.max(tx0, 0);
+		ty0 = Math.max(ty0, 0);
+		tx1 = Math.min(tx1, grid.width);
+		ty1 = Math.min(ty1, grid.height);
+		if (tx0 >= tx1 || ty0 >= ty1) return;
+
+		if (chunkCache.beginFrame(size)) chunkCache.render(g, grid, 0, 0, px, py, size, tx0, ty0, tx1, ty1, Clock.now());
+		else renderTiles(g, grid, 0, 0, px, py, size, tx0, ty0, tx1, ty1, Clock.now());
 	}
 
-	public void render(Graphics g, int px, int py) {
-		for (int z = 0; z < numLayers; z++) {
-			for (int y = 0; y < numTall; y++) {
-				for (int x = 0; x < numWide; x++) {
-					// If tileData is empty or off screen, don't render
-					if (tileData[z][y][x] == -1) continue;
-					if ((x + 1) * Tile.GAME_SIZE + px < 0 || x * Tile.GAME_SIZE + px > game.getWidth()) continue;
-					if ((y + 1) * Tile.GAME_SIZE + py < 0 || y * Tile.GAME_SIZE + py > game.getHeight()) continue;
+	/**
+	 * Copies the tiles of this map that are in the window into it with TileWindow.copy(). Subclasses that don't keep their tiles in one grid override this.
+	 */
+	void copyWindow(TileWindow window) { window.copy(grid, 0, 0); }
+
+	/**
+	 * Renders the tiles of the grid within the given window that are on screen one by one, without using the chunk cache.
+	 * 
+	 * @param g    The Graphics object to draw with
+	 * @param grid The grid to draw, which must hold the whole window
+	 * @param gx   The x coordinate in the map of the grid's left column
+	 * @param gy   The y coordinate in the map of the grid's top row
+	 * @param px   The x offset of the camera
+	 * @param py   The y offset of the camera
+	 * @param size The size of a tile in pixels
+	 * @param tx0  The leftmost column to draw
+	 * @param ty0  The topmost row to draw
+	 * @param tx1  One past the rightmost column to draw
+	 * @param ty1  One past the bottommost row to draw
+	 * @param time The Clock time to draw animated tiles at
+	 */
+	protected void renderTiles(Graphics g, TileGrid grid, int gx, int gy, int px, int py, int size, int tx0, int ty0, int tx1, int ty1, double time) {
+		for (int z = 0; z < grid.numLayers; z++) {
+			for (int y = ty0; y < ty1; y++) {
+				if ((y + 1) * size + py < 0 || y * size + py > game.getHeight()) continue;
+				for (int x = tx0, i = grid.index(tx0 - gx, y - gy); x < tx1; x++, i++) {
+					// If the tile is empty or off screen, don't render
+					int id = grid.getTile(z, i);
+					if (id == TileGrid.EMPTY) continue;
+					if ((x + 1) * size + px < 0 || x * size + px > game.getWidth()) continue;
 
 					// Render if on screen and not empty
-					Tile.getTile(tileData[z][y][x]).render(g, x, y, px, py, Tile.GAME_SIZE);
+					Tile.getTile(id).render(g, x, y, px, py, size, time);
 				}
 			}
 		}
 	}
 
-	public boolean isSolid(int tx, int ty) { return solidData[ty][tx]; }
+	/**
+	 * Replaces all of this map's data with the given grid, which is used as is rather than copied, and throws away every baked chunk.
+	 * 
+	 * @param grid The new tile ids and solid flags of the map
+	 */
+	protected void setGrid(TileGrid grid) {
+		this.grid = grid;
+		numWide = grid.width;
+		numTall = grid.height;
+		numLayers = grid.numLayers;
+		chunkCache.invalidateAll();
+		solidChanged();
+	}
+
+	/**
+	 * Records that tiles have changed whether they are solid. Called by everything that changes them.
+	 */
+	protected void solidChanged() { solidVersion++; }
+
+	/**
+	 * Returns a number that changes whenever a tile of this map changes whether it is solid.
+	 */
+	public int solidVersion() { return solidVersion; }
+
+	/**
+	 * Returns true if (tx, ty) is a tile of this map.
+	 */
+	public boolean inBounds(int tx, int ty) { return tx >= 0 && ty >= 0 && tx < numWide && ty < numTall; }
+
+	public boolean isSolid(int tx, int ty) { return grid.isSolid(tx, ty); }
+
+	/**
+	 * Returns true if isSolid() and getTile() may be called from several threads at once, as long as nothing is changing the map meanwhile.
+	 */
+	public boolean allowsConcurrentReads() { return true; }
+
+	/**
+	 * Returns the id of the tile at (tx, ty) on layer tz, or TileGrid.EMPTY if there isn't one.
+	 */
+	public int getTile(int tx, int ty, int tz) { return grid.getTile(tx, ty, tz); }
 
 	/**
 	 * Sets the given tile to be solid or not based on the given boolean.
@@ -118,7 +231,9 @@ public class TileMap {
 	 */
 	public TileMap setSolid(int tx, int ty, boolean b) {
 		// Set flag and recollect colliders
-		solidData[ty][tx] = b;
+		grid.setSolid(grid.index(tx, ty), b);
+		chunkCache.invalidate(tx, ty);
+		solidChanged();
 		return this;
 	}
 
@@ -131,22 +246,53 @@ public class TileMap {
 	 * @return The map after having been changed
 	 */
 	public TileMap setTile(int tx, int ty, int tz, int id) {
-		if (id < AssetManager.getTileSprites().length && id >= 0) tileData[tz][ty][tx] = id;
+		if (id < AssetManager.getTileSprites().length && id >= 0) grid.setTile(tz, grid.index(tx, ty), id);
+		chunkCache.invalidate(tx, ty);
 		return this;
 	}
 
 	/**
-	 * Returns the solid data of this tile map.
+	 * Returns the grid this map keeps its tile ids and solid flags in, for the map formats' converters, or null if the map keeps them some other way (i.e.
+	 * a PagedTileMap). Everything else reads the tiles through getTile() and isSolid(), which work for every map.
+	 */
+	final TileGrid getGrid() { return grid; }
+
+	/**
+	 * Updates the flow fields on this map. Subclasses that override this should call it too.
+	 */
+	public void tick(double deltaTime) {
+		for (FlowField field : flowFields.values())
+			field.update();
+	}
+
+	/**
+	 * Returns the flow field on this map leading to the given target, i.e. an entity, making it if there isn't one yet. Everything heading for the same
+	 * target should share its field, which the map keeps up to date as it ticks once given a goal.
+	 *
+	 * @param target What the field leads to, which is only used to tell fields apart
 	 */
-	public boolean[][] getSolidData() { return solidData; }
+	public FlowField flowField(Object target) {
+		FlowField field = flowFields.get(target);
+		if (field == null) flowFields.put(target, field = new FlowField(this, FlowField.DEFAULT_RADIUS));
+		return field;
+	}
 
-	public void tick(double deltaTime) {}
+	/**
+	 * Throws away the flow field leading to the given target, once nothing is heading there anymore.
+	 */
+	public void removeFlowField(Object target) { flowFields.remove(target); }
 
 	/**
 	 * Adds entities to the provided entityList.
 	 */
 	public void populateDynamics(ArrayList<Dynamic> entityList) {}
 
+	/**
+	 * Adds the plain wandering NPCs of this map, which nobody talks to or scripts, to the crowd. Called each time the map is switched to, after the crowd
+	 * has been emptied.
+	 */
+	public void populateCrowd(EntityStore crowd) {}
+
 	/**
 	 * Called when a player interacts with a target to see if the target has something to do with this quest.
 	 * 
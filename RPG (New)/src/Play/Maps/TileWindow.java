@@ -0,0 +1,114 @@
+package Play.Maps;
+
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * A copy of the tiles in a window of a map, taken on the game thread when a WorldSnapshot is published so that the render thread draws the map without ever
+ * reading it while the game thread changes it. The window is widened to whole chunks so that the map's TileChunkCache can bake chunks from the copy, and
+ * it remembers the cache's version() when it was taken, so that a frame only throws away the chunks that changed before the copy it draws.
+ *
+ * Windows are pooled in snapshots and overwritten by each capture() rather than reallocated, and aren't changed again until the snapshot is reused, so
+ * the render thread can read one without synchronizing.
+ */
+public class TileWindow {
+
+	private TileMap map; // The map the window was copied from, whose chunk cache draws it, or null if nothing has been captured yet
+	private int mapWidth, mapHeight; // The size of the map in tiles
+	private TileGrid grid; // The tiles of the window, EMPTY wherever the map has none or they weren't copied
+	private int x0, y0; // The map coordinates of the top left tile of the grid, which are multiples of TileChunkCache.CHUNK_SIZE
+	private long version; // The version() of the map's chunk cache when the window was copied
+
+	private int[] regions = new int[16]; // The rectangles of the window that were copied from the map, as tx0, ty0, tx1, ty1 in map coordinates
+	private int numRegions; // The number of rectangles in regions
+
+	/**
+	 * Copies the tiles of the map in the given window, widened to whole chunks. Game thread only.
+	 *
+	 * @param map The map to copy from
+	 * @param tx0 The leftmost column that can be seen
+	 * @param ty0 The topmost row that can be seen
+	 * @param tx1 One past the rightmost column that can be seen
+	 * @param ty1 One past the bottommost row that can be seen
+	 */
+	public void capture(TileMap map, int tx0, int ty0, int tx1, int ty1) {
+		// Size the grid by the size of the window alone, so that it is reused as the camera moves
+		int chunk = TileChunkCache.CHUNK_SIZE;
+		int width = ((tx1 - tx0 + chunk - 1) / chunk + 1) * chunk, height = ((ty1 - ty0 + chunk - 1) / chunk + 1) * chunk;
+		if (grid == null || grid.width != width || grid.height != height || grid.numLayers != map.numLayers())
+			grid = new TileGrid(width, height, map.numLayers());
+		for (int z = 0; z < grid.numLayers; z++)
+			grid.fill(z, 0, width * height, TileGrid.EMPTY);
+
+		this.map = map;
+		mapWidth = map.numWide();
+		mapHeight = map.numTall();
+		x0 = Math.floorDiv(tx0, chunk) * chunk;
+		y0 = Math.floorDiv(ty0, chunk) * chunk;
+		version = map.chunkCache.version();
+		numRegions = 0;
+		map.copyWindow(this);
+	}
+
+	/**
+	 * Copies the part of the given grid that is in the window, and marks it as something to draw.
+	 *
+	 * @param src The grid to copy from
+	 * @param gx  The x coordinate in the map of the grid's left column
+	 * @param gy  The y coordinate in the map of the grid's top row
+	 */
+	void copy(TileGrid src, int gx, int gy) {
+		int rx0 = Math.max(x0, gx), ry0 = Math.max(y0, gy), rx1 = Math.min(x1(), gx + src.width), ry1 = Math.min(y1(), gy + src.height);
+		if (rx0 >= rx1 || ry0 >= ry1) return;
+		grid.copyFrom(src, rx0 - gx, ry0 - gy, rx0 - x0, ry0 - y0, rx1 - rx0, ry1 - ry0);
+
+		if (numRegions * 4 == regions.length) regions = Arrays.copyOf(regions, regions.length * 2);
+		int i = numRegions++ * 4;
+		regions[i] = rx0;
+		regions[i + 1] = ry0;
+		regions[i + 2] = rx1;
+		regions[i + 3] = ry1;
+	}
+
+	/**
+	 * Draws the tiles that were copied, using the map's chunk cache once the tile size has settled. Render thread only, or whichever thread is rendering.
+	 *
+	 * @param g    The Graphics object to draw with
+	 * @param px   The x offset of the camera
+	 * @param py   The y offset of the camera
+	 * @param size The size of a tile in pixels
+	 * @param time The Clock time to draw animated tiles at, taken when the snapshot was published
+	 */
+	public void render(Graphics g, int px, int py, int size, double time) {
+		if (map == null) return;
+		boolean baked = map.chunkCache.beginFrame(size, version);
+		for (int i = 0, n = numRegions * 4; i < n; i += 4) {
+			if (baked) map.chunkCache.render(g, grid, x0, y0, px, py, size, regions[i], regions[i + 1], regions[i + 2], regions[i + 3], time);
+			else map.renderTiles(g, grid, x0, y0, px, py, size, regions[i], regions[i + 1], regions[i + 2], regions[i + 3], time);
+		}
+	}
+
+	/**
+	 * Returns true once a window has been captured.
+	 */
+	public boolean isCaptured() { return map != null; }
+
+	int x0() { return x0; }
+
+	int y0() { return y0; }
+
+	int x1() { return x0 + grid.width; }
+
+	int y1() { return y0 + grid.height; }
+
+	/**
+	 * Returns the width of the map the window was copied from in tiles.
+	 */
+	public int mapWidth() { return mapWidth; }
+
+	/**
+	 * Returns the height of the map the window was copied from in tiles.
+	 */
+	public int mapHeight() { return mapHeight; }
+
+}
@@ -6,13 +6,21 @@ import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.Comparator;
 
+import Engine.Clock;
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
+import Engine.Metrics;
 import Engine.State;
+import Engine.TripleBuffer;
 import Engine.Tools.Vec2;
 import Engine.Tools.fRect;
 import Play.Entities.Creature.Facing;
 import Play.Entities.Dynamic;
+import Play.Entities.EntityStore;
 import Play.Entities.Player;
+import Play.Entities.RenderQueue;
+import Play.Entities.SpatialGrid;
 import Play.Entities.Items.ItemManager;
 import Play.Entities.Items.ItemManager.Items;
 import Play.Maps.MapManager;
@@ -43,9 +51,24 @@ public class PlayState extends State {
 	public static Player player;
 
 	public static ArrayList<Dynamic> entities = new ArrayList<Dynamic>();
+	public static SpatialGrid spatialGrid = new SpatialGrid(); // Finds the entities near a point or rectangle without looking at all of them
+	public static EntityStore crowd = new EntityStore(); // Plain wandering NPCs in bulk, which aren't in entities
+	private static final RenderQueue renderQueue = new RenderQueue(); // The visible entities in the order they are drawn, kept between frames
 
 	public static boolean drawHoveredTileCoords = false;
 
+	// Snapshots of the world handed from the game thread to the render thread
+	private final TripleBuffer<WorldSnapshot> snapshots = new TripleBuffer<WorldSnapshot>(new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot());
+
+	// Sorts entities by the y-value at their feet so that entities further down the screen are drawn over those above them, the order RenderQueue keeps
+	public static final Comparator<Dynamic> entitySorter = new Comparator<Dynamic>() {
+
+		public int compare(Dynamic o1, Dynamic o2) {
+			return (o1.pos.y + o1.size.y == o2.pos.y + o2.size.y) ? 0 : (o1.pos.y + o1.size.y > o2.pos.y + o2.size.y) ? 1 : -1;
+		}
+
+	};
+
 	public PlayState(Game game) {
 		super(game);
 		camera = new Camera(game, 0, 0);
@@ -53,15 +76,22 @@ public class PlayState extends State {
 		player = new Player(game, new Vec2(24.5, 32));
 		entities.add(player);
 
-		changeMap(Maps.COOL_ISLAND);
+		changeMap(MapManager.START_MAP);
 
 		camera.centerOnEntity(player, false);
 	}
 
 	public void tick(double deltaTime) {
 
+		// Remember where everything was so rendering can interpolate towards where it ends up
+		for (Dynamic e : entities)
+			e.rememberPos();
+		camera.rememberOffsets();
+
 		// Update commands
+		long start = System.nanoTime();
 		TheaterEngine.tick(deltaTime);
+		Metrics.THEATER_TICK.stop(start);
 
 		// Keyboard commands only run when TheaterEngine is not in control.
 		if (!TheaterEngine.hasCommand()) {
@@ -102,72 +132,156 @@ public class PlayState extends State {
 		}
 
 		// Update entities
-		for (Dynamic e : entities)
-			e.tick(deltaTime);
+		start = System.nanoTime();
+		tickEntities(deltaTime);
+		Metrics.ENTITY_TICK.stop(start);
+
+		// Update the crowd, which collides with the entities where they have just moved to
+		start = System.nanoTime();
+		crowd.tick(deltaTime, map);
+		Metrics.CROWD_TICK.stop(start);
 
 		// Update map
 		map.tick(deltaTime);
 
 		// Update camera
+		start = System.nanoTime();
 		camera.tick(deltaTime);
+		Metrics.CAMERA_TICK.stop(start);
 
 		// Remove completed quests
 		QuestManager.removeCompleted();
 
 	}
 
-	public void render(Graphics g) {
+	/**
+	 * Copies the camera, the tiles that can be seen and the visible entities in the order they should be drawn into the back snapshot, draws the current
+	 * TheaterEngine commands into its overlay, then publishes it for the render thread.
+	 */
+	public void publish() {
+		long publishStart = System.nanoTime();
+		WorldSnapshot s = snapshots.back();
+		s.clear();
+		s.publishTime = System.nanoTime();
+		s.time = Clock.now();
+		s.tileSize = Tile.GAME_SIZE;
+		s.drawHoveredTileCoords = drawHoveredTileCoords;
+		camera.snapshot(s);
+
+		// Find the tiles that are visible at either end of the tick, since frames are drawn in between
+		int size = s.tileSize;
+		s.tx0 = Math.floorDiv(-Math.max(s.ox, s.lastOX), size);
+		s.ty0 = Math.floorDiv(-Math.max(s.oy, s.lastOY), size);
+		s.tx1 = Math.floorDiv(game.getWidth() - Math.min(s.ox, s.lastOX), size) + 1;
+		s.ty1 = Math.floorDiv(game.getHeight() - Math.min(s.oy, s.lastOY), size) + 1;
+		s.tiles.capture(map, s.tx0, s.ty0, s.tx1, s.ty1);
+
+		// Bring the entities and crowd members that are visible, each sorted by the y-value at their feet, up to date, then capture them merged in that order
+		long start = System.nanoTime();
+		renderQueue.update(entities, s.tx0, s.ty0, s.tx1, s.ty1);
+		crowd.updateVisible(s.tx0, s.ty0, s.tx1, s.ty1);
+		Metrics.ENTITY_SORT.stop(start);
+		int i = 0, j = 0, n = renderQueue.size(), m = crowd.numVisible();
+		while (i < n || j < m) {
+			Dynamic e = (i < n) ? renderQueue.get(i) : null;
+			if (e != null && (j == m || e.pos.y + e.size.y <= crowd.visibleKey(j))) {
+				e.snapshot(s.addEntity());
+				i++;
+			} else crowd.snapshot(j++, s.addEntity());
+		}
 
-		// Render map
-		map.render(g, camera.ox, camera.oy);
+		// Capture what the commands in the first TheaterEngine group draw in the world over the entities, and draw what they draw over the screen here, since
+		// they read the live world as they draw, and hand over the picture
+		start = System.nanoTime();
+		TheaterEngine.snapshot(s);
+		if (TheaterEngine.rendersOverlay()) {
+			Graphics g = s.beginOverlay(game.getWidth(), game.getHeight());
+			TheaterEngine.render(g, s.ox, s.oy);
+			g.dispose();
+		}
+		Metrics.THEATER_RENDER.stop(start);
 
-		// Sort entities by the y-value at their feet
-		entities.sort(new Comparator<Dynamic>() {
+		snapshots.publish();
+		Metrics.PUBLISH.stop(publishStart);
+	}
 
-			public int compare(Dynamic o1, Dynamic o2) {
-				return (o1.pos.y + o1.size.y == o2.pos.y + o2.size.y) ? 0 : (o1.pos.y + o1.size.y > o2.pos.y + o2.size.y) ? 1 : -1;
-			}
+	public boolean rendersFromSnapshots() { return true; }
 
-		});
+	public void render(Graphics g) {
 
-		// Draw entities in the correct order
-		for (Dynamic e : entities)
-			e.render(g, camera.ox, camera.oy);
+		// Only ever draw what was published, since the game thread may be in the middle of the next tick
+		WorldSnapshot s = snapshots.acquire();
+		if (!s.tiles.isCaptured()) return;
+
+		// Get the camera offsets in between the start and end of the tick
+		double alpha = Game.interpolation(s.publishTime);
+		int ox = (int) Math.round(s.lastOX + (s.ox - s.lastOX) * alpha), oy = (int) Math.round(s.lastOY + (s.oy - s.lastOY) * alpha);
+		int size = s.tileSize;
+
+		// Render map
+		long start = System.nanoTime();
+		s.tiles.render(g, ox, oy, size, s.time);
+		Metrics.TILE_RENDER.stop(start);
+
+		// Draw entities in the order they were sorted in
+		start = System.nanoTime();
+		fRect screen = new fRect(0, 0, game.getWidth(), game.getHeight());
+		for (int i = 0, n = s.numEntities(); i < n; i++)
+			s.getEntity(i).render(g, ox, oy, size, alpha, screen);
+		Metrics.ENTITY_RENDER.stop(start);
 
 		// Draw a cyan transparent rectangle over the hovered tile, as well as a string containing the tile's coordinates for reference
-		if (drawHoveredTileCoords) {
+		if (s.drawHoveredTileCoords) {
 			fRect mousePos = game.mouseBounds();
-			int tx = (int) (mousePos.x - camera.ox) / Tile.GAME_SIZE - ((mousePos.x - camera.ox < 0) ? 1 : 0);
-			int ty = (int) (mousePos.y - camera.oy) / Tile.GAME_SIZE - ((mousePos.y - camera.oy < 0) ? 1 : 0);
-			if (tx >= 0 && ty >= 0 && tx < map.numWide() && ty < map.numTall()) {
-				new fRect(tx * Tile.GAME_SIZE + camera.ox, ty * Tile.GAME_SIZE + camera.oy, Tile.GAME_SIZE, Tile.GAME_SIZE).fill(g,
-						new Color(0, 255, 255, 120));
+			int tx = (int) (mousePos.x - ox) / size - ((mousePos.x - ox < 0) ? 1 : 0);
+			int ty = (int) (mousePos.y - oy) / size - ((mousePos.y - oy < 0) ? 1 : 0);
+			if (tx >= 0 && ty >= 0 && tx < s.tiles.mapWidth() && ty < s.tiles.mapHeight()) {
+				new fRect(tx * size + ox, ty * size + oy, size, size).fill(g, new Color(0, 255, 255, 120));
 				g.setColor(Color.white);
 				g.setFont(new Font("Times New Roman", Font.BOLD, 36));
 				g.drawString("<" + tx + "," + ty + ">", 10, 36);
 			}
 		}
 
-		TheaterEngine.render(g, camera.ox, camera.oy);
+		// Draw what the TheaterEngine commands drew on top of everything
+		s.renderOverlay(g);
 
 	}
 
+	/**
+	 * Ticks every entity in two phases. First every entity plans its velocity and animation with Dynamic.planAll(), in parallel if there are enough of
+	 * them, from the world as the tick found it. Then they move and interact one at a time in list order on this thread, so each one collides with those
+	 * before it where they have moved to. The spatial grid is kept up to date with any entities that were added, removed or moved since they last ticked.
+	 *
+	 * @param deltaTime The length of the tick in milliseconds
+	 */
+	public static void tickEntities(double deltaTime) {
+		spatialGrid.updateAll(entities);
+		Dynamic.planAll(entities, deltaTime);
+		for (Dynamic e : entities) {
+			e.tick(deltaTime);
+			spatialGrid.update(e);
+		}
+	}
+
 	/**
 	 * Switches the map to the one with the id passed in, or does nothing if the requested map does not exist.
 	 * 
 	 * @param mapID The id of the requested map
 	 */
 	public static void changeMap(Maps mapID) {
-		if (!MapManager.mapList.containsKey(mapID)) {
-			System.out.println("There is no map with the name: " + mapID + "!");
-			return;
-		} else if (map != null && map.id == MapManager.get(mapID).id) {
-			System.out.println("You are already on this map, silly!");
+		if (map != null && map.id == mapID) {
+			Diagnostics.warn(Category.PLAY, "You are already on this map, silly!");
 			return;
 		}
 
-		map = MapManager.get(mapID);
+		TileMap newMap = MapManager.get(mapID);
+		if (newMap == null) return;
+		map = newMap;
+		crowd.clear();
+		map.populateCrowd(crowd);
 		refreshEntities(mapID);
+		MapManager.prefetchDestinations(entities);
 	}
 
 	/**
@@ -185,9 +299,9 @@ public class PlayState extends State {
 		}
 	}
 
-	public Vec2 worldToScreen(Vec2 v) { return new Vec2(v.x * Tile.GAME_SIZE + camera.ox, v.y * Tile.GAME_SIZE + camera.oy); }
+	public Vec2 worldToScreen(Vec2 v, Vec2 result) { return result.set(v.x * Tile.GAME_SIZE + camera.ox, v.y * Tile.GAME_SIZE + camera.oy); }
 
-	public Vec2 screenToWorld(Vec2 v) { return new Vec2((v.x - camera.ox) / Tile.GAME_SIZE, (v.y - camera.oy) / Tile.GAME_SIZE); }
+	public Vec2 screenToWorld(Vec2 v, Vec2 result) { return result.set((v.x - camera.ox) / Tile.GAME_SIZE, (v.y - camera.oy) / Tile.GAME_SIZE); }
 
 	public fRect worldToScreen(fRect r) {
 		Vec2 topCorner = worldToScreen(new Vec2(r.x, r.y));
@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.util.HashMap;
 import java.util.LinkedList;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Engine.Tools.Function;
 import Play.PlayState;
@@ -38,7 +40,7 @@ public class QuestManager {
 	 */
 	public static void setInitiator(Quests questName, Entity initiator) {
 		if (!quests.containsKey(questName)) {
-			System.out.println("There exists no quest with the name: " + questName + ", so obviously nobody could have initiated it!");
+			Diagnostics.warn(Category.QUESTS, "There exists no quest with the name: " + questName + ", so obviously nobody could have initiated it!");
 			return;
 		}
 		quests.get(questName).initiator = initiator;
@@ -51,7 +53,7 @@ public class QuestManager {
 	 */
 	public static void addQuest(Quests questName) {
 		if (!quests.containsKey(questName)) {
-			System.out.println("There exists no quest with the name: " + questName + "!");
+			Diagnostics.warn(Category.QUESTS, "There exists no quest with the name: " + questName + "!");
 			return;
 		}
 
@@ -74,7 +76,7 @@ public class QuestManager {
 	 */
 	public static boolean doingQuest(Quests questName) {
 		if (!quests.containsKey(questName)) {
-			System.out.println("There exists no quest with the name: " + questName + ", so you can't be doing it right now!");
+			Diagnostics.warn(Category.QUESTS, "There exists no quest with the name: " + questName + ", so you can't be doing it right now!");
 			return false;
 		}
 		return currentQuestList.contains(quests.get(questName));
@@ -88,7 +90,7 @@ public class QuestManager {
 	 */
 	public static boolean completedQuest(Quests questName, boolean countingRepeatable) {
 		if (!quests.containsKey(questName)) {
-			System.out.println("There exists no quest with the name: " + questName + ", so there's no way it's already completed!");
+			Diagnostics.warn(Category.QUESTS, "There exists no quest with the name: " + questName + ", so there's no way it's already completed!");
 			return false;
 		}
 		Quest q = quests.get(questName);
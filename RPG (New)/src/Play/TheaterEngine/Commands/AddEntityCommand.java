@@ -1,5 +1,7 @@
 package Play.TheaterEngine.Commands;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Play.PlayState;
 import Play.Entities.Dynamic;
@@ -20,7 +22,7 @@ public class AddEntityCommand extends BaseCommand {
 	public void start() {
 		
 		if (entityToAdd == null) {
-			System.out.println("You can't add a null entity!");
+			Diagnostics.warn(Category.THEATER, "You can't add a null entity!");
 			complete();
 			return;
 		}
@@ -29,7 +31,7 @@ public class AddEntityCommand extends BaseCommand {
 		for (int i = 0; i < PlayState.entities.size(); i++) {
 			Dynamic d = PlayState.entities.get(i);
 			if (d.name.equals(entityToAdd.name)) {
-				System.out.println("There already exists an entity with the name: " + d.name + "! Did not add the entity.");
+				Diagnostics.warn(Category.THEATER, "There already exists an entity with the name: " + d.name + "! Did not add the entity.");
 				foundEntity = true;
 				break;
 			}
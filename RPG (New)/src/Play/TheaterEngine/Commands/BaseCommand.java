@@ -4,6 +4,7 @@ import java.awt.Graphics;
 import java.util.ArrayList;
 
 import Engine.Game;
+import Play.WorldSnapshot;
 
 public abstract class BaseCommand {
 
@@ -32,10 +33,20 @@ public abstract class BaseCommand {
 	}
 
 	/**
-	 * Renders the command if applicable.
+	 * Renders the command if applicable. This draws over the screen as it is, so it is for things that don't move with the world, like dialog boxes.
 	 */
 	public void render(Graphics g, int ox, int oy) {}
 
+	/**
+	 * Returns true if render() draws anything, so that the overlay it is drawn into is only made when something is in it.
+	 */
+	public boolean rendersOverlay() { return false; }
+
+	/**
+	 * Adds anything the command draws in the world to the snapshot as entity states, so that it moves with the camera and the entities it is drawn with.
+	 */
+	public void snapshot(WorldSnapshot s) {}
+
 	/**
 	 * Completes the command.
 	 */
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 
 import Engine.Game;
 import Engine.Tools.Function;
+import Play.WorldSnapshot;
 
 public class FadeOutCommand extends BaseCommand {
 
@@ -44,7 +45,7 @@ public class FadeOutCommand extends BaseCommand {
 		timeElapsed += deltaTime;
 		if (stage == Stage.FADE_OUT) { // If fading out, calculate alpha based on linear interpolation
 			alpha = (int) Math.min(255, (timeElapsed / fadeOutLength * 255.0));
-			if (timeElapsed >= fadeOutLength) {
+			if (timeElapsed >= fadeOutLength && isReadyToHold()) {
 				// Move on to the next stage if enough time has passed, run function if exists, and reset how much time has passed for new timer
 				stage = Stage.HOLD;
 				if (function != null) function.run();
@@ -70,6 +71,19 @@ public class FadeOutCommand extends BaseCommand {
 		}
 	}
 
+	public boolean rendersOverlay() { return true; }
+
+	/**
+	 * Adds what the commands done while faded out draw in the world, which is drawn under the fade like the rest of the world.
+	 */
+	public void snapshot(WorldSnapshot s) {
+		if (isHolding()) {
+			for (int i = 0, n = fadedCommands.size(); i < n; i++) {
+				fadedCommands.get(i).snapshot(s);
+			}
+		}
+	}
+
 	public void render(Graphics g, int ox, int oy) {
 		g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
 		g.fillRect(0, 0, game.getWidth(), game.getHeight());
@@ -100,6 +114,12 @@ public class FadeOutCommand extends BaseCommand {
 			addAction(c);
 	}
 
+	/**
+	 * Returns true if the function can be run now that everything is faded out. Until it returns true, the screen stays faded out without moving on to the hold
+	 * phase.
+	 */
+	protected boolean isReadyToHold() { return true; }
+
 	/**
 	 * Returns true if this command is currently in the completely faded out portion.
 	 */
@@ -10,8 +10,10 @@ public class MoveCommand extends BaseCommand {
 	private double speedToMove = 0; // the speed in ms per tile the entity should move at if doNormSpeed is true
 
 	protected Dynamic e; // The entity to be moved
-	private Vec2 p; // The position the entity should be moved to
-	private Vec2 v; // The velocity vector the entity must follow
+	private final Vec2 p; // The position the entity should be moved to
+	private final Vec2 v = new Vec2(0, 0); // The velocity vector the entity must follow
+	private final Vec2 direction = new Vec2(0, 0); // The unit vector of v
+	private final Vec2 newV = new Vec2(0, 0), newDirection = new Vec2(0, 0); // Reused each tick to check whether the entity was pushed off its path
 	private double time; // The time it should take to move there.
 	private double timeElapsed; // The amount of time in milliseconds that have passed by so far.
 
@@ -29,7 +31,7 @@ public class MoveCommand extends BaseCommand {
 	public MoveCommand(Game game, Dynamic e, Vec2 p, double time, boolean moveThroughThings) {
 		super(game);
 		this.e = e;
-		this.p = p;
+		this.p = new Vec2(p);
 		this.time = time;
 		this.moveThroughThings = moveThroughThings;
 		wasSolidVsStatic = e.solidVsStatic;
@@ -45,7 +47,7 @@ public class MoveCommand extends BaseCommand {
 	public MoveCommand(Game game, Dynamic e, Vec2 p, double speedToMove) {
 		super(game);
 		this.e = e;
-		this.p = p;
+		this.p = new Vec2(p);
 		this.moveThroughThings = true;
 		doNormSpeed = true;
 		this.speedToMove = speedToMove;
@@ -58,7 +60,8 @@ public class MoveCommand extends BaseCommand {
 		if (doNormSpeed) time = p.distanceTo(e.pos) * speedToMove;
 
 		// Get initial velocity (change in position) and set collision flags to false if so desired
-		v = p.subtract(e.pos);
+		v.set(p).subtractLocal(e.pos);
+		direction.set(v).normLocal();
 		if (moveThroughThings) e.setCollisionType(false, false);
 	}
 
@@ -69,30 +72,31 @@ public class MoveCommand extends BaseCommand {
 		timeElapsed += deltaTime;
 
 		// If enough time has passed or the entity is very close to its target, end the movement.
-		if (timeElapsed >= time || p.subtract(e.pos).getMagnitude() <= 0.05) {
+		if (timeElapsed >= time || p.distanceTo(e.pos) <= 0.05) {
 			complete();
 			return;
 		}
 
 		// If the unit vector of the displacement changes from initial value, object collided: calculate new path and reset timer
 		if (!moveThroughThings) {
-			Vec2 newV = p.subtract(e.pos);
-			if (!newV.norm().equals(v.norm())) {
-				v = newV;
+			newV.set(p).subtractLocal(e.pos);
+			if (!newDirection.set(newV).normLocal().equals(direction)) {
+				v.set(newV);
+				direction.set(newDirection);
 				time -= timeElapsed;
 				timeElapsed = 0;
 			}
 		}
 
 		// Set entity's velocity to the correct proportion
-		e.v = v.scale(deltaTime / time);
+		e.v.set(v).scaleLocal(deltaTime / time);
 	}
 
 	public void complete() {
 		super.complete();
 		// Restore initial flags to their old states
-		e.pos = p;
-		e.v = new Vec2(0, 0);
+		e.pos.set(p);
+		e.v.set(0, 0);
 		e.setCollisionType(wasSolidVsStatic, wasSolidVsDynamic);
 	}
 
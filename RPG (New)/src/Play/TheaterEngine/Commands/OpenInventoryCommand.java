@@ -69,6 +69,8 @@ public class OpenInventoryCommand extends BaseCommand {
 		}
 	}
 
+	public boolean rendersOverlay() { return true; }
+
 	public void render(Graphics g, int ox, int oy) {
 		// Fill the rectangle
 		totalRect.fill(g, new Color(128, 128, 128, 240));
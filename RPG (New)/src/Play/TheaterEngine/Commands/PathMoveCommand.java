@@ -0,0 +1,159 @@
+package Play.TheaterEngine.Commands;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+import Engine.Game;
+import Engine.Tools.Vec2;
+import Play.PlayState;
+import Play.Entities.Dynamic;
+import Play.Maps.PathFinder;
+import Play.Maps.PathFinder.Path;
+
+/**
+ * Walks an entity to a position around the walls in its way, following a path from PathFinder, rather than in a straight line like MoveCommand. The
+ * entity stays solid the whole way. It stands still while the path is being found, then walks from the center of each tile the path turns at to the next
+ * at a steady speed, and finally onto the position itself. If the way around is further out than the pathfinder first looked, it looks again further out.
+ *
+ * A new path is found if the map's solid tiles change, or if the entity is held up for a while. PathFinder only goes around solid tiles, not entities,
+ * so someone standing in the way gets the same path again; the entity tries it MAX_REPATHS times without getting a tile closer to the position before
+ * giving up. If there is no path, it walks straight at the position and gives up once it is stuck.
+ */
+public class PathMoveCommand extends BaseCommand {
+
+	private static final double STUCK_TIME = 500; // How long the entity can go without getting closer to where it is walking before it finds a new path
+	private static final int MAX_REPATHS = 3; // How many times in a row the entity finds a new path after being held up before it gives up
+	private static final int MAX_PADDING = 8 * PathFinder.searchPadding; // The furthest out around the start and goal that a path is looked for
+
+	protected Dynamic e; // The entity to be moved
+	private final Vec2 p; // The position the entity should be moved to
+	private final double speedToMove; // The speed in ms per tile the entity should move at
+	private double offsetX, offsetY; // How far the center of the entity's hitbox is from its position, which is what decides the tile it is on
+
+	private Future<Path> request; // The path being found, or null if there isn't one being found
+	private Path path; // The path being followed, or null if the entity is walking straight at p
+	private int version; // The solidVersion() of the map when the path was asked for
+	private int padding; // How far around the start and goal the path being found is looked for
+	private int repaths; // How many new paths have been found after being held up since the entity last got a tile closer to p
+	private double closestToP = Double.MAX_VALUE; // The closest the entity has been to p when it last got a tile closer to it
+	private int next; // The index of the tile in the path being walked to
+	private final Vec2 target = new Vec2(0, 0); // The position being walked to
+	private double closest; // The closest the entity has been to the target since it last got any closer
+	private double stuckTime; // Milliseconds since the entity last got any closer to the target
+
+	/**
+	 * @param game        The game instance
+	 * @param e           The entity to be moved
+	 * @param p           The new position for the entity
+	 * @param speedToMove The speed in ms per tile that the entity should move
+	 */
+	public PathMoveCommand(Game game, Dynamic e, Vec2 p, double speedToMove) {
+		super(game);
+		this.e = e;
+		this.p = new Vec2(p);
+		this.speedToMove = speedToMove;
+	}
+
+	public void start() {
+		offsetX = e.hitboxX() + e.hitboxWidth() / 2 - e.pos.x;
+		offsetY = e.hitboxY() + e.hitboxHeight() / 2 - e.pos.y;
+		findPath(PathFinder.searchPadding);
+	}
+
+	/**
+	 * Asks for a path from the tile the entity is on to the tile it will be on at p.
+	 *
+	 * @param padding How far around the tiles to look for it
+	 */
+	private void findPath(int padding) {
+		this.padding = padding;
+		version = PlayState.map.solidVersion();
+		request = PathFinder.request(PlayState.map, (int) Math.floor(e.pos.x + offsetX), (int) Math.floor(e.pos.y + offsetY),
+				(int) Math.floor(p.x + offsetX), (int) Math.floor(p.y + offsetY), padding);
+		path = null;
+		e.v.set(0, 0);
+	}
+
+	public void tick(double deltaTime) {
+		super.tick(deltaTime);
+
+		// Wait for the path, then start walking along it
+		if (request != null) {
+			if (!request.isDone()) return;
+			try {
+				path = request.get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException ex) {
+				Diagnostics.warn(Category.THEATER, "Couldn't find a path for " + e.name + ": " + ex.getCause());
+			}
+			request = null;
+
+			// Look further out if the way around might be outside where the path was looked for, and give up on a path if it isn't there either
+			if (path == PathFinder.OUT_OF_BOUNDS) {
+				if (padding < MAX_PADDING) {
+					findPath(padding * 2);
+					return;
+				}
+				path = null;
+			}
+			next = 1; // Already on the first tile, if not at its center
+			aim();
+		}
+
+		// Find a new path if the one being followed may have been blocked, or opened up a shorter way
+		if (path != null && PlayState.map.solidVersion() != version) {
+			findPath(PathFinder.searchPadding);
+			return;
+		}
+
+		// Move on to the next tiles that are within a step, then step towards the target
+		int numTiles = (path != null) ? path.size() : 0;
+		double step = deltaTime / speedToMove, distance = e.pos.distanceTo(target);
+		while (distance <= step && next < numTiles) {
+			next++;
+			aim();
+			distance = e.pos.distanceTo(target);
+		}
+		if (distance <= step && next >= numTiles) {
+			e.pos.set(p);
+			complete();
+			return;
+		}
+		e.v.set(target).subtractLocal(e.pos).scaleLocal(Math.min(step, distance) / distance);
+
+		// Find a new way if the entity has been held up, or give up if there isn't one or finding one hasn't helped
+		if (e.pos.distanceTo(p) <= closestToP - 1) {
+			closestToP = e.pos.distanceTo(p);
+			repaths = 0;
+		}
+		if (distance < closest - 0.01) {
+			closest = distance;
+			stuckTime = 0;
+		} else if ((stuckTime += deltaTime) >= STUCK_TIME) {
+			if (path == null || repaths >= MAX_REPATHS) complete();
+			else {
+				repaths++;
+				findPath(padding);
+			}
+		}
+	}
+
+	/**
+	 * Sets the target to the center of the tile being walked to, or to p once past the last tile, and resets the check for being stuck.
+	 */
+	private void aim() {
+		if (path != null && next < path.size()) target.set(path.x(next) + 0.5 - offsetX, path.y(next) + 0.5 - offsetY);
+		else target.set(p);
+		closest = e.pos.distanceTo(target);
+		stuckTime = 0;
+	}
+
+	public void complete() {
+		super.complete();
+		e.v.set(0, 0);
+	}
+
+}
@@ -1,11 +1,10 @@
 package Play.TheaterEngine.Commands;
 
-import java.awt.Graphics;
-
 import Engine.AssetManager;
 import Engine.Game;
 import Engine.Sprite;
-import Engine.Tools.fRect;
+import Play.WorldSnapshot;
+import Play.WorldSnapshot.EntityState;
 import Play.Entities.Creature;
 import Play.Entities.Creature.Facing;
 import Play.Entities.Player;
@@ -57,10 +56,17 @@ public class ReceiveItemCommand extends BaseCommand {
 		}
 	}
 
-	public void render(Graphics g, int ox, int oy) {
+	/**
+	 * Adds the item icon held up a tile above the creature, which moves with it.
+	 */
+	public void snapshot(WorldSnapshot s) {
 		if (itemIcon != null) {
-			fRect playerRect = player.worldToScreen(new fRect(player.pos.x, player.pos.y, player.size.x, player.size.y).translate(0, -1));
-			Game.drawImage(g, itemIcon.image(), playerRect.x, playerRect.y, playerRect.width, playerRect.height);
+			EntityState icon = s.addEntity();
+			player.snapshot(icon);
+			icon.y--;
+			icon.lastY--;
+			icon.sprite = itemIcon;
+			icon.outline = null;
 		}
 	}
 
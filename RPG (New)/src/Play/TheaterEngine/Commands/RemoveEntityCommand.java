@@ -1,5 +1,7 @@
 package Play.TheaterEngine.Commands;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 import Play.PlayState;
 import Play.Entities.Dynamic;
@@ -38,7 +40,7 @@ public class RemoveEntityCommand extends BaseCommand {
 				break;
 			}
 		}
-		if (!foundEntity) System.out.println("Could not find the entity to remove with the name: " + nameToRemove);
+		if (!foundEntity) Diagnostics.warn(Category.THEATER, "Could not find the entity to remove with the name: " + nameToRemove);
 		complete();
 	}
 
@@ -2,6 +2,7 @@ package Play.TheaterEngine.Commands;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
@@ -54,6 +55,9 @@ public class ShowDialogCommand extends BaseCommand {
 		// Update how much time has passed
 		timePassed += deltaTime;
 
+		// Break the current set of dialog into lines that fit in the dialog box
+		if (currentLineBreaks == null) currentLineBreaks = getLines(linesFromDialog.get(0), game.getFontMetrics(dialogFont));
+
 		// If enough time has passed and the current line being added to should have a line
 		if (timePassed >= delay && lineBeingAddedTo < numLines && lineBeingAddedTo < currentLineBreaks.size()) {
 			addingText = true;
@@ -118,9 +122,9 @@ public class ShowDialogCommand extends BaseCommand {
 	 * Returns a list of the lines that are spliced out of the line that is passed in.
 	 * 
 	 * @param line The line to be spliced into several lines that fix in the dialogue box
-	 * @param g    The graphics instance needed for FontMetrics to figure out the string width
+	 * @param fm   The FontMetrics of the dialog font needed to figure out the string width
 	 */
-	private ArrayList<String> getLines(String line, Graphics g) {
+	public ArrayList<String> getLines(String line, FontMetrics fm) {
 		ArrayList<String> temp = new ArrayList<String>();
 
 		String tempString = line;
@@ -132,7 +136,7 @@ public class ShowDialogCommand extends BaseCommand {
 			int i = 0;
 
 			// While the addition of another word doesn't increase the string width enough to keep it from fitting, add another word
-			while (i < words.length && g.getFontMetrics().stringWidth(tempLine + " " + words[i]) < textBoxes[0].width) {
+			while (i < words.length && fm.stringWidth(tempLine + " " + words[i]) < textBoxes[0].width) {
 				tempLine += " " + words[i];
 				i++;
 			}
@@ -145,6 +149,8 @@ public class ShowDialogCommand extends BaseCommand {
 		return temp;
 	}
 
+	public boolean rendersOverlay() { return true; }
+
 	public void render(Graphics g, int ox, int oy) {
 
 		// Fill and draw before drawing text on top
@@ -153,8 +159,6 @@ public class ShowDialogCommand extends BaseCommand {
 		g.setFont(dialogFont);
 		g.setColor(Color.white);
 
-		if (currentLineBreaks == null) currentLineBreaks = getLines(linesFromDialog.get(0), g);
-
 		for (int i = 0; i < numLines; i++) {
 			g.drawString((currentLinesDrawn[i] == null) ? "" : currentLinesDrawn[i], (int) textBoxes[i].x,
 					(int) (textBoxes[i].y + g.getFontMetrics().getAscent()));
@@ -57,7 +57,7 @@ public class TeleportCommand extends FadeOutCommand {
 
 	public void start() {
 		if (!doFadeOut) {
-			if (newMap != null && PlayState.map.id != MapManager.get(newMap).id) {
+			if (newMap != null && PlayState.map.id != newMap) {
 				PlayState.changeMap(newMap);
 			}
 			e.setPos(newPos.x, newPos.y);
@@ -65,7 +65,7 @@ public class TeleportCommand extends FadeOutCommand {
 			if (thisFunction != null) thisFunction.run();
 			complete();
 		} else {
-			if (newMap == null || PlayState.map.id == MapManager.get(newMap).id) {
+			if (newMap == null || PlayState.map.id == newMap) {
 				function = new Function() {
 
 					public void run() {
@@ -75,6 +75,7 @@ public class TeleportCommand extends FadeOutCommand {
 					}
 				};
 			} else {
+				MapManager.prefetch(newMap);
 				function = new Function() {
 
 					public void run() {
@@ -87,4 +88,9 @@ public class TeleportCommand extends FadeOutCommand {
 			}
 		}
 	}
+
+	/**
+	 * Stays faded out until the new map's file has been read, so that switching to it doesn't stall the game.
+	 */
+	protected boolean isReadyToHold() { return newMap == null || PlayState.map.id == newMap || MapManager.isReady(newMap); }
 }
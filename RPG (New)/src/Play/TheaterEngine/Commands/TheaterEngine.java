@@ -4,11 +4,15 @@ import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
+import Play.WorldSnapshot;
 import Play.Entities.Dynamic;
 import Play.TheaterEngine.Cutscenes.Cutscene;
 import Play.TheaterEngine.Cutscenes.CutsceneManager;
 import Play.TheaterEngine.Cutscenes.CutsceneManager.Cutscenes;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
+
 public class TheaterEngine {
 
 	private static LinkedList<ArrayList<BaseCommand>> commandGroups = new LinkedList<ArrayList<BaseCommand>>(); // The current queue of commands
@@ -51,7 +55,7 @@ public class TheaterEngine {
 	 */
 	public static void cueCutscene(Cutscenes cutsceneID) {
 		if (currentCutscene != null) {
-			System.out.println("There is already a cutscene in progress!");
+			Diagnostics.warn(Category.THEATER, "There is already a cutscene in progress!");
 			return;
 		}
 		currentCutscene = CutsceneManager.getCutscene(cutsceneID);
@@ -93,18 +97,43 @@ public class TheaterEngine {
 		}
 	}
 
+	/**
+	 * Returns true if any of the commands in the first group draws something in render().
+	 */
+	public static boolean rendersOverlay() {
+		if (commandGroups.isEmpty()) return false;
+		ArrayList<BaseCommand> list = commandGroups.get(0);
+		for (int i = 0, n = list.size(); i < n; i++) {
+			if (list.get(i).rendersOverlay()) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds what each of the commands in the first group draws in the world to the snapshot. Must be called on the game thread, while publishing it.
+	 */
+	public static void snapshot(WorldSnapshot s) {
+		if (!commandGroups.isEmpty()) {
+			ArrayList<BaseCommand> list = commandGroups.get(0);
+			for (int i = 0, n = list.size(); i < n; i++)
+				list.get(i).snapshot(s);
+		}
+	}
+
+	/**
+	 * Renders each of the commands in the first group. Commands read the live state of the game as they draw, so this must be called on the game thread,
+	 * i.e. into the overlay of a WorldSnapshot while publishing it.
+	 */
 	public static void render(Graphics g, int ox, int oy) {
-		// Render each of the commands in the first group
 		if (!commandGroups.isEmpty()) {
 			ArrayList<BaseCommand> list = commandGroups.get(0);
 			for (int i = 0, n = list.size(); i < n; i++)
 				list.get(i).render(g, ox, oy);
 		}
-
 	}
 
 	/**
-	 * Returns true if a current command is a Move command AND the entity controlled by that move command is the Dynamic passed in.
+	 * Returns true if a current command is a Move or PathMove command AND the entity controlled by that move command is the Dynamic passed in.
 	 * 
 	 * @param e The entity to be checked whether or not is under control by a Move command.
 	 */
@@ -114,6 +143,7 @@ public class TheaterEngine {
 		for (int i = 0, n = commandGroups.get(0).size(); i < n; i++) {
 			BaseCommand c = commandGroups.get(0).get(i);
 			if (c instanceof MoveCommand && ((MoveCommand) c).e == e) return true;
+			if (c instanceof PathMoveCommand && ((PathMoveCommand) c).e == e) return true;
 		}
 
 		return false;
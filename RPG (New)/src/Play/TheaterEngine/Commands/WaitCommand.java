@@ -4,7 +4,7 @@ import Engine.Game;
 
 public class WaitCommand extends BaseCommand {
 
-	private long timer; // A timer to measure how much time has passed
+	private double timer; // A timer to measure how much time has passed in milliseconds
 	private int delay; // The delay in milliseconds to wait
 
 	/**
@@ -16,11 +16,10 @@ public class WaitCommand extends BaseCommand {
 		this.delay = delay;
 	}
 
-	public void start() { timer = System.currentTimeMillis(); }
-
 	public void tick(double deltaTime) {
 		super.tick(deltaTime);
 		// Complete command if the wait period has passed
-		if (System.currentTimeMillis() - timer >= delay) complete();
+		timer += deltaTime;
+		if (timer >= delay) complete();
 	}
 }
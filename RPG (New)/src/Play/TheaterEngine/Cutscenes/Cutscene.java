@@ -21,6 +21,7 @@ import Play.TheaterEngine.Commands.GetInputCommand;
 import Play.TheaterEngine.Commands.GetInputCommand.InputResponse;
 import Play.TheaterEngine.Commands.MoveCommand;
 import Play.TheaterEngine.Commands.PanCameraCommand;
+import Play.TheaterEngine.Commands.PathMoveCommand;
 import Play.TheaterEngine.Commands.ReceiveItemCommand;
 import Play.TheaterEngine.Commands.RemoveEntityCommand;
 import Play.TheaterEngine.Commands.SetCameraFocusCommand;
@@ -252,6 +253,20 @@ public abstract class Cutscene {
 		return command;
 	}
 
+	/**
+	 * Walks an entity to a new position around the walls in its way, following a path found by PathFinder.
+	 * 
+	 * @param e      The entity to be moved.
+	 * @param newPos The position the entity should be moved to.
+	 * @param speed  The speed in ms per tile that the entity should move.
+	 * @return The PathMoveCommand that was created.
+	 */
+	public PathMoveCommand walk(Dynamic e, Vec2 newPos, double speed) {
+		PathMoveCommand command = new PathMoveCommand(game, e, newPos, speed);
+		if (!finished && addToEngine) TheaterEngine.add(command);
+		return command;
+	}
+
 	/**
 	 * Teleports the given entity to the specified location. Can do a fade out or a customizable function if desired.
 	 * 
@@ -2,6 +2,8 @@ package Play.TheaterEngine.Cutscenes;
 
 import java.util.HashMap;
 
+import Engine.Diagnostics;
+import Engine.Diagnostics.Category;
 import Engine.Game;
 
 public class CutsceneManager {
@@ -23,7 +25,7 @@ public class CutsceneManager {
 	 */
 	public static Cutscene getCutscene(Cutscenes id) {
 		if (!cutsceneMap.containsKey(id)) {
-			System.out.println("There exists no cutscene with the id: " + id + "!");
+			Diagnostics.warn(Category.THEATER, "There exists no cutscene with the id: " + id + "!");
 			return null;
 		}
 		return cutsceneMap.get(id);
@@ -0,0 +1,161 @@
+package Play;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import Engine.Game;
+import Engine.Sprite;
+import Engine.Tools.Vec2;
+import Engine.Tools.fRect;
+import Play.Maps.TileWindow;
+
+/**
+ * Everything PlayState needs to draw a frame, copied on the game thread after a tick so the render thread never reads the live world. Snapshots are handed
+ * over through a TripleBuffer and are not touched again until they are reused, so nothing in here needs to be synchronized. The objects inside are
+ * pooled and overwritten every publish rather than reallocated.
+ */
+public class WorldSnapshot {
+
+	public long publishTime; // System.nanoTime() when this snapshot was published
+	public double time; // Clock.now() when this snapshot was published, which animated tiles are drawn at
+	public final TileWindow tiles = new TileWindow(); // A copy of the tiles that can be seen, so the render thread never reads the live map
+	public int tileSize; // Tile.GAME_SIZE at the time of the tick
+	public int ox, oy, lastOX, lastOY; // The camera offsets at the end and start of the tick
+	public int tx0, ty0, tx1, ty1; // The window of tiles that can be seen at either offset (tx0, ty0 inclusive and tx1, ty1 exclusive)
+	public boolean drawHoveredTileCoords; // Whether the hovered tile should be highlighted
+
+	private final ArrayList<EntityState> entities = new ArrayList<EntityState>(); // Pool of entity states, of which the first numEntities are in use
+	private int numEntities; // The number of entities in this snapshot, already sorted in the order they should be drawn
+
+	private BufferedImage overlay; // What the TheaterEngine commands drew on top of the world, drawn on the game thread while publishing, or null
+	private boolean hasOverlay; // Whether anything was drawn into the overlay for this snapshot
+
+	/**
+	 * Empties the snapshot so that it can be filled with the next tick.
+	 */
+	public void clear() {
+		numEntities = 0;
+		hasOverlay = false;
+	}
+
+	/**
+	 * Returns the next unused entity state, which should then be filled in by the entity being captured.
+	 */
+	public EntityState addEntity() {
+		if (numEntities == entities.size()) entities.add(new EntityState());
+		return entities.get(numEntities++);
+	}
+
+	/**
+	 * Clears the overlay, making it the given size if it isn't already, and returns a Graphics object to draw into it with, which should be disposed of
+	 * once done. The overlay is drawn over the screen as it is rather than following the interpolated camera, so it only holds things that don't move with
+	 * the world. Anything drawn in the world is added as an entity state instead.
+	 *
+	 * @param width  The width of the screen in pixels
+	 * @param height The height of the screen in pixels
+	 */
+	public Graphics2D beginOverlay(int width, int height) {
+		if (overlay == null || overlay.getWidth() != width || overlay.getHeight() != height)
+			overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = overlay.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, width, height);
+		g.setComposite(AlphaComposite.SrcOver);
+		hasOverlay = true;
+		return g;
+	}
+
+	/**
+	 * Draws the overlay over the whole screen, if anything was drawn into it.
+	 */
+	public void renderOverlay(Graphics g) {
+		if (hasOverlay) g.drawImage(overlay, 0, 0, null);
+	}
+
+	/**
+	 * Returns the number of entities in this snapshot.
+	 */
+	public int numEntities() { return numEntities; }
+
+	/**
+	 * Returns the entity state at index i, where lower indices should be drawn first.
+	 */
+	public EntityState getEntity(int i) { return entities.get(i); }
+
+	/**
+	 * The transform and appearance of a single entity at the end of a tick, along with where it was at the start of it.
+	 */
+	public static class EntityState {
+
+		public double x, y, lastX, lastY; // The position at the end and start of the tick in world units
+		public double width, height; // The size in world units
+		public Sprite sprite; // The sprite to draw over the entity's bounds, or null if there isn't one
+		public fRect outline; // A rect to outline in white relative to the entity's position in world units, or null if there isn't one
+
+		/**
+		 * Sets the transform of this state and clears its appearance.
+		 *
+		 * @param pos     The position at the end of the tick
+		 * @param lastPos The position at the start of the tick
+		 * @param size    The size of the entity
+		 */
+		public void set(Vec2 pos, Vec2 lastPos, Vec2 size) { set(pos.x, pos.y, lastPos.x, lastPos.y, size.x, size.y); }
+
+		/**
+		 * Sets the transform of this state from primitives and clears its appearance.
+		 *
+		 * @param x      The x coordinate at the end of the tick
+		 * @param y      The y coordinate at the end of the tick
+		 * @param lastX  The x coordinate at the start of the tick
+		 * @param lastY  The y coordinate at the start of the tick
+		 * @param width  The width of the entity
+		 * @param height The height of the entity
+		 */
+		public void set(double x, double y, double lastX, double lastY, double width, double height) {
+			this.x = x;
+			this.y = y;
+			this.lastX = lastX;
+			this.lastY = lastY;
+			this.width = width;
+			this.height = height;
+			sprite = null;
+			outline = null;
+		}
+
+		/**
+		 * Sets the outline of this state to the given rect, which is in world coordinates and moves with the entity.
+		 */
+		public void outline(fRect r) { outline = new fRect(r.x - x, r.y - y, r.width, r.height); }
+
+		/**
+		 * Draws this entity at its position interpolated between the start and end of the tick.
+		 *
+		 * @param g        The Graphics object to draw with
+		 * @param ox       The x offset of the camera being drawn with
+		 * @param oy       The y offset of the camera being drawn with
+		 * @param tileSize The size of a tile in pixels
+		 * @param alpha    How far between the start (0) and end (1) of the tick to draw the entity
+		 * @param screen   The bounds of the screen, outside of which images aren't drawn
+		 */
+		public void render(Graphics g, int ox, int oy, int tileSize, double alpha, fRect screen) {
+			double screenX = (lastX + (x - lastX) * alpha) * tileSize + ox;
+			double screenY = (lastY + (y - lastY) * alpha) * tileSize + oy;
+			double screenWidth = width * tileSize, screenHeight = height * tileSize;
+
+			// Draw a copy of the sprite that is already the right size rather than scaling it while drawing
+			if (sprite != null && !(screenX > screen.width || screenY > screen.height || screenX + screenWidth < 0 || screenY + screenHeight < 0)) {
+				g.drawImage(sprite.scaled((int) Game.round(screenWidth, 1), (int) Game.round(screenHeight, 1)), (int) Game.round(screenX, 1),
+						(int) Game.round(screenY, 1), null);
+			}
+
+			if (outline != null) new fRect(screenX + outline.x * tileSize, screenY + outline.y * tileSize, outline.width * tileSize, outline.height * tileSize)
+					.draw(g, Color.white);
+		}
+
+	}
+
+}